@@ -21,7 +21,7 @@ public class SecurityConfig {
                                 .authorizeHttpRequests((requests) -> requests
                                                 .requestMatchers("/admin/**", "/api/admin/**", "/providers/**",
                                                                 "/resetDatabase",
-                                                                "/createStreams")
+                                                                "/createStreams", "/actuator/metrics/**")
                                                 .hasRole("ADMIN")
                                                 .requestMatchers("/stream.html", "/proxy/**", "/transcode/**",
                                                                 "/css/**", "/js/**",
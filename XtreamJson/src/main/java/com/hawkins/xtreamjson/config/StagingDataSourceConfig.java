@@ -0,0 +1,45 @@
+package com.hawkins.xtreamjson.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.hawkins.xtreamjson.service.CatalogStaging;
+
+/**
+ * Routes connections borrowed by a staging ingest thread to the staging
+ * schema; see {@link CatalogStaging}. Every other thread gets the pool's
+ * connections unchanged.
+ */
+@Configuration
+public class StagingDataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor stagingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return CatalogStaging.route(super.getConnection());
+                        }
+
+                        @Override
+                        public Connection getConnection(String username, String password) throws SQLException {
+                            return CatalogStaging.route(super.getConnection(username, password));
+                        }
+                    };
+                }
+                return bean;
+            }
+        };
+    }
+}
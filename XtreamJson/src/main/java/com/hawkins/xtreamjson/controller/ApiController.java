@@ -7,6 +7,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -14,6 +15,7 @@ import com.hawkins.xtreamjson.data.LiveStream;
 import com.hawkins.xtreamjson.data.MovieCategory;
 import com.hawkins.xtreamjson.data.MovieStream;
 import com.hawkins.xtreamjson.service.ApiService;
+import com.hawkins.xtreamjson.service.SeriesService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,10 +26,13 @@ public class ApiController {
 
     private final ApiService apiService;
     private final com.hawkins.xtreamjson.service.TmdbService tmdbService;
+    private final SeriesService seriesService;
 
-    public ApiController(ApiService apiService, com.hawkins.xtreamjson.service.TmdbService tmdbService) {
+    public ApiController(ApiService apiService, com.hawkins.xtreamjson.service.TmdbService tmdbService,
+            SeriesService seriesService) {
         this.apiService = apiService;
         this.tmdbService = tmdbService;
+        this.seriesService = seriesService;
     }
 
     @GetMapping(value = "/epg.xml", produces = MediaType.APPLICATION_XML_VALUE)
@@ -69,4 +74,11 @@ public class ApiController {
         String summary = tmdbService.getMovieSummary(id);
         return java.util.Collections.singletonMap("overview", summary != null ? summary : "No overview available.");
     }
+
+    @GetMapping(value = "/episodes/{episodeId}/info", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> getEpisodeInfo(@PathVariable String episodeId) {
+        return seriesService.getEpisodeInfo(episodeId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 }
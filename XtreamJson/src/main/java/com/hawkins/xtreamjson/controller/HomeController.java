@@ -22,8 +22,8 @@ import com.hawkins.xtreamjson.service.EpgService;
 import com.hawkins.xtreamjson.service.IptvProviderService;
 import com.hawkins.xtreamjson.service.JsonService;
 import com.hawkins.xtreamjson.service.SeriesService;
+import com.hawkins.xtreamjson.service.StreamUrlResolver;
 import com.hawkins.xtreamjson.service.StrmService;
-import com.hawkins.xtreamjson.util.StreamUrlHelper;
 import com.hawkins.xtreamjson.util.XstreamCredentials;
 
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +38,7 @@ public class HomeController {
     private final EpgService epgService;
     private final EpgProcessorService epgProcessorService;
     private final ApplicationPropertiesService applicationPropertiesService;
+    private final StreamUrlResolver urlResolver;
 
     private static final ExecutorService resetExecutor = Executors.newSingleThreadExecutor();
     private static final AtomicReference<Future<?>> resetFutureRef = new AtomicReference<>();
@@ -45,7 +46,8 @@ public class HomeController {
     public HomeController(JsonService jsonService, IptvProviderService providerService,
             SeriesService seriesService, StrmService strmService, EpgService epgService,
             EpgProcessorService epgProcessorService,
-            ApplicationPropertiesService applicationPropertiesService) {
+            ApplicationPropertiesService applicationPropertiesService,
+            StreamUrlResolver urlResolver) {
         this.jsonService = jsonService;
         this.providerService = providerService;
         this.seriesService = seriesService;
@@ -53,6 +55,7 @@ public class HomeController {
         this.epgService = epgService;
         this.epgProcessorService = epgProcessorService;
         this.applicationPropertiesService = applicationPropertiesService;
+        this.urlResolver = urlResolver;
     }
 
     @GetMapping("/")
@@ -64,7 +67,8 @@ public class HomeController {
     @GetMapping("/resetDatabase")
     public String resetDatabase(Model model) {
         Future<?> prev = resetFutureRef.get();
-        if (prev != null && !prev.isDone()) {
+        if ((prev != null && !prev.isDone()) || jsonService.isIngestRunning()) {
+            // Also covers a scheduled or admin-triggered ingest
             model.addAttribute("resetStatus", "A reset operation is already running.");
             return "fragments/resetStatus :: status";
         }
@@ -85,6 +89,7 @@ public class HomeController {
     public String cancelResetDatabase(Model model) {
         Future<?> future = resetFutureRef.get();
         if (future != null && !future.isDone()) {
+            jsonService.cancelIngest();
             future.cancel(true);
             model.addAttribute("resetStatus", "Database reset cancelled.");
         } else {
@@ -105,17 +110,7 @@ public class HomeController {
     @GetMapping("/liveCategoryItems")
     public String liveCategoryItems(@RequestParam String categoryId, Model model) {
         List<LiveStream> items = jsonService.getLiveStreamsByCategory(categoryId);
-        var credentials = providerService
-                .getSelectedProvider().map(p -> new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword()))
-                .orElse(new XstreamCredentials("", "", ""));
-        for (var item : items) {
-            String url = StreamUrlHelper.buildLiveUrl(
-                    credentials.getApiUrl(),
-                    credentials.getUsername(),
-                    credentials.getPassword(),
-                    item);
-            item.setDirectSource(url);
-        }
+        urlResolver.forSelectedProvider().applyLive(items);
         model.addAttribute("items", items);
         return "fragments/liveCategoryItems :: live-category-items";
     }
@@ -132,17 +127,7 @@ public class HomeController {
     @GetMapping("/movieCategoryItems")
     public String movieCategoryItems(@RequestParam String categoryId, Model model) {
         List<MovieStream> movies = jsonService.getMoviesByCategory(categoryId);
-        var credentials = providerService
-                .getSelectedProvider().map(p -> new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword()))
-                .orElse(new XstreamCredentials("", "", ""));
-        for (var movie : movies) {
-            String url = StreamUrlHelper.buildVodUrl(
-                    credentials.getApiUrl(),
-                    credentials.getUsername(),
-                    credentials.getPassword(),
-                    movie);
-            movie.setDirectSource(url);
-        }
+        urlResolver.forSelectedProvider().applyMovies(movies);
         model.addAttribute("items", movies);
         return "fragments/movieCategoryItems :: movie-category-items";
     }
@@ -178,17 +163,8 @@ public class HomeController {
         if (selectedProviderOpt.isEmpty()) {
             return "redirect:/providers";
         }
-        var selectedProvider = selectedProviderOpt.get();
         Page<MovieStream> moviePage = jsonService.getMoviesByCategory(categoryId, page, size, letter);
-        // Set directSource for each movie in the page
-        for (MovieStream movie : moviePage.getContent()) {
-            String url = StreamUrlHelper.buildVodUrl(
-                    selectedProvider.getApiUrl(),
-                    selectedProvider.getUsername(),
-                    selectedProvider.getPassword(),
-                    movie);
-            movie.setDirectSource(url);
-        }
+        urlResolver.of(selectedProviderOpt.get()).applyMovies(moviePage.getContent());
         // log.info("movieCategoryPage: categoryId={}, page={}, size={}, letter={},
         // moviesFound={}", categoryId, page, size, letter,
         // moviePage.getContent().size());
@@ -271,17 +247,7 @@ public class HomeController {
         var series = jsonService.searchSeriesByTitle(query);
         // Populate directSource for each movie using selected provider credentials (so
         // results behave like movieCategoryItems)
-        var credentials = providerService
-                .getSelectedProvider().map(p -> new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword()))
-                .orElse(new XstreamCredentials("", "", ""));
-        for (var movie : movies) {
-            String url = StreamUrlHelper.buildVodUrl(
-                    credentials.getApiUrl(),
-                    credentials.getUsername(),
-                    credentials.getPassword(),
-                    movie);
-            movie.setDirectSource(url);
-        }
+        urlResolver.forSelectedProvider().applyMovies(movies);
         model.addAttribute("movies", movies);
         model.addAttribute("series", series);
         return "fragments/searchResults :: search-results";
@@ -1,9 +1,16 @@
 package com.hawkins.xtreamjson.controller;
 
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.hawkins.xtreamjson.service.AdaptiveConcurrencyLimiter;
+import com.hawkins.xtreamjson.service.BatchWriter;
 import com.hawkins.xtreamjson.service.JsonService;
 
 @RestController
@@ -17,8 +24,19 @@ public class JsonAdminController {
     }
 
     @PostMapping("/refresh")
-    public String refreshJsonData() {
-        jsonService.retreiveJsonData();
-        return "Triggered retreiveJsonData";
+    public ResponseEntity<String> refreshJsonData() {
+        if (!jsonService.retreiveJsonData())
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("An ingest is already running");
+        return ResponseEntity.ok("Triggered retreiveJsonData");
+    }
+
+    @GetMapping("/providerLimiter")
+    public AdaptiveConcurrencyLimiter.Stats providerLimiter() {
+        return jsonService.getProviderLimiterStats();
+    }
+
+    @GetMapping("/seriesWriters")
+    public List<BatchWriter.Stats> seriesWriters() {
+        return jsonService.getSeriesWriterStats();
     }
 }
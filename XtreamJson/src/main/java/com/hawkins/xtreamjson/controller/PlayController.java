@@ -0,0 +1,33 @@
+package com.hawkins.xtreamjson.controller;
+
+import java.net.URI;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+import com.hawkins.xtreamjson.service.StreamUrlResolver;
+
+/**
+ * Stable, credential-free links to provider streams. {@code /play/live/{streamId}},
+ * {@code /play/movie/{streamId}} and {@code /play/series/{episodeId}} redirect to
+ * the stream URL of the currently selected provider.
+ */
+@Controller
+public class PlayController {
+
+    private final StreamUrlResolver urlResolver;
+
+    public PlayController(StreamUrlResolver urlResolver) {
+        this.urlResolver = urlResolver;
+    }
+
+    @GetMapping("/play/{type}/{id}")
+    public ResponseEntity<Void> play(@PathVariable String type, @PathVariable String id) {
+        return urlResolver.resolve(type, id)
+                .map(url -> ResponseEntity.status(HttpStatus.FOUND).location(URI.create(url)).<Void>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,11 +1,19 @@
 package com.hawkins.xtreamjson.data;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ApplicationProperties {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +28,14 @@ public class ApplicationProperties {
     private String excludedTitles = "";
     @jakarta.persistence.Column(columnDefinition = "TEXT")
     private String availablePrefixes = "";
+    @Enumerated(EnumType.STRING)
+    private IngestMode ingestMode = IngestMode.DELTA;
+    @Enumerated(EnumType.STRING)
+    private FanOutMode seriesInfoFanOut = FanOutMode.VIRTUAL_THREADS;
+    private Integer missingSeriesTtlDays = 7;
+    @Enumerated(EnumType.STRING)
+    private ResponseArchiveMode responseArchiveMode = ResponseArchiveMode.OFF;
+    private String responseArchiveDir = "data/archive";
 
     // Getters and setters
     public Long getId() {
@@ -77,4 +93,45 @@ public class ApplicationProperties {
     public void setAvailablePrefixes(String v) {
         this.availablePrefixes = v;
     }
-}
\ No newline at end of file
+
+    public IngestMode getIngestMode() {
+        // Rows created before the column existed read back as null
+        return ingestMode != null ? ingestMode : IngestMode.DELTA;
+    }
+
+    public void setIngestMode(IngestMode v) {
+        this.ingestMode = v;
+    }
+
+    public FanOutMode getSeriesInfoFanOut() {
+        return seriesInfoFanOut != null ? seriesInfoFanOut : FanOutMode.VIRTUAL_THREADS;
+    }
+
+    public void setSeriesInfoFanOut(FanOutMode v) {
+        this.seriesInfoFanOut = v;
+    }
+
+    public int getMissingSeriesTtlDays() {
+        return missingSeriesTtlDays != null ? missingSeriesTtlDays : 7;
+    }
+
+    public void setMissingSeriesTtlDays(int v) {
+        this.missingSeriesTtlDays = v;
+    }
+
+    public ResponseArchiveMode getResponseArchiveMode() {
+        return responseArchiveMode != null ? responseArchiveMode : ResponseArchiveMode.OFF;
+    }
+
+    public void setResponseArchiveMode(ResponseArchiveMode v) {
+        this.responseArchiveMode = v;
+    }
+
+    public String getResponseArchiveDir() {
+        return responseArchiveDir != null && !responseArchiveDir.isBlank() ? responseArchiveDir : "data/archive";
+    }
+
+    public void setResponseArchiveDir(String v) {
+        this.responseArchiveDir = v;
+    }
+}
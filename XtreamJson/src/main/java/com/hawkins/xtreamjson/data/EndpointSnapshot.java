@@ -0,0 +1,37 @@
+package com.hawkins.xtreamjson.data;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Validators and body hash of the last provider response that was fully
+ * applied for one catalog endpoint. Used to send conditional requests and to
+ * skip sections whose bytes have not changed since.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointSnapshot {
+    /** Endpoint URL without the credentials. */
+    @Id
+    @Column(length = 1024)
+    private String endpoint;
+
+    /** Hash of the full URL, credentials included; a changed account re-applies the section. */
+    @Column(length = 64)
+    private String urlHash;
+    private String etag;
+    private String lastModified;
+    @Column(length = 64)
+    private String bodyHash;
+    private Instant appliedAt;
+}
@@ -1,16 +1,23 @@
 package com.hawkins.xtreamjson.data;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = {
+        @Index(columnList = "seriesId, seasonId"),
+        @Index(columnList = "seasonId"),
+        @Index(columnList = "episodeId") })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,8 +32,15 @@ public class Episode {
     private String seasonId;
     private String name;
     private String episodeNum;
-    @Lob
+    /**
+     * Raw provider JSON, carried from the parser to the writer; it is stored
+     * gzipped in {@link EpisodeInfo}.
+     */
+    @Transient
     private String infoJson;
-    private String directSource;
+    @Column(length = 16)
+    private String containerExtension;
     private int durationSeconds;
+    @Column(length = 64)
+    private String contentHash;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.hawkins.xtreamjson.data;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The raw get_series_info JSON of one episode, gzipped. It makes up most of
+ * the series data, so it lives apart from {@link Episode}: listing episodes
+ * never reads it, and it is only loaded when a view asks for one episode.
+ */
+@Entity
+@Table(indexes = @Index(columnList = "seriesId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EpisodeInfo {
+    @Id
+    private String episodeId;
+    private String seriesId;
+    @Lob
+    private byte[] data;
+}
@@ -0,0 +1,17 @@
+package com.hawkins.xtreamjson.data;
+
+/**
+ * How {@code JsonService} fans out the per-series get_series_info requests.
+ * <ul>
+ * <li>{@link #POOL} runs each request on the shared fixed worker pool.</li>
+ * <li>{@link #VIRTUAL_THREADS} gives each request its own virtual thread.</li>
+ * <li>{@link #ASYNC} composes non-blocking requests; no thread waits on the
+ * network or on a retry delay.</li>
+ * </ul>
+ * In every mode at most {@code seriesInfoMaxInflight} requests are in flight.
+ */
+public enum FanOutMode {
+    POOL,
+    VIRTUAL_THREADS,
+    ASYNC
+}
@@ -0,0 +1,57 @@
+package com.hawkins.xtreamjson.data;
+
+import java.time.Instant;
+
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of the latest catalog ingest. A run that never reached
+ * {@link #finished} is resumed by the next one instead of starting over, up
+ * to a limited number of {@link #attempts}.
+ * Series progress itself lives in {@link SeriesInfoState}: every series whose
+ * episodes were saved after {@link #startedAt} is done.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestCheckpoint {
+    /** Only the latest run is kept, so this is always the same row. */
+    @Id
+    private Long id;
+
+    /** Provider API URL and username the run was for. */
+    @Column(length = 512)
+    private String provider;
+
+    @Enumerated(EnumType.STRING)
+    private IngestMode mode;
+
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    /** Comma-separated sections that were fully applied (live, movies, series). */
+    @Column(length = 256)
+    private String completedSections;
+
+    /** Comma-separated completed sections that are already in the live catalog. */
+    @Column(length = 256)
+    private String publishedSections;
+
+    /** Runs that worked on this ingest, the original one included. */
+    @ColumnDefault("0")
+    private int attempts;
+
+    private boolean finished;
+}
@@ -0,0 +1,14 @@
+package com.hawkins.xtreamjson.data;
+
+/**
+ * How {@code JsonService.retreiveJsonData} writes a refresh into the database.
+ * <ul>
+ * <li>{@link #FULL} clears every catalog table and reloads it from scratch.</li>
+ * <li>{@link #DELTA} diffs the provider payload against the stored rows and only
+ * writes new/changed rows and deletes removed ones.</li>
+ * </ul>
+ */
+public enum IngestMode {
+    FULL,
+    DELTA
+}
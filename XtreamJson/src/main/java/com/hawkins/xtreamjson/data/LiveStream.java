@@ -2,21 +2,26 @@ package com.hawkins.xtreamjson.data;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = @Index(columnList = "categoryId, name"))
 public class LiveStream {
     @Id
     @JsonProperty("stream_id")
@@ -43,9 +48,13 @@ public class LiveStream {
     private String customSid;
     @JsonProperty("tv_archive")
     private int tvArchive;
+    /** Built on read by {@code StreamUrlResolver}; not stored. */
     @JsonProperty("direct_source")
-    @Column(length = 8192)
+    @Transient
     private String directSource;
     @JsonProperty("tv_archive_duration")
     private int tvArchiveDuration;
+    @JsonIgnore
+    @Column(length = 64)
+    private String contentHash;
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.hawkins.xtreamjson.data;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A series the provider lists but answers 404 for on get_series_info. Skipped
+ * by the ingest until {@link #recheckAfter}, then probed again.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MissingSeries {
+    /** Provider API URL and series id, so registries of different providers never mix. */
+    @Id
+    @Column(length = 512)
+    private String id;
+
+    private String seriesId;
+    private Instant firstMissingAt;
+    private Instant lastVerifiedAt;
+    /** Consecutive confirmed 404s; each one stretches the next re-check. */
+    private int confirmations;
+    private Instant recheckAfter;
+}
@@ -2,20 +2,32 @@ package com.hawkins.xtreamjson.data;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(columnList = "categoryId, name"),
+        @Index(columnList = "categoryId, firstLetter"),
+        @Index(columnList = "releaseYear") })
 public class MovieStream {
     @Id
     @JsonProperty("stream_id")
@@ -48,8 +60,36 @@ public class MovieStream {
     private String containerExtension;
     @JsonProperty("custom_sid")
     private String customSid;
+    /** Built on read by {@code StreamUrlResolver}; not stored. */
     @JsonProperty("direct_source")
+    @Transient
     private String directSource;
+    @JsonIgnore
+    @Column(length = 64)
+    private String contentHash;
+    /**
+     * Derived from the name when the row is written, so category pages,
+     * starting letters and year search are column lookups.
+     */
+    @JsonIgnore
+    private String cleanTitle;
+    @JsonIgnore
+    private String preface;
+    @JsonIgnore
+    @Column(length = 8)
+    private String firstLetter;
+    @JsonIgnore
+    @Column(length = 4)
+    private String releaseYear;
+
+    @PrePersist
+    @PreUpdate
+    void deriveTitleFields() {
+        cleanTitle = XtreamCodesUtils.cleanTitle(name);
+        preface = XtreamCodesUtils.extractPreface(name);
+        firstLetter = XtreamCodesUtils.firstLetter(cleanTitle);
+        releaseYear = XtreamCodesUtils.extractYear(name);
+    }
 
     // Lombok @Data should generate these, but add explicitly to resolve build
     // issues
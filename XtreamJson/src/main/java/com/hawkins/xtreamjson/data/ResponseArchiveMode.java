@@ -0,0 +1,17 @@
+package com.hawkins.xtreamjson.data;
+
+/**
+ * What {@code JsonService} does with raw provider responses during an ingest.
+ * <ul>
+ * <li>{@link #OFF} talks to the provider and keeps nothing.</li>
+ * <li>{@link #RECORD} talks to the provider and also writes every response,
+ * compressed, to a new snapshot directory under the archive directory.</li>
+ * <li>{@link #REPLAY} runs the ingest from a recorded snapshot without any
+ * network access; requests that were not recorded are answered with 404.</li>
+ * </ul>
+ */
+public enum ResponseArchiveMode {
+    OFF,
+    RECORD,
+    REPLAY
+}
@@ -3,11 +3,17 @@ package com.hawkins.xtreamjson.data;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +25,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(columnList = "categoryId, name"),
+        @Index(columnList = "categoryId, firstLetter"),
+        @Index(columnList = "releaseYear") })
 public class Series {
     @Id
     @JsonProperty("series_id")
@@ -60,6 +70,32 @@ public class Series {
     private String categoryId;
     @JsonProperty("category_ids")
     private List<Integer> categoryIds;
+    @JsonIgnore
+    @Column(length = 64)
+    private String contentHash;
+    /**
+     * Derived from the name and release date when the row is written, so
+     * category pages, starting letters and year search are column lookups.
+     */
+    @JsonIgnore
+    private String cleanTitle;
+    @JsonIgnore
+    private String preface;
+    @JsonIgnore
+    @Column(length = 8)
+    private String firstLetter;
+    @JsonIgnore
+    @Column(length = 4)
+    private String releaseYear;
     @Transient
     private List<Season> seasons;
+
+    @PrePersist
+    @PreUpdate
+    void deriveTitleFields() {
+        cleanTitle = XtreamCodesUtils.cleanTitle(name);
+        preface = XtreamCodesUtils.extractPreface(name);
+        firstLetter = XtreamCodesUtils.firstLetter(cleanTitle);
+        releaseYear = XtreamCodesUtils.leadingYear(releaseDate);
+    }
 }
\ No newline at end of file
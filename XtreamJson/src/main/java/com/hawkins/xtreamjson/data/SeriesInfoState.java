@@ -0,0 +1,28 @@
+package com.hawkins.xtreamjson.data;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The listing {@code last_modified} a series' seasons and episodes were last
+ * fetched for. Kept apart from {@link Series}, which is rewritten from every
+ * listing, and only written once the episodes are saved; a series whose
+ * listing still shows this value needs no get_series_info call.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeriesInfoState {
+    @Id
+    private String seriesId;
+    private String lastModified;
+    private Instant appliedAt;
+}
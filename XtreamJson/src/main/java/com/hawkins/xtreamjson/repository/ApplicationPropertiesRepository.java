@@ -2,12 +2,18 @@ package com.hawkins.xtreamjson.repository;
 
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.hawkins.xtreamjson.data.ApplicationProperties;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ApplicationPropertiesRepository extends JpaRepository<ApplicationProperties, Long> {
+    // Read on every request; Hibernate drops the cached result when settings are saved
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<ApplicationProperties> findTopByOrderByIdAsc();
 }
\ No newline at end of file
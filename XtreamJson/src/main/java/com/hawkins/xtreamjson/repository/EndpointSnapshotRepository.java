@@ -0,0 +1,8 @@
+package com.hawkins.xtreamjson.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.hawkins.xtreamjson.data.EndpointSnapshot;
+
+public interface EndpointSnapshotRepository extends JpaRepository<EndpointSnapshot, String> {
+}
@@ -0,0 +1,12 @@
+package com.hawkins.xtreamjson.repository;
+
+/**
+ * Projection of a stored episode used to diff a fresh get_series_info payload.
+ */
+public interface EpisodeHashView {
+    Long getId();
+
+    String getEpisodeId();
+
+    String getContentHash();
+}
@@ -0,0 +1,18 @@
+package com.hawkins.xtreamjson.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.hawkins.xtreamjson.data.EpisodeInfo;
+
+public interface EpisodeInfoRepository extends JpaRepository<EpisodeInfo, String> {
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EpisodeInfo i WHERE i.seriesId IN :seriesIds")
+    int deleteBySeriesIdIn(@Param("seriesIds") Collection<String> seriesIds);
+}
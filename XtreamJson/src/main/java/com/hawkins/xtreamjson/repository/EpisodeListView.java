@@ -0,0 +1,16 @@
+package com.hawkins.xtreamjson.repository;
+
+/**
+ * Projection of an episode with just the columns the episode lists render.
+ */
+public interface EpisodeListView {
+    Long getId();
+
+    String getEpisodeId();
+
+    String getName();
+
+    String getEpisodeNum();
+
+    String getContainerExtension();
+}
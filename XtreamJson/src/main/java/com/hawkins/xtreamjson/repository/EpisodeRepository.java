@@ -1,11 +1,35 @@
 package com.hawkins.xtreamjson.repository;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.hawkins.xtreamjson.data.Episode;
 
 public interface EpisodeRepository extends JpaRepository<Episode, Long> {
-    java.util.List<Episode> findBySeriesIdAndSeasonId(String seriesId, String seasonId);
+    @Query("SELECT e.id AS id, e.episodeId AS episodeId, e.name AS name, e.episodeNum AS episodeNum,"
+            + " e.containerExtension AS containerExtension FROM Episode e WHERE e.seriesId = :seriesId AND e.seasonId = :seasonId")
+    java.util.List<EpisodeListView> findListBySeriesIdAndSeasonId(@Param("seriesId") String seriesId,
+            @Param("seasonId") String seasonId);
 
     java.util.List<Episode> findBySeasonId(String seasonId);
+
+    @Query("SELECT new com.hawkins.xtreamjson.repository.EpisodeRow(e.seriesId, e.seasonId, e.episodeId, e.name,"
+            + " e.episodeNum, e.containerExtension) FROM Episode e ORDER BY e.id")
+    java.util.List<EpisodeRow> findAllRows();
+
+    @Query("SELECT e.containerExtension FROM Episode e WHERE e.episodeId = :episodeId")
+    java.util.List<String> findContainerExtensions(@Param("episodeId") String episodeId);
+
+    @Query("SELECT e.id AS id, e.episodeId AS episodeId, e.contentHash AS contentHash FROM Episode e WHERE e.seriesId = :seriesId")
+    java.util.List<EpisodeHashView> findHashesBySeriesId(@Param("seriesId") String seriesId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Episode e WHERE e.seriesId IN :seriesIds")
+    int deleteBySeriesIdIn(@Param("seriesIds") Collection<String> seriesIds);
 }
\ No newline at end of file
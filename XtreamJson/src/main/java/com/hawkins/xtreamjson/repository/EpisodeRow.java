@@ -0,0 +1,9 @@
+package com.hawkins.xtreamjson.repository;
+
+/**
+ * An episode with the columns the episode lists render and the series and
+ * season it belongs to, read in one pass for the in-memory catalog.
+ */
+public record EpisodeRow(String seriesId, String seasonId, String episodeId, String name, String episodeNum,
+        String containerExtension) {
+}
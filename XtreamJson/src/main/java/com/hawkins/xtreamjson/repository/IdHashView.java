@@ -0,0 +1,10 @@
+package com.hawkins.xtreamjson.repository;
+
+/**
+ * Projection of a provider-assigned id and the content hash stored at last ingest.
+ */
+public interface IdHashView {
+    Integer getId();
+
+    String getContentHash();
+}
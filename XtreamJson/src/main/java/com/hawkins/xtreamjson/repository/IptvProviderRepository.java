@@ -1,15 +1,29 @@
 package com.hawkins.xtreamjson.repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.hawkins.xtreamjson.model.IptvProvider;
 
+import jakarta.persistence.QueryHint;
+
+/**
+ * The finders every request goes through are served from the query cache.
+ * Hibernate drops their cached results whenever the table is written.
+ */
 public interface IptvProviderRepository extends JpaRepository<IptvProvider, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<IptvProvider> findAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<IptvProvider> findBySelectedTrue();
 
     @Modifying
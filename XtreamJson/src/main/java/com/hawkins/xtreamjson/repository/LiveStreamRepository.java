@@ -3,9 +3,13 @@ package com.hawkins.xtreamjson.repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.hawkins.xtreamjson.data.LiveStream;
 
 public interface LiveStreamRepository extends JpaRepository<LiveStream, Integer> {
     List<LiveStream> findByCategoryId(String categoryId);
+
+    @Query("SELECT l.streamId AS id, l.contentHash AS contentHash FROM LiveStream l")
+    List<IdHashView> findAllIdHashes();
 }
\ No newline at end of file
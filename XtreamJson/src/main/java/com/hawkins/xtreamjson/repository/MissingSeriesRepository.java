@@ -0,0 +1,11 @@
+package com.hawkins.xtreamjson.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.hawkins.xtreamjson.data.MissingSeries;
+
+public interface MissingSeriesRepository extends JpaRepository<MissingSeries, String> {
+    List<MissingSeries> findByIdStartingWith(String prefix);
+}
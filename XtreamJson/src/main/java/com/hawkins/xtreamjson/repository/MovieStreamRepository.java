@@ -1,7 +1,9 @@
 package com.hawkins.xtreamjson.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,9 +22,21 @@ public interface MovieStreamRepository extends JpaRepository<MovieStream, Intege
         Page<MovieStream> findByCategoryIdAndNameStartingWith(@Param("categoryId") String categoryId,
                         @Param("letter") String letter, Pageable pageable);
 
-        @Query("SELECT DISTINCT UPPER(SUBSTRING(m.name, 1, 1)) FROM MovieStream m WHERE m.categoryId = :categoryId ORDER BY UPPER(SUBSTRING(m.name, 1, 1))")
+        @Query("SELECT DISTINCT m.firstLetter FROM MovieStream m WHERE m.categoryId = :categoryId"
+                        + " AND m.firstLetter IS NOT NULL ORDER BY m.firstLetter")
         List<String> findDistinctFirstLettersByCategoryId(@Param("categoryId") String categoryId);
 
-        @Query("SELECT m FROM MovieStream m WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :q, '%'))")
-        List<MovieStream> searchByNameContaining(@Param("q") String q);
+        @Query("SELECT DISTINCT m.firstLetter FROM MovieStream m WHERE m.categoryId = :categoryId"
+                        + " AND m.firstLetter IS NOT NULL AND (m.preface IN :prefaces OR m.preface IS NULL) ORDER BY m.firstLetter")
+        List<String> findDistinctFirstLettersIncluded(@Param("categoryId") String categoryId,
+                        @Param("prefaces") Collection<String> prefaces);
+
+        @Query("SELECT m FROM MovieStream m WHERE m.releaseYear = :year ORDER BY m.cleanTitle")
+        List<MovieStream> searchByReleaseYear(@Param("year") String year, Limit limit);
+
+        @Query("SELECT m.streamId AS id, m.cleanTitle AS title FROM MovieStream m")
+        List<TitleView> findAllTitles();
+
+        @Query("SELECT m.streamId AS id, m.contentHash AS contentHash FROM MovieStream m")
+        List<IdHashView> findAllIdHashes();
 }
\ No newline at end of file
@@ -1,9 +1,20 @@
 package com.hawkins.xtreamjson.repository;
 
+import java.util.Collection;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.hawkins.xtreamjson.data.Season;
 
 public interface SeasonRepository extends JpaRepository<Season, Long> {
     java.util.List<Season> findBySeriesId(String seriesId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Season s WHERE s.seriesId IN :seriesIds")
+    int deleteBySeriesIdIn(@Param("seriesIds") Collection<String> seriesIds);
 }
\ No newline at end of file
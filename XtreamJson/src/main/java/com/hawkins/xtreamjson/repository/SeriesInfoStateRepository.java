@@ -0,0 +1,8 @@
+package com.hawkins.xtreamjson.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.hawkins.xtreamjson.data.SeriesInfoState;
+
+public interface SeriesInfoStateRepository extends JpaRepository<SeriesInfoState, String> {
+}
@@ -1,7 +1,9 @@
 package com.hawkins.xtreamjson.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,9 +14,21 @@ public interface SeriesRepository extends JpaRepository<Series, Integer>,
         org.springframework.data.jpa.repository.JpaSpecificationExecutor<Series> {
     List<Series> findByCategoryId(String categoryId);
 
-    @Query("SELECT s FROM Series s WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :q, '%'))")
-    List<Series> searchByNameContaining(@Param("q") String q);
+    @Query("SELECT s FROM Series s WHERE s.releaseYear = :year ORDER BY s.cleanTitle")
+    List<Series> searchByReleaseYear(@Param("year") String year, Limit limit);
 
-    @Query("SELECT s FROM Series s WHERE s.releaseDate IS NOT NULL AND s.releaseDate LIKE CONCAT(:year, '%')")
-    List<Series> searchByReleaseYear(@Param("year") String year);
+    @Query("SELECT s.seriesId AS id, s.cleanTitle AS title FROM Series s")
+    List<TitleView> findAllTitles();
+
+    @Query("SELECT DISTINCT s.firstLetter FROM Series s WHERE s.categoryId = :categoryId"
+            + " AND s.firstLetter IS NOT NULL ORDER BY s.firstLetter")
+    List<String> findDistinctFirstLettersByCategoryId(@Param("categoryId") String categoryId);
+
+    @Query("SELECT DISTINCT s.firstLetter FROM Series s WHERE s.categoryId = :categoryId"
+            + " AND s.firstLetter IS NOT NULL AND (s.preface IN :prefaces OR s.preface IS NULL) ORDER BY s.firstLetter")
+    List<String> findDistinctFirstLettersIncluded(@Param("categoryId") String categoryId,
+            @Param("prefaces") Collection<String> prefaces);
+
+    @Query("SELECT s.seriesId AS id, s.contentHash AS contentHash FROM Series s")
+    List<IdHashView> findAllIdHashes();
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.hawkins.xtreamjson.repository;
+
+/**
+ * Row id and clean title, for building the title search index.
+ */
+public interface TitleView {
+    Integer getId();
+
+    String getTitle();
+}
@@ -27,8 +27,10 @@ public class ScheduledTasksService {
 
     @Scheduled(cron = "0 0 2 * * *")
     public void runDailyTasks() {
-        jsonService.retreiveJsonData();
-        log.info("Scheduled Task retreiveJsonData completed at {}", XtreamCodesUtils.printNow());
+        if (jsonService.retreiveJsonData())
+            log.info("Scheduled Task retreiveJsonData completed at {}", XtreamCodesUtils.printNow());
+        else
+            log.info("Scheduled Task retreiveJsonData skipped: an ingest was already running");
         try {
             strmService.generateAllStrmFiles();
         } catch (IOException e) {
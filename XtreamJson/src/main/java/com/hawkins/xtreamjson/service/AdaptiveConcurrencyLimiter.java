@@ -0,0 +1,221 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD concurrency limit for requests against the provider panel.
+ * <p>
+ * The limit grows by one per round of healthy responses. A response is healthy
+ * when it is not an error and its latency stays within {@link #LATENCY_TOLERANCE}
+ * times the recent median. On a 5xx, 429 or timeout the limit is cut by
+ * {@link #BACKOFF_RATIO}. Only one cut is made per congestion event: drops from
+ * requests that started before the last cut are not counted again.
+ * <p>
+ * Permits are handed out as futures, so callers on the async pipeline never
+ * block while they wait for one.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Outcome {
+        /** Healthy response; may raise the limit. */
+        SUCCESS,
+        /** 5xx, 429, timeout or network failure; cuts the limit. */
+        DROPPED,
+        /** Not a signal either way (e.g. the caller gave up). */
+        IGNORE
+    }
+
+    /**
+     * Point-in-time view of the limiter for the admin API and the ingest log.
+     */
+    public record Stats(int limit, int inflight, int queued, long p50Ms, long p90Ms, long p99Ms, long samples,
+            long drops) {
+        @Override
+        public String toString() {
+            return String.format("limit:%d inflight:%d queued:%d p50:%dms p90:%dms p99:%dms drops:%d", limit,
+                    inflight, queued, p50Ms, p90Ms, p99Ms, drops);
+        }
+    }
+
+    static final double BACKOFF_RATIO = 0.75;
+    static final double LATENCY_TOLERANCE = 2.0;
+    private static final int WINDOW = 1024;
+    private static final int MEDIAN_REFRESH = 64;
+    private static final long MIN_HEALTHY_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+    private final long[] latencies = new long[WINDOW];
+
+    private double limit;
+    private int inflight;
+    private long lastCutNanos;
+    private long samples;
+    private long drops;
+    private long healthyNanos = Long.MAX_VALUE;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = clamp(initialLimit);
+        this.lastCutNanos = System.nanoTime();
+    }
+
+    /**
+     * A granted slot. Must be released exactly once with the outcome of the
+     * request it covered.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        public void release(Outcome outcome) {
+            onRelease(this, outcome);
+        }
+    }
+
+    /**
+     * Completes with a permit as soon as fewer than {@link #getLimit()} requests
+     * are in flight. Cancelling the returned future gives up the place in the
+     * queue.
+     */
+    public CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            waiters.addLast(waiter);
+        }
+        dispatch();
+        return waiter;
+    }
+
+    /**
+     * Restarts the limit from {@code initialLimit}; latency history is kept.
+     */
+    public void reset(int initialLimit) {
+        synchronized (this) {
+            limit = clamp(initialLimit);
+        }
+        dispatch();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public Stats stats() {
+        long[] window;
+        int limitNow, inflightNow, queued;
+        long samplesNow, dropsNow;
+        synchronized (this) {
+            window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            limitNow = (int) limit;
+            inflightNow = inflight;
+            queued = waiters.size();
+            samplesNow = samples;
+            dropsNow = drops;
+        }
+        Arrays.sort(window);
+        return new Stats(limitNow, inflightNow, queued, toMillis(percentile(window, 0.50)),
+                toMillis(percentile(window, 0.90)), toMillis(percentile(window, 0.99)), samplesNow, dropsNow);
+    }
+
+    private void onRelease(Permit permit, Outcome outcome) {
+        synchronized (this) {
+            if (permit.released)
+                return;
+            permit.released = true;
+            inflight--;
+            long latency = System.nanoTime() - permit.startNanos;
+            switch (outcome) {
+                case DROPPED -> {
+                    drops++;
+                    // One cut per congestion event; older requests saw the same overload
+                    if (permit.startNanos - lastCutNanos >= 0) {
+                        limit = clamp(limit * BACKOFF_RATIO);
+                        lastCutNanos = System.nanoTime();
+                    }
+                }
+                case SUCCESS -> {
+                    record(latency);
+                    // Only grow while the limit is actually being used
+                    if (latency <= healthyNanos && inflight + 1 >= limit / 2) {
+                        limit = clamp(limit + 1.0 / limit);
+                    }
+                }
+                case IGNORE -> {
+                }
+            }
+        }
+        dispatch();
+    }
+
+    // Caller holds the lock
+    private void record(long latencyNanos) {
+        latencies[(int) (samples % WINDOW)] = latencyNanos;
+        samples++;
+        if (samples % MEDIAN_REFRESH == 0) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, WINDOW));
+            Arrays.sort(window);
+            healthyNanos = Math.max(MIN_HEALTHY_NANOS, (long) (percentile(window, 0.50) * LATENCY_TOLERANCE));
+        }
+    }
+
+    /**
+     * Hands free slots to queued waiters. Futures are completed outside the lock
+     * because their dependent stages run inline.
+     */
+    private void dispatch() {
+        while (true) {
+            List<CompletableFuture<Permit>> granted = new ArrayList<>();
+            synchronized (this) {
+                while (inflight < (int) limit && !waiters.isEmpty()) {
+                    CompletableFuture<Permit> w = waiters.pollFirst();
+                    if (w.isDone())
+                        continue; // cancelled while queued
+                    inflight++;
+                    granted.add(w);
+                }
+            }
+            if (granted.isEmpty())
+                return;
+            boolean freed = false;
+            for (CompletableFuture<Permit> w : granted) {
+                Permit permit = new Permit();
+                if (!w.complete(permit)) {
+                    synchronized (this) {
+                        permit.released = true;
+                        inflight--;
+                    }
+                    freed = true;
+                }
+            }
+            if (!freed)
+                return;
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
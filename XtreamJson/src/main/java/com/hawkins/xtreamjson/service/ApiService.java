@@ -3,7 +3,6 @@ package com.hawkins.xtreamjson.service;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -16,11 +15,6 @@ import com.hawkins.xtreamjson.data.EpgProgramme;
 import com.hawkins.xtreamjson.data.LiveStream;
 import com.hawkins.xtreamjson.data.MovieCategory;
 import com.hawkins.xtreamjson.data.MovieStream;
-import com.hawkins.xtreamjson.repository.LiveStreamRepository;
-import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
-import com.hawkins.xtreamjson.repository.MovieStreamRepository;
-import com.hawkins.xtreamjson.util.StreamUrlHelper;
-import com.hawkins.xtreamjson.util.XstreamCredentials;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -28,25 +22,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ApiService {
 
-    private final LiveStreamRepository liveStreamRepository;
-    private final MovieCategoryRepository movieCategoryRepository;
-    private final MovieStreamRepository movieStreamRepository;
+    private final CatalogReadModel catalog;
     private final ApplicationPropertiesService applicationPropertiesService;
-    private final IptvProviderService providerService;
     private final EpgService epgService;
+    private final StreamUrlResolver urlResolver;
 
-    public ApiService(LiveStreamRepository liveStreamRepository,
-            MovieCategoryRepository movieCategoryRepository,
-            MovieStreamRepository movieStreamRepository,
+    public ApiService(CatalogReadModel catalog,
             ApplicationPropertiesService applicationPropertiesService,
-            IptvProviderService providerService,
-            EpgService epgService) {
-        this.liveStreamRepository = liveStreamRepository;
-        this.movieCategoryRepository = movieCategoryRepository;
-        this.movieStreamRepository = movieStreamRepository;
+            EpgService epgService,
+            StreamUrlResolver urlResolver) {
+        this.catalog = catalog;
         this.applicationPropertiesService = applicationPropertiesService;
-        this.providerService = providerService;
         this.epgService = epgService;
+        this.urlResolver = urlResolver;
     }
 
     /**
@@ -108,34 +96,25 @@ public class ApiService {
      */
     public List<LiveStream> getFilteredLiveChannels() {
         String includedCountries = applicationPropertiesService.getCurrentProperties().getIncludedCountries();
-        List<LiveStream> allStreams = liveStreamRepository.findAll();
+        List<LiveStream> allStreams = catalog.current().liveStreams();
 
         // Parse included countries
         List<String> prefixes = parseCountryPrefixes(includedCountries);
 
         // Filter streams based on country prefixes
         List<LiveStream> filteredStreams = filterLiveStreams(allStreams, prefixes);
+        // The catalog's rows are shared; clean and fill in copies
+        filteredStreams.replaceAll(stream -> stream.toBuilder().build());
 
         // Get provider credentials
-        Optional<XstreamCredentials> credentialsOpt = providerService.getSelectedProvider()
-                .map(p -> new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword()));
-
-        // Use empty credentials if no provider selected, to avoid null pointers, though
-        // URLs won't work
-        XstreamCredentials credentials = credentialsOpt.orElse(new XstreamCredentials("", "", ""));
+        // No provider selected leaves the URLs empty
+        StreamUrlResolver.Urls urls = urlResolver.forSelectedProvider();
 
         // Populate direct source URLs and clean names
         for (LiveStream stream : filteredStreams) {
             // Clean the name (remove prefix and colon) similar to EpgProcessorService
             cleanStreamName(stream);
-
-            // Build and set the direct source URL
-            String url = StreamUrlHelper.buildLiveUrl(
-                    credentials.getApiUrl(),
-                    credentials.getUsername(),
-                    credentials.getPassword(),
-                    stream);
-            stream.setDirectSource(url);
+            stream.setDirectSource(urls.live(stream.getStreamId()));
         }
 
         return filteredStreams;
@@ -241,7 +220,8 @@ public class ApiService {
         List<String> prefixes = parseCountryPrefixes(includedCountries);
 
         // Get all categories
-        List<MovieCategory> allCategories = movieCategoryRepository.findAll();
+        CatalogSnapshot snapshot = catalog.current();
+        List<MovieCategory> allCategories = snapshot.movieCategories();
 
         // If no country filter, return all categories
         if (prefixes.isEmpty()) {
@@ -249,7 +229,7 @@ public class ApiService {
         }
 
         // Get all movies
-        List<MovieStream> allMovies = movieStreamRepository.findAll();
+        List<MovieStream> allMovies = snapshot.movies();
 
         // Filter movies by country prefix
         List<MovieStream> filteredMovies = allMovies.stream()
@@ -293,31 +273,21 @@ public class ApiService {
         List<String> prefixes = parseCountryPrefixes(includedCountries);
 
         // Get all movies for the category
-        List<MovieStream> allMovies = movieStreamRepository.findByCategoryId(categoryId);
+        List<MovieStream> allMovies = catalog.current().movies(categoryId);
 
         // Filter movies based on country prefixes
         List<MovieStream> filteredMovies = filterMovieStreams(allMovies, prefixes);
+        // The catalog's rows are shared; clean and fill in copies
+        filteredMovies.replaceAll(movie -> movie.toBuilder().build());
 
-        // Get provider credentials
-        Optional<XstreamCredentials> credentialsOpt = providerService.getSelectedProvider()
-                .map(p -> new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword()));
-
-        // Use empty credentials if no provider selected, to avoid null pointers, though
-        // URLs won't work
-        XstreamCredentials credentials = credentialsOpt.orElse(new XstreamCredentials("", "", ""));
+        // No provider selected leaves the URLs empty
+        StreamUrlResolver.Urls urls = urlResolver.forSelectedProvider();
 
         // Populate direct source URLs and clean names
         for (MovieStream movie : filteredMovies) {
             // Clean the name (remove prefix and colon) similar to live streams
             cleanMovieName(movie);
-
-            // Build and set the direct source URL
-            String url = StreamUrlHelper.buildVodUrl(
-                    credentials.getApiUrl(),
-                    credentials.getUsername(),
-                    credentials.getPassword(),
-                    movie);
-            movie.setDirectSource(url);
+            movie.setDirectSource(urls.movie(movie.getStreamId(), movie.getContainerExtension()));
         }
 
         return filteredMovies;
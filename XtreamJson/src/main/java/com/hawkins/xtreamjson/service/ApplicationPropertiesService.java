@@ -38,6 +38,11 @@ public class ApplicationPropertiesService {
             existing.setIncludedCountries(updated.getIncludedCountries());
             existing.setExcludedTitles(updated.getExcludedTitles());
             existing.setAvailablePrefixes(updated.getAvailablePrefixes());
+            existing.setIngestMode(updated.getIngestMode());
+            existing.setSeriesInfoFanOut(updated.getSeriesInfoFanOut());
+            existing.setMissingSeriesTtlDays(updated.getMissingSeriesTtlDays());
+            existing.setResponseArchiveMode(updated.getResponseArchiveMode());
+            existing.setResponseArchiveDir(updated.getResponseArchiveDir());
             return repository.save(existing);
         } else {
             return repository.save(updated);
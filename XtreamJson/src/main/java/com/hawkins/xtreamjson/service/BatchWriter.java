@@ -0,0 +1,175 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Single-threaded writer stage between the ingest producers and a repository.
+ * <p>
+ * Items go into a bounded queue. When the queue is full, {@link #put} blocks,
+ * so producers slow down to the speed of the database instead of buffering
+ * without limit. The writer thread hands the sink a batch when it has
+ * {@code batchSize} items, or when the oldest pending item has waited
+ * {@code maxDelay}. After {@link #close()}, the writer drains what is left and
+ * completes {@link #completion()}. If the sink throws, the future fails and
+ * every later {@link #put} throws.
+ * <p>
+ * The writer runs on its own thread, never on a shared pool: producers blocked
+ * on a full queue must not be able to starve the thread that empties it.
+ */
+public class BatchWriter<T> {
+
+    /**
+     * Point-in-time view of the writer for the admin API and the ingest log.
+     */
+    public record Stats(String name, int queued, int capacity, long written, long flushes, long avgFlushMs,
+            long maxFlushMs, long producerWaitMs) {
+        @Override
+        public String toString() {
+            return String.format("%s queued:%d/%d written:%d flushes:%d avg:%dms max:%dms blocked:%dms", name,
+                    queued, capacity, written, flushes, avgFlushMs, maxFlushMs, producerWaitMs);
+        }
+    }
+
+    private static final long PUT_RECHECK_MS = 100;
+    private static final long CLOSE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final String name;
+    private final int batchSize;
+    private final int capacity;
+    private final long maxDelayNanos;
+    private final BlockingQueue<T> queue;
+    private final Consumer<List<T>> sink;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private volatile boolean closed;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong producerWaitNanos = new AtomicLong();
+
+    private BatchWriter(String name, int batchSize, int capacity, Duration maxDelay, Consumer<List<T>> sink) {
+        this.name = name;
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = Math.max(this.batchSize, capacity);
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.sink = sink;
+    }
+
+    /**
+     * Creates a writer and starts its thread.
+     */
+    public static <T> BatchWriter<T> start(String name, int batchSize, int capacity, Duration maxDelay,
+            Consumer<List<T>> sink) {
+        BatchWriter<T> writer = new BatchWriter<>(name, batchSize, capacity, maxDelay, sink);
+        Thread.ofPlatform().name(name + "-writer").daemon(true).start(writer::run);
+        return writer;
+    }
+
+    /**
+     * Queues one item, blocking while the queue is full.
+     *
+     * @throws IllegalStateException if the writer is closed or has failed, or
+     *                               the caller is interrupted while waiting
+     */
+    public void put(T item) {
+        if (closed)
+            throw new IllegalStateException(name + " writer is closed");
+        if (queue.offer(item))
+            return;
+        long start = System.nanoTime();
+        try {
+            while (!queue.offer(item, PUT_RECHECK_MS, TimeUnit.MILLISECONDS)) {
+                if (completion.isDone())
+                    throw new IllegalStateException(name + " writer is no longer running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing for " + name + " writer", e);
+        } finally {
+            producerWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    public void putAll(Collection<? extends T> items) {
+        for (T item : items) {
+            put(item);
+        }
+    }
+
+    /**
+     * No more items will be queued; the writer flushes the rest and completes.
+     * Call only once every producer has returned from {@link #put}.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * Completes once every queued item has been handed to the sink, or
+     * exceptionally with the sink's failure.
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    public Stats stats() {
+        long n = flushes.get();
+        return new Stats(name, queue.size(), capacity, written.get(), n,
+                n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushNanos.get() / n),
+                TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()),
+                TimeUnit.NANOSECONDS.toMillis(producerWaitNanos.get()));
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(batchSize);
+        long oldest = 0;
+        try {
+            while (true) {
+                // Short polls so close() is noticed promptly even while idle
+                long wait = closed ? 0
+                        : Math.min(CLOSE_CHECK_NANOS,
+                                batch.isEmpty() ? maxDelayNanos : oldest + maxDelayNanos - System.nanoTime());
+                T item = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                if (item != null) {
+                    if (batch.isEmpty())
+                        oldest = System.nanoTime();
+                    batch.add(item);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                boolean done = closed && queue.isEmpty();
+                if (batch.size() >= batchSize
+                        || (!batch.isEmpty() && (done || System.nanoTime() - oldest >= maxDelayNanos))) {
+                    flush(batch);
+                }
+                if (done && batch.isEmpty())
+                    break;
+            }
+            completion.complete(null);
+        } catch (Throwable t) {
+            queue.clear();
+            completion.completeExceptionally(t);
+        }
+    }
+
+    private void flush(List<T> batch) {
+        long start = System.nanoTime();
+        sink.accept(List.copyOf(batch));
+        long elapsed = System.nanoTime() - start;
+        written.addAndGet(batch.size());
+        batch.clear();
+        flushes.incrementAndGet();
+        flushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+}
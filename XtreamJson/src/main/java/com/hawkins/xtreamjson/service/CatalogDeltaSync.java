@@ -0,0 +1,398 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.LiveCategory;
+import com.hawkins.xtreamjson.data.LiveStream;
+import com.hawkins.xtreamjson.data.MovieCategory;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.data.Series;
+import com.hawkins.xtreamjson.data.SeriesCategory;
+import com.hawkins.xtreamjson.repository.EpisodeHashView;
+import com.hawkins.xtreamjson.repository.EpisodeInfoRepository;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.IdHashView;
+import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
+import com.hawkins.xtreamjson.repository.LiveStreamRepository;
+import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeasonRepository;
+import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.util.ContentHashUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reconciles freshly downloaded provider payloads with the rows already stored,
+ * so a refresh only writes what changed instead of clearing and reloading every
+ * table. Rows are matched by their provider id and compared by content hash.
+ * <p>
+ * When the ingest stages a change set (see {@link CatalogStaging}), rows are
+ * compared with the live catalog overlaid with what the run has staged, and
+ * removals are recorded for publishing besides being applied to the staged
+ * tables.
+ */
+@Slf4j
+@Service
+public class CatalogDeltaSync {
+
+    private final LiveCategoryRepository liveCategoryRepository;
+    private final LiveStreamRepository liveStreamRepository;
+    private final MovieCategoryRepository movieCategoryRepository;
+    private final MovieStreamRepository movieStreamRepository;
+    private final SeriesCategoryRepository seriesCategoryRepository;
+    private final SeriesRepository seriesRepository;
+    private final SeasonRepository seasonRepository;
+    private final EpisodeRepository episodeRepository;
+    private final EpisodeInfoRepository episodeInfoRepository;
+    private final SeriesInfoStateRepository seriesInfoStateRepository;
+    private final InsertOnlyWriter insertWriter;
+    private final IngestMetrics metrics;
+    private final ObjectMapper objectMapper;
+    private final CatalogStaging staging;
+
+    public CatalogDeltaSync(LiveCategoryRepository liveCategoryRepository,
+            LiveStreamRepository liveStreamRepository,
+            MovieCategoryRepository movieCategoryRepository,
+            MovieStreamRepository movieStreamRepository,
+            SeriesCategoryRepository seriesCategoryRepository,
+            SeriesRepository seriesRepository,
+            SeasonRepository seasonRepository,
+            EpisodeRepository episodeRepository,
+            EpisodeInfoRepository episodeInfoRepository,
+            SeriesInfoStateRepository seriesInfoStateRepository,
+            InsertOnlyWriter insertWriter,
+            IngestMetrics metrics,
+            ObjectMapper objectMapper,
+            CatalogStaging staging) {
+        this.liveCategoryRepository = liveCategoryRepository;
+        this.liveStreamRepository = liveStreamRepository;
+        this.movieCategoryRepository = movieCategoryRepository;
+        this.movieStreamRepository = movieStreamRepository;
+        this.seriesCategoryRepository = seriesCategoryRepository;
+        this.seriesRepository = seriesRepository;
+        this.seasonRepository = seasonRepository;
+        this.episodeRepository = episodeRepository;
+        this.episodeInfoRepository = episodeInfoRepository;
+        this.seriesInfoStateRepository = seriesInfoStateRepository;
+        this.insertWriter = insertWriter;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
+        this.staging = staging;
+    }
+
+    /**
+     * Per-section outcome of a sync, logged in the ingest summary.
+     */
+    public record SyncResult(String section, int inserted, int updated, int unchanged, int deleted) {
+        @Override
+        public String toString() {
+            return String.format("%s +%d ~%d =%d -%d", section, inserted, updated, unchanged, deleted);
+        }
+    }
+
+    /**
+     * Rows of one series' get_series_info payload that need to be written.
+     */
+    public record SeriesInfoDelta(List<Season> seasonsToSave, List<Episode> episodesToSave, int unchanged,
+            int deleted) {
+    }
+
+    public SyncResult syncLiveCategories(List<LiveCategory> incoming, int batchSize) {
+        return syncCategories("LiveCategory", "LIVE_CATEGORY", incoming, LiveCategory::getCategoryId,
+                liveCategoryRepository, batchSize);
+    }
+
+    public SyncResult syncMovieCategories(List<MovieCategory> incoming, int batchSize) {
+        return syncCategories("MovieCategory", "MOVIE_CATEGORY", incoming, MovieCategory::getCategoryId,
+                movieCategoryRepository, batchSize);
+    }
+
+    public SyncResult syncSeriesCategories(List<SeriesCategory> incoming, int batchSize) {
+        return syncCategories("SeriesCategory", "SERIES_CATEGORY", incoming, SeriesCategory::getCategoryId,
+                seriesCategoryRepository, batchSize);
+    }
+
+    public SyncResult syncMovieStreams(List<MovieStream> incoming, int batchSize) {
+        IdHashSync<MovieStream> sync = movieStreamSync(batchSize);
+        sync.accept(incoming);
+        return sync.finish(true);
+    }
+
+    /**
+     * Syncs the series listing. Removed series take their seasons, episodes and
+     * info state with them. Removal is only safe when every category listing succeeded, so
+     * callers pass {@code removeMissing=false} after a partial listing.
+     */
+    public SyncResult syncSeries(Collection<Series> incoming, boolean removeMissing, int batchSize) {
+        IdHashSync<Series> sync = seriesSync(batchSize);
+        sync.accept(incoming);
+        return sync.finish(removeMissing);
+    }
+
+    public IdHashSync<LiveStream> liveStreamSync(int batchSize) {
+        return new IdHashSync<>("LiveStream", "LIVE_STREAM", LiveStream::getStreamId, LiveStream::setContentHash,
+                liveStreamRepository::findAllIdHashes, liveStreamRepository, batchSize, null);
+    }
+
+    public IdHashSync<MovieStream> movieStreamSync(int batchSize) {
+        return new IdHashSync<>("MovieStream", "MOVIE_STREAM", MovieStream::getStreamId,
+                MovieStream::setContentHash, movieStreamRepository::findAllIdHashes, movieStreamRepository, batchSize,
+                null);
+    }
+
+    public IdHashSync<Series> seriesSync(int batchSize) {
+        // The live rows of a removed series go when the change set is published
+        return new IdHashSync<>("Series", "SERIES", Series::getSeriesId, Series::setContentHash,
+                seriesRepository::findAllIdHashes, seriesRepository, batchSize, removedIds -> {
+                    List<String> ids = removedIds.stream().map(String::valueOf).toList();
+                    episodeRepository.deleteBySeriesIdIn(ids);
+                    episodeInfoRepository.deleteBySeriesIdIn(ids);
+                    seasonRepository.deleteBySeriesIdIn(ids);
+                    seriesInfoStateRepository.deleteAllByIdInBatch(ids);
+                });
+    }
+
+    /**
+     * Incremental sync of one table keyed by a provider-assigned id. Batches are
+     * reconciled as they arrive, so a payload can be streamed straight from the
+     * HTTP body; only the stored id/hash index and the ids seen so far are kept
+     * in memory. {@link #finish(boolean)} deletes the ids that never showed up.
+     * <p>
+     * Ids missing from the stored index are inserted without a merge lookup;
+     * only changed rows and repeats of an id already written go through
+     * {@code saveAll}.
+     */
+    public final class IdHashSync<T> implements Consumer<Collection<T>> {
+        private final String section;
+        private final String table;
+        private final Function<T, Integer> idFn;
+        private final BiConsumer<T, String> hashSetter;
+        private final Map<Integer, String> stored;
+        private final Set<Integer> seen = new HashSet<>();
+        private final JpaRepository<T, Integer> repository;
+        private final int batchSize;
+        private final Consumer<List<Integer>> onRemoved;
+        private int inserted;
+        private int updated;
+        private int unchanged;
+
+        private IdHashSync(String section, String table, Function<T, Integer> idFn, BiConsumer<T, String> hashSetter,
+                Supplier<List<IdHashView>> readHashes, JpaRepository<T, Integer> repository, int batchSize,
+                Consumer<List<Integer>> onRemoved) {
+            this.section = section;
+            this.table = table;
+            this.idFn = idFn;
+            this.hashSetter = hashSetter;
+            List<IdHashView> storedHashes = staging.current(table, readHashes, IdHashView::getId);
+            this.stored = new HashMap<>(storedHashes.size() * 2);
+            for (IdHashView v : storedHashes) {
+                stored.put(v.getId(), v.getContentHash());
+            }
+            this.repository = repository;
+            this.batchSize = batchSize;
+            this.onRemoved = onRemoved;
+        }
+
+        @Override
+        public synchronized void accept(Collection<T> batch) {
+            Map<Integer, T> toInsert = new LinkedHashMap<>();
+            Map<Integer, T> toMerge = new LinkedHashMap<>();
+            for (T t : batch) {
+                Integer id = idFn.apply(t);
+                String hash = hashOf(t);
+                hashSetter.accept(t, hash);
+                if (!seen.add(id)) {
+                    // Providers occasionally list the same id twice; the last occurrence wins
+                    (toInsert.containsKey(id) ? toInsert : toMerge).put(id, t);
+                } else if (!stored.containsKey(id)) {
+                    inserted++;
+                    toInsert.put(id, t);
+                } else if (hash == null || !hash.equals(stored.get(id))) {
+                    updated++;
+                    toMerge.put(id, t);
+                } else {
+                    unchanged++;
+                }
+            }
+            insertWriter.insert(new ArrayList<>(toInsert.values()), batchSize, repository::saveAll);
+            saveInChunks(new ArrayList<>(toMerge.values()), batchSize, repository::saveAll);
+            metrics.rowsSaved(section, toInsert.size() + toMerge.size());
+        }
+
+        public synchronized SyncResult finish(boolean removeMissing) {
+            List<Integer> removed = List.of();
+            if (removeMissing) {
+                removed = stored.keySet().stream().filter(id -> !seen.contains(id)).toList();
+                saveInChunks(removed, batchSize, chunk -> {
+                    repository.deleteAllByIdInBatch(chunk);
+                    staging.recordRemoval(table, chunk);
+                    if (onRemoved != null) {
+                        onRemoved.accept(chunk);
+                    }
+                });
+            }
+            metrics.rowsDeleted(section, removed.size());
+            SyncResult result = new SyncResult(section, inserted, updated, unchanged, removed.size());
+            log.info("Delta sync {}", result);
+            return result;
+        }
+    }
+
+    /**
+     * Stamps the content hash of a parsed episode. The hash covers everything we
+     * persist for it, including the raw provider JSON.
+     */
+    public void stampEpisodeHash(Episode episode) {
+        episode.setContentHash(ContentHashUtils.hash(episode.getEpisodeId(), episode.getSeasonId(),
+                episode.getName(), episode.getEpisodeNum(), episode.getContainerExtension(), episode.getInfoJson()));
+    }
+
+    /**
+     * Compares a series' freshly parsed seasons and episodes with the stored
+     * rows. Removed seasons/episodes are deleted immediately; new and changed
+     * rows are returned for the caller's batch writer. Changed episodes keep
+     * their existing primary key so they are updated in place.
+     */
+    public SeriesInfoDelta reconcileSeriesInfo(String seriesId, List<Season> seasons, List<Episode> episodes) {
+        // A resumed change set compares with the live rows again
+        staging.discardStagedSeries(seriesId);
+        Map<String, Season> storedSeasons = new HashMap<>();
+        List<Long> seasonsToDelete = new ArrayList<>();
+        for (Season s : staging.live(() -> seasonRepository.findBySeriesId(seriesId))) {
+            if (storedSeasons.putIfAbsent(s.getSeasonId(), s) != null) {
+                seasonsToDelete.add(s.getId()); // duplicate row from an older run
+            }
+        }
+        Set<String> incomingSeasonIds = new HashSet<>();
+        List<Season> seasonsToSave = new ArrayList<>();
+        for (Season s : seasons) {
+            incomingSeasonIds.add(s.getSeasonId());
+            if (!storedSeasons.containsKey(s.getSeasonId())) {
+                seasonsToSave.add(s);
+            }
+        }
+        storedSeasons.forEach((seasonId, s) -> {
+            if (!incomingSeasonIds.contains(seasonId)) {
+                seasonsToDelete.add(s.getId());
+            }
+        });
+
+        Map<String, EpisodeHashView> storedEpisodes = new HashMap<>();
+        List<Long> episodesToDelete = new ArrayList<>();
+        for (EpisodeHashView e : staging.live(() -> episodeRepository.findHashesBySeriesId(seriesId))) {
+            if (e.getEpisodeId() == null || storedEpisodes.putIfAbsent(e.getEpisodeId(), e) != null) {
+                episodesToDelete.add(e.getId());
+            }
+        }
+        Set<String> incomingEpisodeIds = new HashSet<>();
+        List<Episode> episodesToSave = new ArrayList<>();
+        int unchanged = 0;
+        for (Episode ep : episodes) {
+            if (ep.getContentHash() == null) {
+                stampEpisodeHash(ep);
+            }
+            EpisodeHashView stored = ep.getEpisodeId() != null ? storedEpisodes.get(ep.getEpisodeId()) : null;
+            if (stored == null || !incomingEpisodeIds.add(ep.getEpisodeId())) {
+                episodesToSave.add(ep);
+            } else if (ep.getContentHash().equals(stored.getContentHash())) {
+                unchanged++;
+            } else {
+                ep.setId(stored.getId());
+                episodesToSave.add(ep);
+            }
+        }
+        List<String> infoToDelete = new ArrayList<>();
+        storedEpisodes.forEach((episodeId, e) -> {
+            if (!incomingEpisodeIds.contains(episodeId)) {
+                episodesToDelete.add(e.getId());
+                infoToDelete.add(episodeId);
+            }
+        });
+
+        if (!episodesToDelete.isEmpty()) {
+            episodeRepository.deleteAllByIdInBatch(episodesToDelete);
+            staging.recordRemoval("EPISODE", seriesId, episodesToDelete);
+            if (!infoToDelete.isEmpty()) {
+                episodeInfoRepository.deleteAllByIdInBatch(infoToDelete);
+                staging.recordRemoval("EPISODE_INFO", seriesId, infoToDelete);
+            }
+            metrics.rowsDeleted("Episode", episodesToDelete.size());
+        }
+        if (!seasonsToDelete.isEmpty()) {
+            seasonRepository.deleteAllByIdInBatch(seasonsToDelete);
+            staging.recordRemoval("SEASON", seriesId, seasonsToDelete);
+            metrics.rowsDeleted("Season", seasonsToDelete.size());
+        }
+        return new SeriesInfoDelta(seasonsToSave, episodesToSave, unchanged,
+                episodesToDelete.size() + seasonsToDelete.size());
+    }
+
+    private <T> SyncResult syncCategories(String section, String table, List<T> incoming, Function<T, String> idFn,
+            JpaRepository<T, String> repository, int batchSize) {
+        Set<String> stored = new HashSet<>();
+        for (T t : staging.current(table, repository::findAll, idFn)) {
+            stored.add(idFn.apply(t));
+        }
+        Map<String, T> byId = new LinkedHashMap<>();
+        for (T t : incoming) {
+            String id = idFn.apply(t);
+            if (id != null) {
+                byId.put(id, t);
+            }
+        }
+        List<T> toInsert = new ArrayList<>();
+        List<T> toMerge = new ArrayList<>();
+        byId.forEach((id, t) -> (stored.contains(id) ? toMerge : toInsert).add(t));
+        int inserted = toInsert.size();
+        insertWriter.insert(toInsert, batchSize, repository::saveAll);
+        saveInChunks(toMerge, batchSize, repository::saveAll);
+        List<String> removed = stored.stream().filter(id -> !byId.containsKey(id)).toList();
+        saveInChunks(removed, batchSize, chunk -> {
+            repository.deleteAllByIdInBatch(chunk);
+            staging.recordRemoval(table, chunk);
+        });
+        metrics.rowsSaved(section, byId.size());
+        metrics.rowsDeleted(section, removed.size());
+        SyncResult result = new SyncResult(section, inserted, byId.size() - inserted, 0, removed.size());
+        log.info("Delta sync {}", result);
+        return result;
+    }
+
+    private String hashOf(Object entity) {
+        try {
+            return ContentHashUtils.hash(objectMapper.writeValueAsBytes(entity));
+        } catch (JsonProcessingException e) {
+            // Unhashable rows are always treated as changed
+            log.debug("Could not hash {}: {}", entity.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static <T> void saveInChunks(List<T> rows, int batchSize, Consumer<List<T>> sink) {
+        int size = Math.max(1, batchSize);
+        for (int i = 0; i < rows.size(); i += size) {
+            sink.accept(rows.subList(i, Math.min(rows.size(), i + size)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.hawkins.xtreamjson.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
+import com.hawkins.xtreamjson.repository.LiveStreamRepository;
+import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeasonRepository;
+import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves browse and API reads from a {@link CatalogSnapshot} instead of the
+ * database.
+ * <p>
+ * The catalog only changes when an ingest publishes a new generation, so the
+ * snapshot is loaded at startup and again after each publish. The new
+ * snapshot is built next to the current one and replaces it with a single
+ * write. Requests read the snapshot that was current when they started, never
+ * a mix of two generations.
+ */
+@Slf4j
+@Service
+public class CatalogReadModel {
+
+    private final LiveCategoryRepository liveCategoryRepository;
+    private final LiveStreamRepository liveStreamRepository;
+    private final MovieCategoryRepository movieCategoryRepository;
+    private final MovieStreamRepository movieStreamRepository;
+    private final SeriesCategoryRepository seriesCategoryRepository;
+    private final SeriesRepository seriesRepository;
+    private final SeasonRepository seasonRepository;
+    private final EpisodeRepository episodeRepository;
+    private volatile CatalogSnapshot current;
+
+    public CatalogReadModel(LiveCategoryRepository liveCategoryRepository,
+            LiveStreamRepository liveStreamRepository,
+            MovieCategoryRepository movieCategoryRepository,
+            MovieStreamRepository movieStreamRepository,
+            SeriesCategoryRepository seriesCategoryRepository,
+            SeriesRepository seriesRepository,
+            SeasonRepository seasonRepository,
+            EpisodeRepository episodeRepository) {
+        this.liveCategoryRepository = liveCategoryRepository;
+        this.liveStreamRepository = liveStreamRepository;
+        this.movieCategoryRepository = movieCategoryRepository;
+        this.movieStreamRepository = movieStreamRepository;
+        this.seriesCategoryRepository = seriesCategoryRepository;
+        this.seriesRepository = seriesRepository;
+        this.seasonRepository = seasonRepository;
+        this.episodeRepository = episodeRepository;
+    }
+
+    /**
+     * The snapshot of the live catalog, loaded on first use if startup has not
+     * got to it yet.
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot snapshot = current;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (current == null) {
+                    reload();
+                }
+                snapshot = current;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Loads the live catalog into a new snapshot and makes it current. Reads
+     * keep being served from the previous snapshot until this returns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        long start = System.nanoTime();
+        CatalogSnapshot snapshot = CatalogSnapshot.of(
+                liveCategoryRepository.findAll(),
+                liveStreamRepository.findAll(Sort.by("streamId")),
+                movieCategoryRepository.findAll(),
+                movieStreamRepository.findAll(Sort.by("streamId")),
+                seriesCategoryRepository.findAll(),
+                seriesRepository.findAll(),
+                seasonRepository.findAll(Sort.by("id")),
+                episodeRepository.findAllRows());
+        current = snapshot;
+        log.info("Catalog snapshot loaded: {} in {} ms", snapshot.summary(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,213 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.hawkins.xtreamjson.data.LiveCategory;
+import com.hawkins.xtreamjson.data.LiveStream;
+import com.hawkins.xtreamjson.data.MovieCategory;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.data.Series;
+import com.hawkins.xtreamjson.data.SeriesCategory;
+import com.hawkins.xtreamjson.repository.EpisodeRow;
+
+/**
+ * One published catalog generation, held in memory for the browse pages and
+ * the API.
+ * <p>
+ * Everything is grouped and sorted once when the snapshot is built:
+ * categories by name, the streams and series of each category by name (the
+ * order the category pages used to get from the database), seasons and
+ * episodes under their series. Lookups are map reads and every list is
+ * unmodifiable, so any number of requests can read a snapshot while the next
+ * one is built.
+ * <p>
+ * The rows are shared by all readers and must not be changed. Code that
+ * decorates a stream for display (clean name, playable URL) works on a copy.
+ */
+public final class CatalogSnapshot {
+
+    /** An episode as the season view lists it. */
+    public record EpisodeEntry(String episodeId, String name, String episodeNum, String containerExtension) {
+    }
+
+    // Same order as the database's ORDER BY name: binary string order, nulls first
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<String> CATEGORY_ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    private final List<LiveCategory> liveCategories;
+    private final List<MovieCategory> movieCategories;
+    private final List<SeriesCategory> seriesCategories;
+    private final List<LiveStream> liveStreams;
+    private final List<MovieStream> movies;
+    private final Map<String, List<LiveStream>> liveByCategory;
+    private final Map<String, List<MovieStream>> moviesByCategory;
+    private final Map<String, List<MovieStream>> moviesByYear;
+    private final Map<Integer, MovieStream> moviesById;
+    private final Map<String, List<Series>> seriesByCategory;
+    private final Map<String, List<Series>> seriesByYear;
+    private final Map<Integer, Series> seriesById;
+    private final Map<String, List<Season>> seasonsBySeries;
+    private final Map<String, Map<String, List<EpisodeEntry>>> episodesBySeries;
+    private final int episodeCount;
+
+    private CatalogSnapshot(List<LiveCategory> liveCategories, List<LiveStream> liveStreams,
+            List<MovieCategory> movieCategories, List<MovieStream> movies, List<SeriesCategory> seriesCategories,
+            List<Series> series, List<Season> seasons, List<EpisodeRow> episodes) {
+        this.liveCategories = sorted(liveCategories, LiveCategory::getCategoryName, CATEGORY_ORDER);
+        this.movieCategories = sorted(movieCategories, MovieCategory::getCategoryName, CATEGORY_ORDER);
+        this.seriesCategories = sorted(seriesCategories, SeriesCategory::getCategoryName, CATEGORY_ORDER);
+        this.liveStreams = List.copyOf(liveStreams);
+        this.movies = List.copyOf(movies);
+        this.liveByCategory = group(liveStreams, LiveStream::getCategoryId, LiveStream::getName, NAME_ORDER);
+        this.moviesByCategory = group(movies, MovieStream::getCategoryId, MovieStream::getName, NAME_ORDER);
+        this.moviesByYear = group(movies, MovieStream::getReleaseYear, MovieStream::getCleanTitle, NAME_ORDER);
+        this.seriesByCategory = group(series, Series::getCategoryId, Series::getName, NAME_ORDER);
+        this.seriesByYear = group(series, Series::getReleaseYear, Series::getCleanTitle, NAME_ORDER);
+        this.moviesById = index(movies, MovieStream::getStreamId);
+        this.seriesById = index(series, Series::getSeriesId);
+        this.seasonsBySeries = group(seasons, Season::getSeriesId, Season::getId,
+                Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+        // Rows arrive in insertion order, which is the order of each season's list
+        Map<String, Map<String, List<EpisodeEntry>>> tree = new HashMap<>();
+        for (EpisodeRow e : episodes) {
+            if (e.seriesId() == null || e.seasonId() == null) {
+                continue;
+            }
+            tree.computeIfAbsent(e.seriesId(), k -> new HashMap<>())
+                    .computeIfAbsent(e.seasonId(), k -> new ArrayList<>())
+                    .add(new EpisodeEntry(e.episodeId(), e.name(), e.episodeNum(), e.containerExtension()));
+        }
+        tree.replaceAll((seriesId, bySeason) -> {
+            bySeason.replaceAll((seasonId, list) -> List.copyOf(list));
+            return Map.copyOf(bySeason);
+        });
+        this.episodesBySeries = Map.copyOf(tree);
+        this.episodeCount = episodes.size();
+    }
+
+    /**
+     * Builds a snapshot from the full contents of the catalog tables. The
+     * arguments are copied; the rows themselves are kept.
+     */
+    public static CatalogSnapshot of(List<LiveCategory> liveCategories, List<LiveStream> liveStreams,
+            List<MovieCategory> movieCategories, List<MovieStream> movies, List<SeriesCategory> seriesCategories,
+            List<Series> series, List<Season> seasons, List<EpisodeRow> episodes) {
+        return new CatalogSnapshot(liveCategories, liveStreams, movieCategories, movies, seriesCategories, series,
+                seasons, episodes);
+    }
+
+    public List<LiveCategory> liveCategories() {
+        return liveCategories;
+    }
+
+    public List<MovieCategory> movieCategories() {
+        return movieCategories;
+    }
+
+    public List<SeriesCategory> seriesCategories() {
+        return seriesCategories;
+    }
+
+    /** Every live stream, in id order. */
+    public List<LiveStream> liveStreams() {
+        return liveStreams;
+    }
+
+    /** Live streams of one category, by name. */
+    public List<LiveStream> liveStreams(String categoryId) {
+        return liveByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    /** Every movie, in id order. */
+    public List<MovieStream> movies() {
+        return movies;
+    }
+
+    /** Movies of one category, by name. */
+    public List<MovieStream> movies(String categoryId) {
+        return moviesByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    /** Movies whose title carries {@code year}, by clean title. */
+    public List<MovieStream> moviesOfYear(String year) {
+        return moviesByYear.getOrDefault(year, List.of());
+    }
+
+    public Optional<MovieStream> movie(int streamId) {
+        return Optional.ofNullable(moviesById.get(streamId));
+    }
+
+    /** Series of one category, by name. */
+    public List<Series> series(String categoryId) {
+        return seriesByCategory.getOrDefault(categoryId, List.of());
+    }
+
+    /** Series released in {@code year}, by clean title. */
+    public List<Series> seriesOfYear(String year) {
+        return seriesByYear.getOrDefault(year, List.of());
+    }
+
+    public Optional<Series> series(int seriesId) {
+        return Optional.ofNullable(seriesById.get(seriesId));
+    }
+
+    public List<Season> seasons(String seriesId) {
+        return seasonsBySeries.getOrDefault(seriesId, List.of());
+    }
+
+    public List<EpisodeEntry> episodes(String seriesId, String seasonId) {
+        return episodesBySeries.getOrDefault(seriesId, Map.of()).getOrDefault(seasonId, List.of());
+    }
+
+    /** Row counts, for logging. */
+    String summary() {
+        return String.format("%d live, %d movies, %d series, %d seasons, %d episodes", liveStreams.size(),
+                movies.size(), seriesById.size(), seasonsBySeries.values().stream().mapToInt(List::size).sum(),
+                episodeCount);
+    }
+
+    private static <T, K> List<T> sorted(List<T> rows, Function<T, K> key,
+            Comparator<? super K> order) {
+        List<T> copy = new ArrayList<>(rows);
+        copy.sort(Comparator.comparing(key, order));
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static <T> Map<Integer, T> index(List<T> rows, Function<T, Integer> id) {
+        Map<Integer, T> byId = new HashMap<>(rows.size() * 4 / 3 + 1);
+        for (T row : rows) {
+            byId.put(id.apply(row), row);
+        }
+        return Collections.unmodifiableMap(byId);
+    }
+
+    /**
+     * Rows by {@code group}, each group sorted by {@code sortKey}. Rows without
+     * a group are left out.
+     */
+    private static <T, G, K> Map<G, List<T>> group(List<T> rows, Function<T, G> group, Function<T, K> sortKey,
+            Comparator<? super K> order) {
+        Map<G, List<T>> groups = new HashMap<>();
+        for (T row : rows) {
+            G key = group.apply(row);
+            if (key != null) {
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+            }
+        }
+        Comparator<T> byKey = Comparator.comparing(sortKey, order);
+        groups.replaceAll((key, list) -> {
+            list.sort(byKey);
+            return Collections.unmodifiableList(list);
+        });
+        return Collections.unmodifiableMap(groups);
+    }
+}
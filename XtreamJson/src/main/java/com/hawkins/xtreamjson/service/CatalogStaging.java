@@ -0,0 +1,522 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Blue-green loading of the catalog tables.
+ * <p>
+ * The ingest writes into copies of the catalog tables in the {@value #SCHEMA}
+ * schema while the web layer keeps reading the live tables in PUBLIC. When a
+ * run ends, {@link #swap} publishes the staged rows of the sections it
+ * completed in a single transaction; a section that failed keeps its previous
+ * generation live. H2 readers see committed data only, so they see either the
+ * old or the new catalog in full, never a half-loaded one, and they never wait
+ * on the ingest's write locks.
+ * <p>
+ * A full reload stages a complete generation, which replaces the live rows. A
+ * delta run stages a change set instead: only the rows it inserts or changes,
+ * plus the keys it removes ({@link #recordRemoval}). Its comparisons read the
+ * live tables overlaid with what the run has staged so far ({@link #current}),
+ * and publishing merges the staged rows and deletes the removed keys, so an
+ * unchanged catalog costs next to nothing to publish.
+ * <p>
+ * Routing is per thread: code running inside {@link #enter()} (or a task
+ * wrapped with one of the {@code bind} methods) gets connections whose current
+ * schema is {@value #SCHEMA}. Hibernate emits unqualified table names, so the
+ * same repositories then hit the staged tables. Any table not staged
+ * (settings, providers, snapshots, checkpoints) falls through to PUBLIC on the
+ * schema search path.
+ */
+@Slf4j
+@Service
+public class CatalogStaging {
+
+    static final String SCHEMA = "STAGING";
+    private static final String LIVE = "PUBLIC";
+
+    /** Tables holding one catalog generation; everything else is shared. */
+    static final List<String> TABLES = List.of("LIVE_CATEGORY", "LIVE_STREAM", "MOVIE_CATEGORY", "MOVIE_STREAM",
+            "SERIES_CATEGORY", "SERIES", "SEASON", "EPISODE", "EPISODE_INFO", "SERIES_INFO_STATE");
+
+    /** Keys a change set removes, by table; its presence marks the staged data as a change set. */
+    static final String REMOVED = "REMOVED_ROW";
+
+    /** Tables of each ingest section; no section's rows refer to another's. */
+    static final Map<String, List<String>> SECTION_TABLES = Map.of(
+            "live", List.of("LIVE_CATEGORY", "LIVE_STREAM"),
+            "movies", List.of("MOVIE_CATEGORY", "MOVIE_STREAM"),
+            "series", List.of("SERIES_CATEGORY", "SERIES", "SEASON", "EPISODE", "EPISODE_INFO",
+                    "SERIES_INFO_STATE"));
+
+    // Tables each section fills from its listings; a resumed change set redoes them
+    private static final Map<String, List<String>> LISTING_TABLES = Map.of(
+            "live", List.of("LIVE_CATEGORY", "LIVE_STREAM"),
+            "movies", List.of("MOVIE_CATEGORY", "MOVIE_STREAM"),
+            "series", List.of("SERIES_CATEGORY", "SERIES"));
+
+    // A removed series takes the rows of these tables with it, matched on SERIES_ID
+    private static final List<String> SERIES_DEPENDENTS = List.of("SEASON", "EPISODE", "EPISODE_INFO",
+            "SERIES_INFO_STATE");
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+    private volatile boolean changeSet;
+    private volatile boolean resumed;
+
+    public CatalogStaging(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Restores the previous routing of the thread on close.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static boolean isActive() {
+        return Boolean.TRUE.equals(ACTIVE.get());
+    }
+
+    /**
+     * Routes this thread's new connections to the staged tables until the scope
+     * is closed.
+     */
+    public static Scope enter() {
+        Boolean previous = ACTIVE.get();
+        ACTIVE.set(Boolean.TRUE);
+        return () -> ACTIVE.set(previous);
+    }
+
+    /**
+     * Routes this thread's new connections to the live tables until the scope
+     * is closed, for reading what the ingest has just published.
+     */
+    public static Scope leave() {
+        Boolean previous = ACTIVE.get();
+        ACTIVE.remove();
+        return () -> ACTIVE.set(previous);
+    }
+
+    /**
+     * Runs {@code task} with the routing of the calling thread, wherever it ends
+     * up executing.
+     */
+    public static Runnable bind(Runnable task) {
+        if (!isActive())
+            return task;
+        return () -> {
+            try (Scope scope = enter()) {
+                task.run();
+            }
+        };
+    }
+
+    public static <T> Consumer<T> bindSink(Consumer<T> task) {
+        if (!isActive())
+            return task;
+        return item -> {
+            try (Scope scope = enter()) {
+                task.accept(item);
+            }
+        };
+    }
+
+    /**
+     * An executor whose tasks run with the routing of the calling thread.
+     * Routing is captured here, not at submission: async stages are often
+     * submitted from HTTP client threads.
+     */
+    public static Executor bindExecutor(Executor executor) {
+        if (!isActive())
+            return executor;
+        return task -> executor.execute(() -> {
+            try (Scope scope = enter()) {
+                task.run();
+            }
+        });
+    }
+
+    /**
+     * Points a freshly borrowed connection at the staged tables if the calling
+     * thread is staging. The pool resets the schema when the connection is
+     * returned.
+     */
+    public static Connection route(Connection connection) throws SQLException {
+        if (isActive()) {
+            connection.setSchema(SCHEMA);
+            try (Statement s = connection.createStatement()) {
+                s.execute("SET SCHEMA_SEARCH_PATH " + LIVE);
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Whether every staged table exists with the same columns as its live
+     * counterpart, i.e. a previous run's staged data can still be used.
+     */
+    public boolean isIntact() {
+        try (Connection c = dataSource.getConnection()) {
+            for (String table : TABLES) {
+                List<String> staged = columns(c, SCHEMA, table);
+                if (staged.isEmpty() || !staged.equals(columns(c, LIVE, table)))
+                    return false;
+            }
+            return true;
+        } catch (SQLException e) {
+            log.warn("Could not inspect staging tables: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Recreates the staged tables, empty, from the live table definitions (so
+     * schema updates carry over). A change set continues the live identity
+     * columns, so the ids of new rows stay free when they are merged.
+     */
+    public void prepare(boolean changeSet) {
+        long start = System.nanoTime();
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA);
+            s.execute("DROP TABLE IF EXISTS " + SCHEMA + "." + REMOVED);
+            for (String table : TABLES) {
+                s.execute("DROP TABLE IF EXISTS " + SCHEMA + "." + table);
+                for (String ddl : definition(s, table)) {
+                    s.execute(ddl);
+                }
+                if (changeSet)
+                    restartIdentity(c, s, SCHEMA, table, LIVE);
+            }
+            if (changeSet) {
+                s.execute("CREATE TABLE " + SCHEMA + "." + REMOVED + " (TABLE_NAME VARCHAR(64) NOT NULL,"
+                        + " KEY_VALUE VARCHAR(255) NOT NULL, SERIES_ID VARCHAR(255))");
+                s.execute("CREATE INDEX " + SCHEMA + ".IDX_" + REMOVED + " ON " + SCHEMA + "." + REMOVED
+                        + " (TABLE_NAME, KEY_VALUE)");
+                s.execute("CREATE INDEX " + SCHEMA + ".IDX_" + REMOVED + "_SERIES ON " + SCHEMA + "." + REMOVED
+                        + " (SERIES_ID)");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not prepare staging tables", e);
+        }
+        this.changeSet = changeSet;
+        this.resumed = false;
+        log.info("Staging tables ready ({}) in {} ms", changeSet ? "change set" : "full generation",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Picks up the staged data of an interrupted run. A full generation simply
+     * continues. A change set drops what {@code unfinished} sections staged from
+     * their listings, because those are compared against the live tables again;
+     * fetched series info is kept and replaced series by series
+     * ({@link #discardStagedSeries}).
+     */
+    public void resume(Collection<String> unfinished) {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            changeSet = tableExists(c, SCHEMA, REMOVED);
+            resumed = true;
+            if (!changeSet)
+                return;
+            for (String section : unfinished) {
+                for (String table : LISTING_TABLES.getOrDefault(section, List.of())) {
+                    s.executeUpdate("DELETE FROM " + SCHEMA + "." + table);
+                    s.executeUpdate("DELETE FROM " + SCHEMA + "." + REMOVED + " WHERE TABLE_NAME = '" + table + "'");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not resume staging tables", e);
+        }
+        log.info("Resuming staged {}; redoing {}", changeSet ? "change set" : "full generation",
+                unfinished.isEmpty() ? "nothing" : unfinished);
+    }
+
+    private boolean changeSetActive() {
+        return changeSet && isActive();
+    }
+
+    /**
+     * The rows of {@code table} as the running ingest sees them: in a change
+     * set, the live rows without the removed keys, overlaid with the staged
+     * rows; otherwise whatever {@code read} returns.
+     */
+    public <T> List<T> current(String table, Supplier<List<T>> read, Function<T, ?> key) {
+        if (!changeSetActive())
+            return read.get();
+        List<T> live = live(read);
+        Set<String> removed = removedKeys(table);
+        Map<String, T> rows = new LinkedHashMap<>(live.size() * 2);
+        for (T row : live) {
+            String k = String.valueOf(key.apply(row));
+            if (!removed.contains(k))
+                rows.put(k, row);
+        }
+        for (T row : read.get()) {
+            rows.put(String.valueOf(key.apply(row)), row);
+        }
+        return new ArrayList<>(rows.values());
+    }
+
+    /**
+     * Runs {@code read} against the live tables when staging a change set, so
+     * it compares with what is published.
+     */
+    public <T> T live(Supplier<T> read) {
+        if (!changeSetActive())
+            return read.get();
+        try (Scope published = leave()) {
+            return read.get();
+        }
+    }
+
+    /**
+     * Records primary keys of {@code table} for deletion at publish time. Only
+     * change sets need this; a full generation just lacks the rows.
+     */
+    public void recordRemoval(String table, Collection<?> keys) {
+        recordRemoval(table, null, keys);
+    }
+
+    /**
+     * Records removed rows that belong to series {@code seriesId}, so that
+     * {@link #discardStagedSeries} can take them back.
+     */
+    public void recordRemoval(String table, String seriesId, Collection<?> keys) {
+        if (keys.isEmpty() || !changeSetActive())
+            return;
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement("INSERT INTO "
+                + SCHEMA + "." + REMOVED + " (TABLE_NAME, KEY_VALUE, SERIES_ID) VALUES (?, ?, ?)")) {
+            for (Object key : keys) {
+                ps.setString(1, table);
+                ps.setString(2, String.valueOf(key));
+                ps.setString(3, seriesId);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not record removed " + table + " rows", e);
+        }
+    }
+
+    /**
+     * Drops the seasons, episodes and episode info an interrupted change set
+     * staged or removed for {@code seriesId}, before the series is fetched and
+     * compared with the live tables again.
+     */
+    public void discardStagedSeries(String seriesId) {
+        if (!resumed || !changeSetActive())
+            return;
+        try (Connection c = dataSource.getConnection()) {
+            for (String table : List.of("SEASON", "EPISODE", "EPISODE_INFO", REMOVED)) {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "DELETE FROM " + SCHEMA + "." + table + " WHERE SERIES_ID = ?")) {
+                    ps.setString(1, seriesId);
+                    ps.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not discard staged rows of series " + seriesId, e);
+        }
+    }
+
+    private Set<String> removedKeys(String table) {
+        Set<String> keys = new HashSet<>();
+        try (Connection c = dataSource.getConnection(); PreparedStatement ps = c.prepareStatement(
+                "SELECT KEY_VALUE FROM " + SCHEMA + "." + REMOVED + " WHERE TABLE_NAME = ?")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read removed " + table + " rows", e);
+        }
+        return keys;
+    }
+
+    /**
+     * Publishes the staged tables of {@code sections} in one transaction: a
+     * full generation replaces the live tables, a change set is merged into
+     * them.
+     */
+    public void swap(Collection<String> sections) {
+        long start = System.nanoTime();
+        List<String> tables = TABLES.stream()
+                .filter(table -> sections.stream().anyMatch(
+                        section -> SECTION_TABLES.getOrDefault(section, List.of()).contains(table)))
+                .toList();
+        boolean merged;
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            merged = tableExists(c, SCHEMA, REMOVED);
+            c.setAutoCommit(false);
+            try {
+                for (String table : tables) {
+                    if (merged)
+                        mergeTable(c, s, table);
+                    else
+                        replaceTable(c, s, table);
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+            for (String table : tables) {
+                restartIdentity(c, s, LIVE, table, LIVE);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not publish the staged catalog", e);
+        }
+        log.info("Published staged {} of {} in {} ms", merged ? "change set" : "catalog", sections,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void replaceTable(Connection c, Statement s, String table) throws SQLException {
+        String cols = String.join(", ", columnNames(c, LIVE, table));
+        s.executeUpdate("DELETE FROM " + LIVE + "." + table);
+        s.executeUpdate("INSERT INTO " + LIVE + "." + table + " (" + cols + ") SELECT " + cols
+                + " FROM " + SCHEMA + "." + table);
+    }
+
+    /**
+     * Deletes the keys the change set removed from {@code table} (with the
+     * dependent rows of a removed series), then merges its staged rows.
+     */
+    private static void mergeTable(Connection c, Statement s, String table) throws SQLException {
+        List<String> key = primaryKey(c, table);
+        String removed = "(SELECT KEY_VALUE FROM " + SCHEMA + "." + REMOVED + " WHERE TABLE_NAME = '" + table + "')";
+        if (key.size() == 1)
+            s.executeUpdate("DELETE FROM " + LIVE + "." + table + " WHERE " + key.get(0) + " IN " + removed);
+        if (table.equals("SERIES")) {
+            for (String dependent : SERIES_DEPENDENTS) {
+                s.executeUpdate("DELETE FROM " + LIVE + "." + dependent + " WHERE SERIES_ID IN " + removed);
+            }
+        }
+        String cols = String.join(", ", columnNames(c, LIVE, table));
+        s.executeUpdate("MERGE INTO " + LIVE + "." + table + " (" + cols + ") KEY (" + String.join(", ", key)
+                + ") SELECT " + cols + " FROM " + SCHEMA + "." + table);
+    }
+
+    /**
+     * CREATE/ALTER statements of a live table, rewritten for the staging schema.
+     */
+    private static List<String> definition(Statement s, String table) throws SQLException {
+        List<String> ddl = new ArrayList<>();
+        String live = "\"" + LIVE + "\".";
+        try (ResultSet rs = s.executeQuery("SCRIPT NODATA TABLE " + LIVE + "." + table)) {
+            while (rs.next()) {
+                String stmt = rs.getString(1);
+                if ((stmt.startsWith("CREATE ") || stmt.startsWith("ALTER TABLE "))
+                        && stmt.contains(live + "\"" + table + "\"")) {
+                    ddl.add(stmt.replace(live, "\"" + SCHEMA + "\"."));
+                }
+            }
+        }
+        return ddl;
+    }
+
+    private static List<String> columns(Connection c, String schema, String table) throws SQLException {
+        List<String> cols = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT COLUMN_NAME, DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION")) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    cols.add(rs.getString(1) + " " + rs.getString(2));
+                }
+            }
+        }
+        return cols;
+    }
+
+    private static List<String> primaryKey(Connection c, String table) throws SQLException {
+        List<String> key = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT K.COLUMN_NAME"
+                + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS T JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE K"
+                + " ON K.CONSTRAINT_SCHEMA = T.CONSTRAINT_SCHEMA AND K.CONSTRAINT_NAME = T.CONSTRAINT_NAME"
+                + " WHERE T.TABLE_SCHEMA = ? AND T.TABLE_NAME = ? AND T.CONSTRAINT_TYPE = 'PRIMARY KEY'"
+                + " ORDER BY K.ORDINAL_POSITION")) {
+            ps.setString(1, LIVE);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    key.add("\"" + rs.getString(1) + "\"");
+                }
+            }
+        }
+        if (key.isEmpty())
+            throw new SQLException("No primary key on " + LIVE + "." + table);
+        return key;
+    }
+
+    private static boolean tableExists(Connection c, String schema, String table) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.TABLES"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?")) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static List<String> columnNames(Connection c, String schema, String table) throws SQLException {
+        return columns(c, schema, table).stream().map(col -> "\"" + col.substring(0, col.indexOf(' ')) + "\"")
+                .toList();
+    }
+
+    /**
+     * Rows are copied with their ids, which does not advance identity columns;
+     * move them past the highest id in {@code idsFrom}'s copy of the table.
+     */
+    private static void restartIdentity(Connection c, Statement s, String schema, String table, String idsFrom)
+            throws SQLException {
+        List<String> identity = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND IS_IDENTITY = 'YES'")) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    identity.add(rs.getString(1));
+                }
+            }
+        }
+        for (String col : identity) {
+            long next;
+            try (ResultSet rs = s.executeQuery(
+                    "SELECT COALESCE(MAX(\"" + col + "\"), 0) + 1 FROM " + idsFrom + "." + table)) {
+                rs.next();
+                next = rs.getLong(1);
+            }
+            s.execute("ALTER TABLE " + schema + "." + table + " ALTER COLUMN \"" + col + "\" RESTART WITH " + next);
+        }
+    }
+}
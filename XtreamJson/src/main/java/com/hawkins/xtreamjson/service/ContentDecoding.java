@@ -0,0 +1,225 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressed transfer for {@link java.net.http.HttpClient}, which neither
+ * asks for nor decodes compressed bodies.
+ * <p>
+ * Requests made with one of these handlers should send
+ * {@value #ACCEPT_ENCODING} as Accept-Encoding. The body is decoded as it is
+ * read, according to the response's Content-Encoding. Once the body has been
+ * read to the end, the {@link Transfer} is reported: the encoding and the
+ * bytes on the wire versus the bytes decoded.
+ */
+public final class ContentDecoding {
+
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private ContentDecoding() {
+    }
+
+    /**
+     * Marks handlers that decode compressed bodies, so a client knows it can
+     * advertise {@value #ACCEPT_ENCODING}.
+     */
+    public interface Handler<T> extends HttpResponse.BodyHandler<T> {
+    }
+
+    /**
+     * Size of one response body, on the wire and decoded.
+     */
+    public record Transfer(String encoding, long wireBytes, long decodedBytes) {
+        public double ratio() {
+            return wireBytes == 0 ? 1.0 : (double) decodedBytes / wireBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %s -> %s (%.1fx)", encoding, size(wireBytes), size(decodedBytes),
+                    ratio());
+        }
+    }
+
+    /**
+     * Streams the decoded body.
+     */
+    public static Handler<InputStream> ofInputStream(Consumer<Transfer> done) {
+        return info -> BodySubscribers.mapping(BodySubscribers.ofInputStream(),
+                raw -> decode(raw, encodingOf(info.headers()), done));
+    }
+
+    /**
+     * Decodes the body into a string, using the Content-Type charset (UTF-8 by
+     * default).
+     */
+    public static Handler<String> ofString(Consumer<Transfer> done) {
+        return info -> BodySubscribers.mapping(BodySubscribers.ofByteArray(), bytes -> {
+            try (InputStream in = decode(new ByteArrayInputStream(bytes), encodingOf(info.headers()), done)) {
+                return new String(in.readAllBytes(), charsetOf(info.headers()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static String encodingOf(HttpHeaders headers) {
+        return headers.firstValue("Content-Encoding").map(e -> e.trim().toLowerCase(Locale.ROOT))
+                .filter(e -> !e.isEmpty()).orElse("identity");
+    }
+
+    /**
+     * Wraps {@code raw} in a decoder for {@code encoding}. The decoder is
+     * created on the first read: reading the gzip header blocks, and the
+     * wrapping itself may happen on an HTTP client thread. An empty body is
+     * read as empty whatever the encoding; panels send Content-Encoding: gzip
+     * with no body for empty listings.
+     */
+    static InputStream decode(InputStream raw, String encoding, Consumer<Transfer> done) {
+        CountingInputStream wire = new CountingInputStream(raw);
+        return new InputStream() {
+            private InputStream decoded;
+            private long decodedBytes;
+            private final AtomicBoolean reported = new AtomicBoolean();
+
+            private InputStream decoded() throws IOException {
+                if (decoded == null) {
+                    PushbackInputStream body = new PushbackInputStream(wire, 1);
+                    int first = body.read();
+                    if (first < 0)
+                        return decoded = body;
+                    body.unread(first);
+                    decoded = switch (encoding) {
+                        case "gzip", "x-gzip" -> new GZIPInputStream(body, 64 * 1024);
+                        case "deflate" -> inflating(body);
+                        case "identity" -> body;
+                        default -> throw new IOException("Unsupported Content-Encoding: " + encoding);
+                    };
+                }
+                return decoded;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = decoded().read();
+                if (b < 0)
+                    report();
+                else
+                    decodedBytes++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                int n = decoded().read(buf, off, len);
+                if (n < 0)
+                    report();
+                else
+                    decodedBytes += n;
+                return n;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return decoded == null ? 0 : decoded.available();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (decoded != null)
+                    decoded.close();
+                else
+                    wire.close();
+            }
+
+            private void report() {
+                if (reported.compareAndSet(false, true))
+                    done.accept(new Transfer(encoding, wire.count, decodedBytes));
+            }
+        };
+    }
+
+    /**
+     * "deflate" is meant to be zlib-wrapped, but some servers send a raw
+     * deflate stream; the zlib header tells them apart.
+     */
+    private static InputStream inflating(InputStream in) throws IOException {
+        PushbackInputStream peek = new PushbackInputStream(in, 2);
+        byte[] header = peek.readNBytes(2);
+        peek.unread(header);
+        boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8
+                && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        return new InflaterInputStream(peek, new Inflater(!zlib), 64 * 1024);
+    }
+
+    private static Charset charsetOf(HttpHeaders headers) {
+        return headers.firstValue("Content-Type").map(type -> {
+            for (String param : type.split(";")) {
+                String p = param.trim();
+                if (p.regionMatches(true, 0, "charset=", 0, 8)) {
+                    try {
+                        return Charset.forName(p.substring(8).replace("\"", "").trim());
+                    } catch (IllegalArgumentException e) {
+                        return StandardCharsets.UTF_8;
+                    }
+                }
+            }
+            return StandardCharsets.UTF_8;
+        }).orElse(StandardCharsets.UTF_8);
+    }
+
+    private static String size(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0)
+                count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
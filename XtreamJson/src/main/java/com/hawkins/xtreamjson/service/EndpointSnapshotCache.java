@@ -0,0 +1,199 @@
+package com.hawkins.xtreamjson.service;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.data.EndpointSnapshot;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.EndpointSnapshotRepository;
+import com.hawkins.xtreamjson.util.ContentHashUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-endpoint record of the last applied provider response (ETag,
+ * Last-Modified and a body hash). A section is reported unchanged when the
+ * provider answers 304 to the stored validators, or returns exactly the bytes
+ * applied last time. A snapshot is only written after its section was fully
+ * applied, so a failed run never leads to a skip on the next one: the ingest
+ * applies sections to staging tables, so {@link #remember} only stages the
+ * snapshot, and {@link #publish} stores it once the section's data is live.
+ * <p>
+ * In {@link IngestMode#FULL} the run starts from empty tables, so nothing is
+ * skipped; snapshots are still recorded for the next delta run.
+ */
+@Slf4j
+@Service
+public class EndpointSnapshotCache {
+
+    private static final Pattern CREDENTIALS = Pattern.compile("(?<=[?&])(username|password)=[^&]*(&|$)");
+    private static final Pattern ACTION = Pattern.compile("[?&]action=([^&]*)");
+
+    private final EndpointSnapshotRepository repository;
+    // Snapshots of sections applied by the running ingest but not yet published, by endpoint key
+    private final Map<String, EndpointSnapshot> pending = new ConcurrentHashMap<>();
+
+    public EndpointSnapshotCache(EndpointSnapshotRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Stable key for a provider URL. Credentials are dropped, so they never
+     * reach the database and a password change keeps the history.
+     */
+    public static String keyOf(String url) {
+        return CREDENTIALS.matcher(url).replaceAll("");
+    }
+
+    /**
+     * The ingest section (live, movies, series) an endpoint belongs to, from
+     * its {@code action} parameter; null for anything else.
+     */
+    static String sectionOf(String url) {
+        Matcher action = ACTION.matcher(url);
+        if (!action.find())
+            return null;
+        String name = action.group(1);
+        if (name.startsWith("get_live_"))
+            return "live";
+        if (name.startsWith("get_vod_"))
+            return "movies";
+        if (name.startsWith("get_series"))
+            return "series";
+        return null;
+    }
+
+    /**
+     * The stored snapshot for {@code url}, if it was taken with the same
+     * credentials. Stream URLs embed the account, so a snapshot from another
+     * account must not cause a skip.
+     */
+    private Optional<EndpointSnapshot> find(String url) {
+        String urlHash = ContentHashUtils.hash(url);
+        return repository.findById(keyOf(url)).filter(snapshot -> urlHash.equals(snapshot.getUrlHash()));
+    }
+
+    /**
+     * If-None-Match / If-Modified-Since headers for the stored snapshot; empty
+     * in full mode or when there is none.
+     */
+    public Map<String, String> conditionalHeaders(String url, IngestMode mode) {
+        Map<String, String> headers = new HashMap<>(2);
+        if (mode == IngestMode.FULL)
+            return headers;
+        find(url).ifPresent(snapshot -> {
+            if (snapshot.getEtag() != null)
+                headers.put("If-None-Match", snapshot.getEtag());
+            if (snapshot.getLastModified() != null)
+                headers.put("If-Modified-Since", snapshot.getLastModified());
+        });
+        return headers;
+    }
+
+    /**
+     * Returns why the response can be skipped, or null if it must be applied.
+     *
+     * @param bodyHash hash of the response body; null for a 304
+     */
+    public String unchangedReason(String url, int status, String bodyHash, IngestMode mode) {
+        if (mode == IngestMode.FULL)
+            return null;
+        EndpointSnapshot snapshot = find(url).orElse(null);
+        if (snapshot == null)
+            return null;
+        if (status == 304)
+            return "304 Not Modified";
+        if (bodyHash != null && bodyHash.equals(snapshot.getBodyHash()))
+            return "same body hash";
+        return null;
+    }
+
+    /**
+     * Stages a snapshot of the response that was just applied (or confirmed
+     * unchanged). A 304 keeps the stored body hash.
+     */
+    public void remember(String url, HttpHeaders headers, String bodyHash) {
+        String key = keyOf(url);
+        EndpointSnapshot snapshot;
+        try {
+            snapshot = pending.containsKey(key) ? pending.get(key)
+                    : repository.findById(key).orElseGet(() -> EndpointSnapshot.builder().endpoint(key).build());
+        } catch (Exception e) {
+            // Worst case the section is applied again next time
+            log.warn("Could not read snapshot for {}: {}", key, e.getMessage());
+            return;
+        }
+        String urlHash = ContentHashUtils.hash(url);
+        if (!urlHash.equals(snapshot.getUrlHash())) {
+            // Another account: validators and body hash no longer apply
+            snapshot.setUrlHash(urlHash);
+            snapshot.setEtag(null);
+            snapshot.setLastModified(null);
+            snapshot.setBodyHash(null);
+        }
+        if (headers != null) {
+            headers.firstValue("ETag").ifPresent(snapshot::setEtag);
+            headers.firstValue("Last-Modified").ifPresent(snapshot::setLastModified);
+        }
+        if (bodyHash != null)
+            snapshot.setBodyHash(bodyHash);
+        snapshot.setAppliedAt(Instant.now());
+        pending.put(key, snapshot);
+    }
+
+    /**
+     * Stores the staged snapshots of {@code sections}, once their data was
+     * published.
+     */
+    public void publish(Collection<String> sections) {
+        List<EndpointSnapshot> published = new ArrayList<>();
+        for (var it = pending.values().iterator(); it.hasNext();) {
+            EndpointSnapshot snapshot = it.next();
+            if (sections.contains(sectionOf(snapshot.getEndpoint()))) {
+                published.add(snapshot);
+                it.remove();
+            }
+        }
+        try {
+            repository.saveAll(published);
+        } catch (Exception e) {
+            // Worst case the sections are applied again next time
+            log.warn("Could not record {} snapshots of {}: {}", published.size(), sections, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the snapshots staged by a previous run that never published them.
+     */
+    public void discardPending() {
+        pending.clear();
+    }
+
+    /**
+     * Drops the stored snapshots of {@code sections}, so the next requests for
+     * them are applied in full, e.g. when a resumed run redoes those sections
+     * on top of what it staged before.
+     */
+    public void forget(Collection<String> sections) {
+        try {
+            List<EndpointSnapshot> stale = repository.findAll().stream()
+                    .filter(snapshot -> sections.contains(sectionOf(snapshot.getEndpoint())))
+                    .toList();
+            repository.deleteAllInBatch(stale);
+            log.info("Cleared {} endpoint snapshots of {}", stale.size(), sections);
+        } catch (Exception e) {
+            log.warn("Could not clear endpoint snapshots of {}: {}", sections, e.getMessage());
+        }
+    }
+}
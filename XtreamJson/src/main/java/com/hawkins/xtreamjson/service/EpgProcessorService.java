@@ -21,7 +21,6 @@ import com.hawkins.xtreamjson.data.LiveCategory;
 import com.hawkins.xtreamjson.data.LiveStream;
 import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
 import com.hawkins.xtreamjson.repository.LiveStreamRepository;
-import com.hawkins.xtreamjson.util.StreamUrlHelper;
 import com.hawkins.xtreamjson.util.XstreamCredentials;
 
 import lombok.extern.slf4j.Slf4j;
@@ -41,11 +40,14 @@ public class EpgProcessorService {
 
     private final LiveStreamRepository liveStreamRepository;
     private final LiveCategoryRepository liveCategoryRepository;
+    private final StreamUrlResolver urlResolver;
 
     public EpgProcessorService(LiveStreamRepository liveStreamRepository,
-            LiveCategoryRepository liveCategoryRepository) {
+            LiveCategoryRepository liveCategoryRepository,
+            StreamUrlResolver urlResolver) {
         this.liveStreamRepository = liveStreamRepository;
         this.liveCategoryRepository = liveCategoryRepository;
+        this.urlResolver = urlResolver;
     }
 
     /**
@@ -163,11 +165,11 @@ public class EpgProcessorService {
     private Map<String, ChannelInfo> buildChannelStreamUrlMap(XstreamCredentials credentials) {
         Map<String, ChannelInfo> channelInfoMap = new HashMap<>();
         if (credentials != null) {
+            StreamUrlResolver.Urls urls = urlResolver.of(credentials);
             List<LiveStream> allStreams = liveStreamRepository.findAll();
             for (LiveStream stream : allStreams) {
                 if (stream.getEpgChannelId() != null && !stream.getEpgChannelId().isEmpty()) {
-                    String url = StreamUrlHelper.buildLiveUrl(
-                            credentials.getApiUrl(), credentials.getUsername(), credentials.getPassword(), stream);
+                    String url = urls.live(stream.getStreamId());
                     channelInfoMap.put(stream.getEpgChannelId(), new ChannelInfo(url, stream.getCategoryId()));
                 }
             }
@@ -50,10 +50,13 @@ public class EpgService {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(epgUrl))
                 .timeout(Duration.ofSeconds(90))
+                .header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING)
                 .GET()
                 .build();
 
-        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        // xmltv compresses well; the body is inflated while it is written out
+        HttpResponse<InputStream> response = httpClient.send(request,
+                ContentDecoding.ofInputStream(transfer -> log.info("xmltv.php: {}", transfer)));
 
         if (response.statusCode() != 200) {
             throw new IOException("Failed to download EPG XML: HTTP " + response.statusCode());
@@ -0,0 +1,154 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.data.IngestCheckpoint;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.IngestCheckpointRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists ingest progress so a run that was cancelled, killed by a restart or
+ * cut off by the provider is resumed rather than repeated.
+ * <p>
+ * A run is resumed when the stored checkpoint is unfinished and belongs to the
+ * same provider account. Otherwise a new checkpoint replaces it, as it does
+ * once {@value #MAX_ATTEMPTS} runs or {@link #MAX_AGE} did not finish it, so a
+ * section that keeps failing cannot pin the ingest to one resume forever.
+ * Checkpoint writes never fail the ingest: the worst case is that work is
+ * repeated.
+ */
+@Slf4j
+@Service
+public class IngestCheckpoints {
+
+    static final long CHECKPOINT_ID = 1L;
+    /** Sections of an ingest, each completed and published on its own. */
+    static final List<String> SECTIONS = List.of("live", "movies", "series");
+    static final int MAX_ATTEMPTS = 3;
+    static final Duration MAX_AGE = Duration.ofDays(2);
+
+    private final IngestCheckpointRepository repository;
+
+    public IngestCheckpoints(IngestCheckpointRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * The run being executed. {@code startedAt} is that of the original run
+     * when resuming; {@code abandoned} is set when an unfinished run was
+     * replaced instead of resumed.
+     */
+    public record Run(Instant startedAt, boolean resumed, boolean abandoned, Set<String> completedSections,
+            Set<String> publishedSections) {
+        public boolean isDone(String section) {
+            return completedSections.contains(section);
+        }
+
+        public boolean isPublished(String section) {
+            return publishedSections.contains(section);
+        }
+
+        public List<String> unfinishedSections() {
+            return SECTIONS.stream().filter(section -> !isDone(section)).toList();
+        }
+    }
+
+    /**
+     * Resumes the unfinished run of {@code provider}, or starts a new one. With
+     * {@code canResume} false an unfinished run is abandoned, e.g. because its
+     * partial data is gone.
+     */
+    public synchronized Run begin(String provider, IngestMode mode, boolean canResume) {
+        Instant now = Instant.now();
+        boolean abandoned = false;
+        try {
+            var last = repository.findById(CHECKPOINT_ID).orElse(null);
+            abandoned = last != null && !last.isFinished();
+            if (abandoned && canResume && provider.equals(last.getProvider())) {
+                if (last.getAttempts() >= MAX_ATTEMPTS || last.getStartedAt() == null
+                        || last.getStartedAt().isBefore(now.minus(MAX_AGE))) {
+                    log.warn("Not resuming ingest started {} after {} attempts; starting over", last.getStartedAt(),
+                            last.getAttempts());
+                } else {
+                    Set<String> done = sections(last.getCompletedSections());
+                    Set<String> published = sections(last.getPublishedSections());
+                    last.setAttempts(last.getAttempts() + 1);
+                    last.setUpdatedAt(now);
+                    repository.save(last);
+                    log.info("Resuming ingest started {} (attempt {}) | finished sections: {} | published: {}",
+                            last.getStartedAt(), last.getAttempts(), done.isEmpty() ? "none" : done,
+                            published.isEmpty() ? "none" : published);
+                    return new Run(last.getStartedAt(), true, false, Set.copyOf(done), Set.copyOf(published));
+                }
+            }
+            repository.save(IngestCheckpoint.builder()
+                    .id(CHECKPOINT_ID)
+                    .provider(provider)
+                    .mode(mode)
+                    .startedAt(now)
+                    .updatedAt(now)
+                    .completedSections("")
+                    .publishedSections("")
+                    .attempts(1)
+                    .finished(false)
+                    .build());
+        } catch (Exception e) {
+            log.warn("Could not read or write the ingest checkpoint: {}", e.getMessage());
+        }
+        return new Run(now, false, abandoned, Set.of(), Set.of());
+    }
+
+    public synchronized void sectionDone(String section) {
+        update(checkpoint -> {
+            Set<String> done = sections(checkpoint.getCompletedSections());
+            done.add(section);
+            checkpoint.setCompletedSections(String.join(",", done));
+        });
+    }
+
+    /**
+     * Records completed sections whose data went live ahead of the rest of the
+     * run, so a resumed run does not publish them again.
+     */
+    public synchronized void sectionsPublished(Collection<String> sections) {
+        update(checkpoint -> {
+            Set<String> published = sections(checkpoint.getPublishedSections());
+            published.addAll(sections);
+            checkpoint.setPublishedSections(String.join(",", published));
+        });
+    }
+
+    public synchronized void finish() {
+        update(checkpoint -> checkpoint.setFinished(true));
+    }
+
+    private void update(java.util.function.Consumer<IngestCheckpoint> change) {
+        try {
+            repository.findById(CHECKPOINT_ID).ifPresent(checkpoint -> {
+                change.accept(checkpoint);
+                checkpoint.setUpdatedAt(Instant.now());
+                repository.save(checkpoint);
+            });
+        } catch (Exception e) {
+            log.warn("Could not update the ingest checkpoint: {}", e.getMessage());
+        }
+    }
+
+    private static Set<String> sections(String list) {
+        Set<String> sections = new LinkedHashSet<>();
+        if (list != null && !list.isBlank()) {
+            sections.addAll(Arrays.asList(list.split(",")));
+        }
+        return sections;
+    }
+}
@@ -0,0 +1,162 @@
+package com.hawkins.xtreamjson.service;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for the catalog ingest, published through the actuator
+ * ({@code /actuator/metrics/xtream.ingest.*}).
+ * <p>
+ * Provider endpoints are tagged by their {@code action} parameter
+ * (get_live_streams, get_series_info, ...), never by full URL, so the tag
+ * cardinality stays fixed and credentials never end up in a metric.
+ */
+@Component
+public class IngestMetrics {
+
+    static final String HTTP_REQUESTS = "xtream.ingest.http.requests";
+    static final String HTTP_RETRIES = "xtream.ingest.http.retries";
+    static final String HTTP_NOT_FOUND = "xtream.ingest.http.not.found";
+    static final String BYTES = "xtream.ingest.bytes";
+    static final String PARSE = "xtream.ingest.parse";
+    static final String PHASE = "xtream.ingest.phase";
+    static final String ROWS = "xtream.ingest.rows";
+    static final String WRITER_FLUSH = "xtream.ingest.writer.flush";
+    static final String WRITER_QUEUED = "xtream.ingest.writer.queued";
+
+    private static final Pattern ACTION = Pattern.compile("[?&]action=([A-Za-z0-9_]+)");
+
+    private final MeterRegistry registry;
+    private final Map<String, AtomicReference<BatchWriter<?>>> writers = new ConcurrentHashMap<>();
+
+    public IngestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * One provider attempt: latency histogram tagged with the status class, plus
+     * the 404 counter.
+     */
+    public void request(URI uri, HttpResponse<?> response, Throwable failure, long nanos) {
+        String endpoint = endpointOf(uri.toString());
+        String status = failure != null ? "error" : statusTag(response.statusCode());
+        Timer.builder(HTTP_REQUESTS)
+                .description("Provider request latency per attempt")
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(Duration.ofNanos(nanos));
+        if (failure == null && response.statusCode() == 404) {
+            Counter.builder(HTTP_NOT_FOUND).tag("endpoint", endpoint).register(registry).increment();
+        }
+    }
+
+    public void retry(URI uri) {
+        Counter.builder(HTTP_RETRIES).tag("endpoint", endpointOf(uri.toString())).register(registry).increment();
+    }
+
+    /**
+     * Response body size as received from the provider.
+     */
+    public void bytes(String url, long bytes) {
+        DistributionSummary.builder(BYTES)
+                .baseUnit("bytes")
+                .tag("endpoint", endpointOf(url))
+                .register(registry)
+                .record(bytes);
+    }
+
+    /**
+     * Time spent parsing one payload. Streamed sections (live/movie streams) are
+     * parsed and written batch by batch, so their time includes the writes.
+     */
+    public void parse(String section, long nanos) {
+        Timer.builder(PARSE).tag("section", section).register(registry).record(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * Wall time of one ingest phase (live, movies, series, total).
+     */
+    public void phase(String phase, long nanos) {
+        Timer.builder(PHASE).tag("phase", phase).register(registry).record(Duration.ofNanos(nanos));
+    }
+
+    public void rowsSaved(String entity, int rows) {
+        rows(entity, "saved", rows);
+    }
+
+    public void rowsDeleted(String entity, int rows) {
+        rows(entity, "deleted", rows);
+    }
+
+    private void rows(String entity, String operation, int rows) {
+        if (rows > 0) {
+            Counter.builder(ROWS).tag("entity", entity).tag("operation", operation).register(registry)
+                    .increment(rows);
+        }
+    }
+
+    /**
+     * Times one writer flush and counts its rows.
+     */
+    public void flush(String writer, String entity, List<?> batch, Runnable save) {
+        Timer.builder(WRITER_FLUSH).tag("writer", writer).register(registry).record(save);
+        rowsSaved(entity, batch.size());
+    }
+
+    /**
+     * Points the queue-depth gauges at the writers of the current run.
+     */
+    public void watch(List<BatchWriter<?>> current) {
+        for (BatchWriter<?> writer : current) {
+            writers.computeIfAbsent(writer.stats().name(), name -> {
+                var ref = new AtomicReference<BatchWriter<?>>();
+                Gauge.builder(WRITER_QUEUED, ref, r -> r.get() == null ? 0 : r.get().stats().queued())
+                        .tag("writer", name)
+                        .register(registry);
+                return ref;
+            }).set(writer);
+        }
+    }
+
+    public void gauge(String name, Supplier<Number> value) {
+        Gauge.builder(name, value).register(registry);
+    }
+
+    static String endpointOf(String url) {
+        Matcher m = ACTION.matcher(url);
+        if (m.find()) {
+            return m.group(1);
+        }
+        try {
+            String path = URI.create(url).getPath();
+            return path == null || path.isEmpty() ? "unknown" : path.substring(path.lastIndexOf('/') + 1);
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+
+    private static String statusTag(int status) {
+        return switch (status) {
+            case 304, 404, 429 -> String.valueOf(status);
+            default -> (status / 100) + "xx";
+        };
+    }
+}
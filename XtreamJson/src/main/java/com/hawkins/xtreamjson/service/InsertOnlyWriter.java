@@ -0,0 +1,59 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inserts rows that are known not to exist yet.
+ * <p>
+ * The catalog entities carry provider-assigned ids, so Spring Data's
+ * {@code saveAll} cannot tell a new row from an existing one and goes through
+ * {@code em.merge}, which SELECTs every row before inserting it. For rows the
+ * caller has already matched against the stored ids (always the case for a
+ * freshly cleared or staged table) that lookup is wasted; here they are
+ * {@code persist}ed instead, one transaction per chunk, and the persistence
+ * context is flushed and cleared after each chunk so it never holds more than
+ * one chunk of entities.
+ * <p>
+ * If a chunk hits a row that exists after all, it is rolled back and handed to
+ * the caller's merging fallback.
+ */
+@Slf4j
+@Component
+public class InsertOnlyWriter {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate tx;
+
+    public InsertOnlyWriter(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> void insert(List<T> rows, int chunkSize, Consumer<List<T>> fallback) {
+        int size = Math.max(1, chunkSize);
+        for (int i = 0; i < rows.size(); i += size) {
+            List<T> chunk = rows.subList(i, Math.min(rows.size(), i + size));
+            try {
+                tx.executeWithoutResult(status -> {
+                    chunk.forEach(entityManager::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                });
+            } catch (PersistenceException | DataIntegrityViolationException e) {
+                log.warn("Insert of {} {} rows hit an existing id; merging the chunk instead", chunk.size(),
+                        chunk.get(0).getClass().getSimpleName());
+                fallback.accept(chunk);
+            }
+        }
+    }
+}
@@ -1,18 +1,25 @@
 package com.hawkins.xtreamjson.service;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
@@ -21,20 +28,24 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.hawkins.xtreamjson.annotations.TrackExecutionTime;
 import com.hawkins.xtreamjson.data.ApplicationProperties;
 import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.FanOutMode;
+import com.hawkins.xtreamjson.data.IngestMode;
 import com.hawkins.xtreamjson.data.LiveCategory;
 import com.hawkins.xtreamjson.data.LiveStream;
 import com.hawkins.xtreamjson.data.MovieCategory;
@@ -42,16 +53,19 @@ import com.hawkins.xtreamjson.data.MovieStream;
 import com.hawkins.xtreamjson.data.Season;
 import com.hawkins.xtreamjson.data.Series;
 import com.hawkins.xtreamjson.data.SeriesCategory;
+import com.hawkins.xtreamjson.data.SeriesInfoState;
+import com.hawkins.xtreamjson.model.IptvProvider;
 import com.hawkins.xtreamjson.repository.EpisodeRepository;
 import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
 import com.hawkins.xtreamjson.repository.LiveStreamRepository;
 import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
 import com.hawkins.xtreamjson.repository.MovieStreamRepository;
-import com.hawkins.xtreamjson.repository.SeasonRepository;
 import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
 import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.service.ProviderApiClient.HttpResult;
 import com.hawkins.xtreamjson.util.Constants;
-import com.hawkins.xtreamjson.util.StreamUrlHelper;
+import com.hawkins.xtreamjson.util.ContentHashUtils;
 import com.hawkins.xtreamjson.util.XstreamCredentials;
 import com.hawkins.xtreamjson.util.XtreamCodesUtils;
 
@@ -68,13 +82,26 @@ public class JsonService {
 	private final MovieStreamRepository movieStreamRepository;
 	private final SeriesCategoryRepository seriesCategoryRepository;
 	private final SeriesRepository seriesRepository;
-	private final SeasonRepository seasonRepository;
 	private final EpisodeRepository episodeRepository;
+	private final SeriesInfoStateRepository seriesInfoStateRepository;
 	private final ApplicationPropertiesService applicationPropertiesService;
+	private final CatalogDeltaSync deltaSync;
+	private final ProviderApiClient apiClient;
+	private final EndpointSnapshotCache snapshots;
+	private final MissingSeriesRegistry missingSeriesRegistry;
+	private final CatalogStaging staging;
+	private final SeriesInfoBulkWriter bulkWriter;
+	private final TitleSearchIndex titleSearch;
+	private final CatalogReadModel catalog;
 	private final ExecutorService executor;
-	private final HttpClient httpClient;
 
 	private static final int DEFAULT_THREAD_POOL_SIZE = 32;
+	private static final int SERIES_LISTING_PARALLELISM = 16;
+	// Season/episode write queues hold this many batches before producers block
+	private static final int WRITE_QUEUE_BATCHES = 8;
+	private static final Duration WRITE_FLUSH_INTERVAL = Duration.ofSeconds(1);
+	// Identity sentinel closing a SeriesIdFeed
+	private static final String END_OF_FEED = new String();
 
 	public JsonService(IptvProviderService providerService,
 			LiveCategoryRepository liveCategoryRepository,
@@ -83,9 +110,19 @@ public class JsonService {
 			MovieStreamRepository movieStreamRepository,
 			SeriesCategoryRepository seriesCategoryRepository,
 			SeriesRepository seriesRepository,
-			SeasonRepository seasonRepository,
 			EpisodeRepository episodeRepository,
+			SeriesInfoStateRepository seriesInfoStateRepository,
 			ApplicationPropertiesService applicationPropertiesService,
+			CatalogDeltaSync deltaSync,
+			ProviderApiClient apiClient,
+			EndpointSnapshotCache snapshots,
+			MissingSeriesRegistry missingSeriesRegistry,
+			IngestCheckpoints checkpoints,
+			IngestMetrics metrics,
+			CatalogStaging staging,
+			SeriesInfoBulkWriter bulkWriter,
+			TitleSearchIndex titleSearch,
+			CatalogReadModel catalog,
 			ObjectMapper objectMapper) {
 		this.providerService = providerService;
 		this.liveCategoryRepository = liveCategoryRepository;
@@ -94,32 +131,36 @@ public class JsonService {
 		this.movieStreamRepository = movieStreamRepository;
 		this.seriesCategoryRepository = seriesCategoryRepository;
 		this.seriesRepository = seriesRepository;
-		this.seasonRepository = seasonRepository;
 		this.episodeRepository = episodeRepository;
+		this.seriesInfoStateRepository = seriesInfoStateRepository;
 		this.applicationPropertiesService = applicationPropertiesService;
+		this.deltaSync = deltaSync;
+		this.apiClient = apiClient;
+		this.snapshots = snapshots;
+		this.missingSeriesRegistry = missingSeriesRegistry;
+		this.checkpoints = checkpoints;
+		this.metrics = metrics;
+		this.staging = staging;
+		this.bulkWriter = bulkWriter;
+		this.titleSearch = titleSearch;
+		this.catalog = catalog;
 		this.objectMapper = objectMapper;
 
 		int threadPoolSize = Integer.parseInt(
 				System.getenv().getOrDefault("XTREAM_THREAD_POOL_SIZE", String.valueOf(DEFAULT_THREAD_POOL_SIZE)));
 		this.executor = Executors.newFixedThreadPool(threadPoolSize);
-		this.httpClient = HttpClient.newBuilder()
-				.version(HttpClient.Version.HTTP_2)
-				.connectTimeout(Duration.ofSeconds(10))
-				.followRedirects(HttpClient.Redirect.NORMAL)
-				.build();
 
 		this.liveCategoryReader = objectMapper.readerFor(new TypeReference<List<LiveCategory>>() {
 		});
-		this.liveStreamReader = objectMapper.readerFor(new TypeReference<List<LiveStream>>() {
-		});
+		this.liveStreamReader = objectMapper.readerFor(LiveStream.class);
 		this.movieCategoryReader = objectMapper.readerFor(new TypeReference<List<MovieCategory>>() {
 		});
-		this.movieStreamReader = objectMapper.readerFor(new TypeReference<List<MovieStream>>() {
-		});
+		this.movieStreamReader = objectMapper.readerFor(MovieStream.class);
 		this.seriesCategoryReader = objectMapper.readerFor(new TypeReference<List<SeriesCategory>>() {
 		});
 		this.seriesListReader = objectMapper.readerFor(new TypeReference<List<Series>>() {
 		});
+		this.seriesInfoParser = new SeriesInfoParser(objectMapper.getFactory());
 	}
 
 	@PreDestroy
@@ -136,485 +177,1170 @@ public class JsonService {
 		}
 	}
 
-	// --- Performance/robustness parameters ---
-	private static final Duration BASE_BACKOFF = Duration.ofMillis(250);
-	private static final ThreadLocalRandom RAND = ThreadLocalRandom.current();
-
+	private final IngestCheckpoints checkpoints;
+	private final IngestMetrics metrics;
 	private final ObjectMapper objectMapper;
 
 	// Reuse readers to cut Jackson overhead
 	private final ObjectReader liveCategoryReader;
-	private final ObjectReader liveStreamReader;
+	private final ObjectReader liveStreamReader; // single element; the list is streamed
 	private final ObjectReader movieCategoryReader;
-	private final ObjectReader movieStreamReader;
+	private final ObjectReader movieStreamReader; // single element; the list is streamed
 	private final ObjectReader seriesCategoryReader;
 	private final ObjectReader seriesListReader;
+	private final SeriesInfoParser seriesInfoParser;
 
-	// Remember permanently-missing series (optional: persist to DB)
-	private final java.util.Set<String> knownMissingSeries = ConcurrentHashMap.newKeySet();
-
-	// Status-aware HTTP result
-	static final class HttpResult {
-		final int status;
-		final String body;
+	// Held by the one ingest allowed at a time: runs share the staging tables and the per-run state below
+	private final AtomicBoolean ingestRunning = new AtomicBoolean(false);
+	// Set by cancelIngest(); checked by every fan-out loop and series-info task
+	private final AtomicBoolean ingestCancelled = new AtomicBoolean(false);
 
-		HttpResult(int status, String body) {
-			this.status = status;
-			this.body = body;
-		}
-
-		boolean is2xx() {
-			return status >= 200 && status < 300;
-		}
-	}
+	// Sections skipped this run because the provider returned them unchanged
+	private final Queue<String> skippedSections = new ConcurrentLinkedQueue<>();
 
+	// Known 404 series, loaded from MissingSeriesRegistry at the start of each series run:
+	// skipped while within their TTL, probed once more when due
+	private final java.util.Set<String> knownMissingSeries = ConcurrentHashMap.newKeySet();
+	private final java.util.Set<String> missingSeriesDue = ConcurrentHashMap.newKeySet();
+	private volatile int missingSeriesTtlDays;
+	private volatile List<BatchWriter<?>> seriesWriters = List.of();
+
+	// last_modified bookkeeping for the current series run (see SeriesInfoState): what the
+	// stored episodes were fetched for, what the listings show now, and what this run applied
+	private final Map<String, String> seriesInfoFetchedFor = new ConcurrentHashMap<>();
+	private final Map<String, String> seriesListedLastModified = new ConcurrentHashMap<>();
+	private final AtomicInteger seriesInfoUpToDate = new AtomicInteger();
+	// Rows of each fetched series still waiting for a writer flush; at zero its state is written
+	private final Map<String, AtomicInteger> seriesRowsPending = new ConcurrentHashMap<>();
+	private volatile BatchWriter<SeriesInfoState> seriesInfoStates;
+	// Set when resuming an interrupted run: series applied since then are not fetched again
+	private volatile java.time.Instant resumedRunStart;
+	private final java.util.Set<String> seriesDoneBeforeResume = ConcurrentHashMap.newKeySet();
+	// Payloads that were fetched but could not be parsed or written; the first one is kept for the summary
+	private final AtomicInteger seriesInfoFailures = new AtomicInteger();
+	private volatile String firstSeriesInfoFailure;
+
+	/**
+	 * Runs an ingest unless one is already in progress.
+	 *
+	 * @return false if another ingest was running, so none was started
+	 */
 	@TrackExecutionTime
-	public void retreiveJsonData() {
+	public boolean retreiveJsonData() {
+		if (!ingestRunning.compareAndSet(false, true)) {
+			log.warn("Ingest already running; not starting another one");
+			return false;
+		}
 		java.util.Set<String> discoveredPrefixes = java.util.Collections.synchronizedSet(new java.util.HashSet<>());
 		try {
 			var providerOpt = providerService.getSelectedProvider();
 			if (providerOpt.isEmpty()) {
 				log.error("No provider selected. Aborting data retrieval.");
-				return;
+				return true;
 			}
 			var p = providerOpt.get();
 			var creds = new XstreamCredentials(p.getApiUrl(), p.getUsername(), p.getPassword());
+			final long ingestStart = System.nanoTime();
+
+			final ApplicationProperties runProps = applicationPropertiesService.getCurrentProperties();
+			final ResponseArchive archive = openArchive(runProps);
+			// Recording and replaying are full runs: a delta run fetches only what changed,
+			// and a replay compared to its own snapshot would skip everything
+			final IngestMode configuredMode = archive != null ? IngestMode.FULL : runProps.getIngestMode();
+			// An unfinished run for this account is resumed: its staged rows are kept,
+			// finished sections are skipped and the rest is reconciled as a delta
+			final var run = checkpoints.begin(creds.getApiUrl() + "#" + creds.getUsername()
+					+ (archive != null && archive.isReplay() ? "#replay:" + archive.dir() : ""),
+					configuredMode, staging.isIntact());
+			final IngestMode mode = run.resumed() ? IngestMode.DELTA : configuredMode;
+			resumedRunStart = run.resumed() ? run.startedAt() : null;
+
+			// The ingest writes into staging tables; browsing keeps reading the live
+			// catalog until the finished run is published in one transaction.
+			// Stored snapshots only ever describe published sections; those staged
+			// by an earlier run that never published its sections go with it
+			snapshots.discardPending();
+			if (!run.resumed()) {
+				// Full reload stages a whole generation; delta sync only its changes
+				staging.prepare(mode == IngestMode.DELTA);
+			} else {
+				// Unfinished sections are fetched again and compared with what is
+				// published or staged, so their snapshots must not turn that into a skip
+				staging.resume(run.unfinishedSections());
+				snapshots.forget(run.unfinishedSections());
+			}
+			apiClient.useArchive(archive);
+			try (CatalogStaging.Scope stagingScope = CatalogStaging.enter()) {
+				ingest(run, mode, creds, p, runProps, ingestStart, discoveredPrefixes);
+			} finally {
+				apiClient.useArchive(null);
+				if (archive != null)
+					log.info("Response archive: {}", archive.summary());
+			}
+		} catch (Exception e) {
+			log.error("Top-level error in retreiveJsonData()", e);
+		} finally {
+			ingestRunning.set(false);
+		}
+		return true;
+	}
 
-			// Precompute base URLs
-			final String liveCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.LIVE_CATEGORIES, creds);
-			final String liveStreamsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.LIVE_STREAMS, creds);
-			final String movieCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.MOVIE_CATEGORIES, creds);
-			final String movieStreamsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.MOVIE_STREAMS, creds);
-			final String seriesCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.SERIES_CATEGORIES, creds);
+	public boolean isIngestRunning() {
+		return ingestRunning.get();
+	}
 
-			// Fetch runtime-configurable maxRetries
-			final int maxRetries = applicationPropertiesService.getCurrentProperties().getMaxRetries();
+	/**
+	 * The response archive for this run, or null when archiving is off. A
+	 * replay that cannot find its snapshot fails the run rather than fall back
+	 * to the network.
+	 */
+	private static ResponseArchive openArchive(ApplicationProperties props) throws IOException {
+		Path dir = Path.of(props.getResponseArchiveDir());
+		return switch (props.getResponseArchiveMode()) {
+			case RECORD -> {
+				try {
+					yield ResponseArchive.record(dir);
+				} catch (IOException e) {
+					log.warn("Cannot record provider responses to {}: {}", dir, e.getMessage());
+					yield null;
+				}
+			}
+			case REPLAY -> ResponseArchive.replay(dir);
+			case OFF -> null;
+		};
+	}
 
-			// Before we do anything else we need to clear the database of all existing data
+	/**
+	 * Worker pool for ingest stages, carrying the caller's staging routing.
+	 */
+	private Executor workers() {
+		return CatalogStaging.bindExecutor(executor);
+	}
 
-			episodeRepository.deleteAllInBatch();
-			seasonRepository.deleteAllInBatch();
-			seriesRepository.deleteAllInBatch();
-			seriesCategoryRepository.deleteAllInBatch();
+	/**
+	 * Loads every section into the staging tables and publishes the ones that
+	 * completed. Runs with the staging routing active.
+	 */
+	private void ingest(IngestCheckpoints.Run run, IngestMode mode, XstreamCredentials creds, IptvProvider p,
+			ApplicationProperties runProps, long ingestStart, java.util.Set<String> discoveredPrefixes)
+			throws Exception {
+		final int maxRetries = runProps.getMaxRetries();
+		final int batchSize = runProps.getBatchSize();
+		final String liveCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.LIVE_CATEGORIES, creds);
+		final String liveStreamsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.LIVE_STREAMS, creds);
+		final String movieCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.MOVIE_CATEGORIES, creds);
+		final String movieStreamsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.MOVIE_STREAMS, creds);
+		final String seriesCatsUrl = XtreamCodesUtils.buildEndpointUrl(Constants.SERIES_CATEGORIES, creds);
+		skippedSections.clear();
+		ingestCancelled.set(false);
+		// seriesInfoMaxInflight is now only the starting point; the limiter adapts from there
+		apiClient.getLimiter().reset(runProps.getSeriesInfoMaxInflight());
+		apiClient.resetTransfers();
+
+		// Each section is an async chain: requests and retry backoffs hold no thread,
+		// parsing and writes hop onto the worker pool
+		// Conditional requests: unchanged sections are neither parsed nor persisted
+		CompletableFuture<Boolean> liveTask = run.isDone("live")
+				? resumedSection("live", storedLiveCategories().stream().map(LiveCategory::getCategoryName),
+						discoveredPrefixes)
+				: apiClient.getAsync(liveCatsUrl, creds, maxRetries, snapshots.conditionalHeaders(liveCatsUrl, mode),
+						ingestCancelled::get)
+				.thenApplyAsync(cats -> saveLiveCategories(cats, liveCatsUrl, mode, discoveredPrefixes, batchSize),
+						workers())
+				.thenCompose(catsOk -> apiClient.sendAsyncWithRetry(liveStreamsUrl, creds, maxRetries,
+						apiClient.ofInputStream(liveStreamsUrl),
+						snapshots.conditionalHeaders(liveStreamsUrl, mode), ingestCancelled::get)
+				.thenApplyAsync(response -> catsOk & applyStreamSection("Live Streams", liveStreamsUrl, response, mode,
+						body -> {
+							// Stream the (large) live list into the writer in fixed-size batches
+							var sync = deltaSync.liveStreamSync(batchSize);
+							long count = readArrayInBatches(body, liveStreamReader, LiveStream.class, batchSize, sync);
+							sync.finish(true);
+							log.info("Live Streams: {}", count);
+						}), workers()))
+				.exceptionally(e -> {
+					log.warn("Live fetch failed", e);
+					return false;
+				})
+				.thenApply(ok -> sectionFinished("live", ok, ingestStart));
+
+		CompletableFuture<Boolean> movieTask = run.isDone("movies")
+				? resumedSection("movies",
+						storedMovieCategories().stream().map(MovieCategory::getCategoryName), discoveredPrefixes)
+				: apiClient.getAsync(movieCatsUrl, creds, maxRetries, snapshots.conditionalHeaders(movieCatsUrl, mode),
+						ingestCancelled::get)
+				.thenApplyAsync(
+						cats -> saveMovieCategories(cats, movieCatsUrl, mode, discoveredPrefixes, batchSize),
+						workers())
+				.thenCompose(catsOk -> apiClient.sendAsyncWithRetry(movieStreamsUrl, creds, maxRetries,
+						apiClient.ofInputStream(movieStreamsUrl),
+						snapshots.conditionalHeaders(movieStreamsUrl, mode), ingestCancelled::get)
+				.thenApplyAsync(response -> catsOk & applyStreamSection("Movie Streams", movieStreamsUrl, response, mode,
+						body -> {
+							var sync = deltaSync.movieStreamSync(batchSize);
+							long count = readArrayInBatches(body, movieStreamReader, MovieStream.class,
+									batchSize, sync);
+							sync.finish(true);
+							log.info("Movie Streams: {}", count);
+						}), workers()))
+				.exceptionally(e -> {
+					log.warn("Movie fetch failed", e);
+					return false;
+				})
+				.thenApply(ok -> sectionFinished("movies", ok, ingestStart));
 
-			liveStreamRepository.deleteAllInBatch();
-			liveCategoryRepository.deleteAllInBatch();
+		CompletableFuture<Boolean> seriesTask = run.isDone("series")
+				? resumedSection("series",
+						storedSeriesCategories().stream().map(SeriesCategory::getCategoryName), discoveredPrefixes)
+				: CompletableFuture.supplyAsync(() -> sectionFinished("series",
+						fetchAndSaveSeries(creds, seriesCatsUrl, discoveredPrefixes, mode), ingestStart), workers());
 
-			movieStreamRepository.deleteAllInBatch();
-			movieCategoryRepository.deleteAllInBatch();
+		try {
+			// Interruptible wait so /cancelResetDatabase reaches the child tasks
+			CompletableFuture.allOf(liveTask, movieTask, seriesTask).get();
+		} catch (InterruptedException ie) {
+			cancelIngest();
+			Thread.currentThread().interrupt();
+			log.warn("Ingest cancelled; waiting tasks were signalled to stop");
+			return;
+		}
 
-			knownMissingSeries.clear();
-			log.info("Cleared existing data");
+		metrics.phase("total", System.nanoTime() - ingestStart);
+		// A failed section does not hold back the others: they go live now, while the
+		// failed one keeps its previous generation and is resumed by the next run
+		final java.util.Map<String, Boolean> outcomes = java.util.Map.of("live", liveTask.join(), "movies",
+				movieTask.join(), "series", seriesTask.join());
+		final List<String> toPublish = outcomes.entrySet().stream()
+				.filter(e -> e.getValue() && !run.isPublished(e.getKey())).map(java.util.Map.Entry::getKey).sorted()
+				.toList();
+		if (!ingestCancelled.get() && !toPublish.isEmpty()) {
+			// Publish first: if that fails, the next run resumes straight to another swap
+			staging.swap(toPublish);
+			snapshots.publish(toPublish);
+			checkpoints.sectionsPublished(toPublish);
+			// Load what was just published, not this thread's staging copies
+			try (CatalogStaging.Scope published = CatalogStaging.leave()) {
+				catalog.reload();
+				titleSearch.rebuild();
+			}
+		}
+		if (!ingestCancelled.get() && !outcomes.containsValue(false)) {
+			checkpoints.finish();
+		} else {
+			log.warn("Ingest incomplete; published {}, the next run resumes the rest from the last checkpoint",
+					toPublish.isEmpty() || ingestCancelled.get() ? "nothing" : toPublish);
+		}
 
-			CompletableFuture<Void> liveTask = CompletableFuture.runAsync(() -> {
-				try {
-					HttpResult cats = getWithRetry(liveCatsUrl, creds, maxRetries);
-					HttpResult streams = getWithRetry(liveStreamsUrl, creds, maxRetries);
-					if (cats.is2xx() && cats.body != null) {
-						List<LiveCategory> list = liveCategoryReader.readValue(cats.body);
-						log.info("Discovered {} Live Categories. Sample: {}", list.size(),
-								list.stream().limit(10).map(LiveCategory::getCategoryName).toList());
-						for (LiveCategory cat : list) {
-							String pfx = XtreamCodesUtils.extractPreface(cat.getCategoryName());
-							if (pfx != null && !discoveredPrefixes.contains(pfx))
-								discoveredPrefixes.add(pfx);
-						}
-						liveCategoryRepository.saveAll(list);
-						log.info("Live Categories: {} | Discovered prefixes so far: {}", list.size(),
-								discoveredPrefixes);
-					}
-					if (streams.is2xx() && streams.body != null) {
-						List<LiveStream> list = liveStreamReader.readValue(streams.body);
-						// Set directSource for each LiveStream using StreamUrlHelper
-						for (LiveStream stream : list) {
-							String directSourceUrl = StreamUrlHelper.buildLiveUrl(p.getApiUrl(), p.getUsername(),
-									p.getPassword(), stream);
-							stream.setDirectSource(directSourceUrl);
-						}
-						liveStreamRepository.saveAll(list);
-						log.info("Live Streams: {}", list.size());
-					}
-				} catch (Exception e) {
-					log.warn("Live fetch failed", e);
-				}
-			}, executor);
+		// Update available prefixes in ApplicationProperties
+		ApplicationProperties props = applicationPropertiesService.getCurrentProperties();
+		props.setAvailablePrefixes(String.join(",", new java.util.TreeSet<>(discoveredPrefixes)));
+		applicationPropertiesService.updateProperties(props);
 
-			CompletableFuture<Void> movieTask = CompletableFuture.runAsync(() -> {
-				try {
-					HttpResult cats = getWithRetry(movieCatsUrl, creds, maxRetries);
-					HttpResult streams = getWithRetry(movieStreamsUrl, creds, maxRetries);
-					if (cats.is2xx() && cats.body != null) {
-						List<MovieCategory> list = movieCategoryReader.readValue(cats.body);
-						log.info("Discovered {} Movie Categories", list.size());
-						for (MovieCategory cat : list) {
-							String pfx = XtreamCodesUtils.extractPreface(cat.getCategoryName());
-							if (pfx != null && !discoveredPrefixes.contains(pfx))
-								discoveredPrefixes.add(pfx);
-						}
-						movieCategoryRepository.saveAll(list);
-						log.info("Movie Categories: {} | Discovered prefixes so far: {}", list.size(),
-								discoveredPrefixes);
-					}
-					if (streams.is2xx() && streams.body != null) {
-						List<MovieStream> list = movieStreamReader.readValue(streams.body);
-						movieStreamRepository.saveAll(list);
-						log.info("Movie Streams: {}", list.size());
-					}
-				} catch (Exception e) {
-					log.warn("Movie fetch failed", e);
-				}
-			}, executor);
+		log.info("Finished | skipped unchanged: {} | provider {} | writers {} | transfer {}",
+				skippedSections.isEmpty() ? "none" : List.copyOf(skippedSections), apiClient.getLimiter().stats(),
+				getSeriesWriterStats(), apiClient.transferStats());
+	}
 
-			CompletableFuture<Void> seriesTask = CompletableFuture
-					.runAsync(() -> fetchAndSaveSeries(creds, seriesCatsUrl, discoveredPrefixes), executor);
+	private boolean saveLiveCategories(HttpResult cats, String url, IngestMode mode,
+			java.util.Set<String> discoveredPrefixes, int batchSize) {
+		String bodyHash = bodyHash(cats);
+		if (skipIfUnchanged("Live Categories", url, cats, bodyHash, mode)) {
+			// Prefixes still come from the stored categories
+			addPrefixes(storedLiveCategories().stream().map(LiveCategory::getCategoryName),
+					discoveredPrefixes);
+			return true;
+		}
+		if (!cats.is2xx() || cats.body == null)
+			return false;
+		List<LiveCategory> list = readCategories("Live Categories", liveCategoryReader, cats.body);
+		log.info("Discovered {} Live Categories. Sample: {}", list.size(),
+				list.stream().limit(10).map(LiveCategory::getCategoryName).toList());
+		for (LiveCategory cat : list) {
+			String pfx = XtreamCodesUtils.extractPreface(cat.getCategoryName());
+			if (pfx != null && !discoveredPrefixes.contains(pfx))
+				discoveredPrefixes.add(pfx);
+		}
+		deltaSync.syncLiveCategories(list, batchSize);
+		snapshots.remember(url, cats.headers, bodyHash);
+		log.info("Live Categories: {} | Discovered prefixes so far: {}", list.size(), discoveredPrefixes);
+		return true;
+	}
 
-			CompletableFuture.allOf(liveTask, movieTask, seriesTask).join();
+	private boolean saveMovieCategories(HttpResult cats, String url, IngestMode mode,
+			java.util.Set<String> discoveredPrefixes, int batchSize) {
+		String bodyHash = bodyHash(cats);
+		if (skipIfUnchanged("Movie Categories", url, cats, bodyHash, mode)) {
+			addPrefixes(storedMovieCategories().stream().map(MovieCategory::getCategoryName),
+					discoveredPrefixes);
+			return true;
+		}
+		if (!cats.is2xx() || cats.body == null)
+			return false;
+		List<MovieCategory> list = readCategories("Movie Categories", movieCategoryReader, cats.body);
+		log.info("Discovered {} Movie Categories", list.size());
+		for (MovieCategory cat : list) {
+			String pfx = XtreamCodesUtils.extractPreface(cat.getCategoryName());
+			if (pfx != null && !discoveredPrefixes.contains(pfx))
+				discoveredPrefixes.add(pfx);
+		}
+		deltaSync.syncMovieCategories(list, batchSize);
+		snapshots.remember(url, cats.headers, bodyHash);
+		log.info("Movie Categories: {} | Discovered prefixes so far: {}", list.size(), discoveredPrefixes);
+		return true;
+	}
 
-			// Update available prefixes in ApplicationProperties
-			ApplicationProperties props = applicationPropertiesService.getCurrentProperties();
-			props.setAvailablePrefixes(String.join(",", new java.util.TreeSet<>(discoveredPrefixes)));
-			applicationPropertiesService.updateProperties(props);
+	/**
+	 * A section the resumed run already finished: only its prefixes are needed.
+	 */
+	// The stored categories as this run sees them, staged changes included
+	private List<LiveCategory> storedLiveCategories() {
+		return staging.current("LIVE_CATEGORY", liveCategoryRepository::findAll, LiveCategory::getCategoryId);
+	}
 
-			log.info("Finished");
-		} catch (Exception e) {
-			log.error("Top-level error in retreiveJsonData()", e);
-		}
+	private List<MovieCategory> storedMovieCategories() {
+		return staging.current("MOVIE_CATEGORY", movieCategoryRepository::findAll, MovieCategory::getCategoryId);
 	}
 
-	@TrackExecutionTime
-	public void fetchAndSaveSeries(XstreamCredentials creds, String seriesCatsUrl,
+	private List<SeriesCategory> storedSeriesCategories() {
+		return staging.current("SERIES_CATEGORY", seriesCategoryRepository::findAll, SeriesCategory::getCategoryId);
+	}
+
+	private CompletableFuture<Boolean> resumedSection(String section, java.util.stream.Stream<String> categoryNames,
 			java.util.Set<String> discoveredPrefixes) {
-		ApplicationProperties props = applicationPropertiesService.getCurrentProperties();
-		final int SERIES_INFO_MAX_INFLIGHT = props.getSeriesInfoMaxInflight();
-		final int BATCH_SIZE = props.getBatchSize();
-		final int MAX_RETRIES = props.getMaxRetries();
+		addPrefixes(categoryNames, discoveredPrefixes);
+		log.info("Resume: {} already finished", section);
+		return CompletableFuture.completedFuture(true);
+	}
 
-		final var okCount = new AtomicInteger();
-		final var notFoundCount = new AtomicInteger();
-		final var otherErrorCount = new AtomicInteger();
+	private boolean sectionFinished(String section, boolean ok, long ingestStart) {
+		metrics.phase(section, System.nanoTime() - ingestStart);
+		if (ok && !ingestCancelled.get())
+			checkpoints.sectionDone(section);
+		return ok;
+	}
 
-		// Lock-free aggregators; one saver drains them in chunks
-		final var seriesQ = new ConcurrentLinkedQueue<Series>();
-		final var seasonsQ = new ConcurrentLinkedQueue<Season>();
-		final var episodesQ = new ConcurrentLinkedQueue<Episode>();
+	private static void addPrefixes(java.util.stream.Stream<String> categoryNames,
+			java.util.Set<String> discoveredPrefixes) {
+		categoryNames.map(XtreamCodesUtils::extractPreface).filter(java.util.Objects::nonNull)
+				.forEach(discoveredPrefixes::add);
+	}
 
-		// Single saver flushing queues in chunks
-		final var stopSaver = new AtomicBoolean(false);
-		executor.submit(() -> {
-			List<Series> sBuf = new ArrayList<>(BATCH_SIZE);
-			List<Season> seBuf = new ArrayList<>(BATCH_SIZE);
-			List<Episode> eBuf = new ArrayList<>(BATCH_SIZE);
+	private static String bodyHash(HttpResult r) {
+		return r.is2xx() && r.body != null ? ContentHashUtils.hash(r.body) : null;
+	}
 
-			while (!stopSaver.get() || !seriesQ.isEmpty() || !seasonsQ.isEmpty()
-					|| !episodesQ.isEmpty()) {
-				drain(seriesQ, sBuf, BATCH_SIZE, list -> seriesRepository.saveAll(list));
-				drain(seasonsQ, seBuf, BATCH_SIZE, list -> seasonRepository.saveAll(list));
-				drain(episodesQ, eBuf, BATCH_SIZE, list -> episodeRepository.saveAll(list));
+	/**
+	 * Returns true, and records the skip, when {@code r} matches the last
+	 * response applied for {@code url} (a 304 or the same body hash).
+	 */
+	private boolean skipIfUnchanged(String section, String url, HttpResult r, String bodyHash, IngestMode mode) {
+		if (!r.isNotModified() && bodyHash == null)
+			return false;
+		String reason = snapshots.unchangedReason(url, r.status, bodyHash, mode);
+		if (reason == null)
+			return false;
+		recordSkip(section, reason);
+		snapshots.remember(url, r.headers, bodyHash);
+		return true;
+	}
 
+	private void recordSkip(String section, String reason) {
+		skippedSections.add(section + " (" + reason + ")");
+		log.info("{} unchanged ({}); skipping parse and persistence", section, reason);
+	}
+
+	/**
+	 * Applies a streamed catalog section unless it is unchanged since the last
+	 * applied response. The body is spooled to a temp file while it is hashed,
+	 * so the decision is made before anything is parsed and heap use stays flat;
+	 * {@code writer} then reads the spooled copy. The snapshot is recorded only
+	 * after {@code writer} returns.
+	 */
+	private boolean applyStreamSection(String section, String url, HttpResponse<InputStream> response, IngestMode mode,
+			SectionWriter<InputStream> writer) {
+		if (response == null) {
+			log.warn("{} request failed: status 599", section);
+			return false;
+		}
+		int status = response.statusCode();
+		if (status == 304) {
+			String reason = snapshots.unchangedReason(url, status, null, mode);
+			if (reason != null) {
+				recordSkip(section, reason);
+				snapshots.remember(url, response.headers(), null);
+			} else {
+				log.warn("{}: unexpected 304 without a stored snapshot", section);
+				return false;
+			}
+			return true;
+		}
+		if (status < 200 || status >= 300) {
+			log.warn("{} request failed: status {}", section, status);
+			return false;
+		}
+		Path spool = null;
+		try {
+			spool = Files.createTempFile("xtream-", ".json");
+			String bodyHash;
+			try (DigestInputStream in = ContentHashUtils.digesting(response.body())) {
+				Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+				bodyHash = ContentHashUtils.hash(in);
+			}
+			String reason = snapshots.unchangedReason(url, status, bodyHash, mode);
+			if (reason != null) {
+				recordSkip(section, reason);
+				snapshots.remember(url, response.headers(), bodyHash);
+				return true;
+			}
+			long parseStart = System.nanoTime();
+			try (InputStream body = new BufferedInputStream(Files.newInputStream(spool))) {
+				writer.write(body);
+			}
+			metrics.parse(section, System.nanoTime() - parseStart);
+			snapshots.remember(url, response.headers(), bodyHash);
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			if (spool != null) {
 				try {
-					Thread.sleep(50);
-				} catch (InterruptedException ignored) {
+					Files.deleteIfExists(spool);
+				} catch (IOException ignored) {
 				}
 			}
-			// final flush
-			drain(seriesQ, sBuf, 0, list -> seriesRepository.saveAll(list));
-			drain(seasonsQ, seBuf, 0, list -> seasonRepository.saveAll(list));
-			drain(episodesQ, eBuf, 0, list -> episodeRepository.saveAll(list));
-		});
+		}
+	}
 
-		long lastLog = System.nanoTime();
-		long processed = 0;
+	@FunctionalInterface
+	private interface SectionWriter<B> {
+		void write(B body) throws IOException;
+	}
 
+	private <T> List<T> readCategories(String section, ObjectReader reader, String body) {
+		long start = System.nanoTime();
 		try {
-			HttpResult catsRes = getWithRetry(seriesCatsUrl, creds, MAX_RETRIES);
-			if (!catsRes.is2xx() || catsRes.body == null) {
-				log.warn("Series categories request failed: status {}", catsRes.status);
-				return;
+			return reader.readValue(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			metrics.parse(section, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Lists series, fetches get_series_info for new/changed series and writes
+	 * the results.
+	 *
+	 * @return whether every listing and every series-info request succeeded and
+	 *         was written, i.e. the series section can be checkpointed as done
+	 */
+	@TrackExecutionTime
+	public boolean fetchAndSaveSeries(XstreamCredentials creds, String seriesCatsUrl,
+			java.util.Set<String> discoveredPrefixes, IngestMode mode) {
+		ApplicationProperties props = applicationPropertiesService.getCurrentProperties();
+		// The adaptive limiter in ProviderApiClient decides how many requests really run;
+		// the fan-out only needs enough work queued to let it reach its ceiling
+		final int FAN_OUT_WIDTH = apiClient.getLimiter().getMaxLimit();
+		final int BATCH_SIZE = props.getBatchSize();
+		final int MAX_RETRIES = props.getMaxRetries();
+
+		var missing = missingSeriesRegistry.load(creds.getApiUrl());
+		knownMissingSeries.clear();
+		knownMissingSeries.addAll(missing.active());
+		missingSeriesDue.clear();
+		missingSeriesDue.addAll(missing.due());
+		missingSeriesTtlDays = props.getMissingSeriesTtlDays();
+
+		// Delta runs only fetch get_series_info for series whose last_modified moved;
+		// a resumed run also skips every series the interrupted run already applied
+		seriesInfoFetchedFor.clear();
+		seriesDoneBeforeResume.clear();
+		final java.time.Instant resumeSince = resumedRunStart;
+		if (mode == IngestMode.DELTA) {
+			for (SeriesInfoState state : staging.current("SERIES_INFO_STATE", seriesInfoStateRepository::findAll,
+					SeriesInfoState::getSeriesId)) {
+				if (state.getLastModified() != null)
+					seriesInfoFetchedFor.put(state.getSeriesId(), state.getLastModified());
+				if (resumeSince != null && state.getAppliedAt() != null && !state.getAppliedAt().isBefore(resumeSince))
+					seriesDoneBeforeResume.add(state.getSeriesId());
+			}
+			if (resumeSince != null)
+				log.info("Resume: {} series already applied since {}", seriesDoneBeforeResume.size(), resumeSince);
+		}
+		seriesListedLastModified.clear();
+		seriesRowsPending.clear();
+		seriesInfoUpToDate.set(0);
+		seriesInfoFailures.set(0);
+		firstSeriesInfoFailure = null;
+
+		final var okCount = new AtomicInteger();
+		final var notFoundCount = new AtomicInteger();
+		final var otherErrorCount = new AtomicInteger();
+
+		// Bounded writer stages flushing JDBC batches: series-info handlers block when H2 falls behind
+		final int writeQueueCapacity = BATCH_SIZE * WRITE_QUEUE_BATCHES;
+		final BatchWriter<Season> seasons = BatchWriter.start("seasons", BATCH_SIZE, writeQueueCapacity,
+				WRITE_FLUSH_INTERVAL, CatalogStaging.bindSink(batch -> {
+					metrics.flush("seasons", "Season", batch, () -> bulkWriter.saveSeasons(batch));
+					rowsWritten(batch, Season::getSeriesId);
+				}));
+		final BatchWriter<Episode> episodes = BatchWriter.start("episodes", BATCH_SIZE, writeQueueCapacity,
+				WRITE_FLUSH_INTERVAL, CatalogStaging.bindSink(batch -> {
+					metrics.flush("episodes", "Episode", batch, () -> bulkWriter.saveEpisodes(batch));
+					rowsWritten(batch, Episode::getSeriesId);
+				}));
+		// Fed by the two writers above, so a state is only saved after its series' rows;
+		// being written continuously, it doubles as the resume checkpoint
+		final BatchWriter<SeriesInfoState> states = BatchWriter.start("series-info-state", BATCH_SIZE,
+				writeQueueCapacity, WRITE_FLUSH_INTERVAL, CatalogStaging.bindSink(seriesInfoStateRepository::saveAll));
+		seriesInfoStates = states;
+		seriesWriters = List.of(seasons, episodes, states);
+		metrics.watch(seriesWriters);
+
+		boolean listingComplete = false;
+		boolean written = false;
+		try {
+			HttpResult catsRes = apiClient.getWithRetry(seriesCatsUrl, creds, MAX_RETRIES,
+					snapshots.conditionalHeaders(seriesCatsUrl, mode));
+			String catsHash = bodyHash(catsRes);
+			final boolean categoriesUnchanged = skipIfUnchanged("Series Categories", seriesCatsUrl, catsRes, catsHash,
+					mode);
+			final List<SeriesCategory> categories;
+			if (categoriesUnchanged) {
+				// The stored categories still drive the listings below
+				categories = storedSeriesCategories();
+			} else {
+				if (!catsRes.is2xx() || catsRes.body == null) {
+					log.warn("Series categories request failed: status {}", catsRes.status);
+					return false;
+				}
+				categories = readCategories("Series Categories", seriesCategoryReader, catsRes.body);
 			}
-			List<SeriesCategory> categories = seriesCategoryReader.readValue(catsRes.body);
 			for (SeriesCategory cat : categories) {
 				String pfx = XtreamCodesUtils.extractPreface(cat.getCategoryName());
 				if (pfx != null && !discoveredPrefixes.contains(pfx))
 					discoveredPrefixes.add(pfx);
 			}
-			seriesCategoryRepository.saveAll(categories);
-			log.info("Saved {} Series Categories immediately", categories.size());
-
-			// Gather unique series IDs across all categories
-			final java.util.Set<String> uniqueSeriesIds = new java.util.HashSet<>(8192);
+			if (!categoriesUnchanged) {
+				deltaSync.syncSeriesCategories(categories, BATCH_SIZE);
+				snapshots.remember(seriesCatsUrl, catsRes.headers, catsHash);
+				log.info("Saved {} Series Categories immediately", categories.size());
+			}
 
-			// Bound parallelism with a semaphore
-			final var gate = new Semaphore(SERIES_INFO_MAX_INFLIGHT);
-			List<CompletableFuture<Void>> inflight = new ArrayList<>(SERIES_INFO_MAX_INFLIGHT);
+			// Category listings run in parallel and feed new series ids straight into the
+			// series-info fan-out, so info requests start with the first listing
+			final var feed = new SeriesIdFeed();
+			final java.util.Set<String> uniqueSeriesIds = ConcurrentHashMap.newKeySet(8192);
+			final CompletableFuture<Boolean> listing = CompletableFuture.supplyAsync(
+					() -> listSeriesByCategory(creds, categories, categoriesUnchanged, mode, MAX_RETRIES, BATCH_SIZE,
+							uniqueSeriesIds, feed),
+					workers());
+
+			// Fan-out only unique IDs, as the listings deliver them
+			Consumer<String> fetchOne = seriesId -> fetchOneSeriesInfo(creds, seriesId, seasons, episodes,
+					okCount, notFoundCount, otherErrorCount, MAX_RETRIES, mode);
+			IntConsumer progress = inflight -> log.info(
+					"Series processed: {} | ok:{} 404:{} other:{} | inflight:{} | provider {} | {} | {}",
+					okCount.get() + notFoundCount.get() + otherErrorCount.get(), okCount.get(),
+					notFoundCount.get(), otherErrorCount.get(), inflight, apiClient.getLimiter().stats(),
+					seasons.stats(), episodes.stats());
+			switch (props.getSeriesInfoFanOut()) {
+				case ASYNC -> fanOutAsync(feed, FAN_OUT_WIDTH,
+						seriesId -> fetchSeriesInfoAsync(creds, seriesId, MAX_RETRIES)
+								.thenAcceptAsync(r -> handleSeriesInfo(creds, seriesId, r, seasons, episodes,
+										okCount, notFoundCount, otherErrorCount, mode), workers()),
+						progress);
+				case POOL -> fanOutOnPool(feed, FAN_OUT_WIDTH, fetchOne, progress);
+				default -> fanOutOnVirtualThreads(feed, FAN_OUT_WIDTH, fetchOne, progress);
+			}
+			listingComplete = listing.join();
+		} catch (Exception e) {
+			log.warn("Series fetch failed", e);
+		} finally {
+			written = closeSeriesWriters(seasons, episodes, states);
+			log.info("Series summary — ok:{} 404:{} other:{} | unchanged since last_modified:{} | done before resume:{}",
+					okCount.get(), notFoundCount.get(), otherErrorCount.get(), seriesInfoUpToDate.get(),
+					seriesDoneBeforeResume.size());
+			if (seriesInfoFailures.get() > 0)
+				log.warn("{} series_info payloads could not be processed, first: {} (stack traces at debug level)",
+						seriesInfoFailures.get(), firstSeriesInfoFailure);
+		}
+		// Series whose info failed have no state row and are fetched again next run; they
+		// must not hold back publishing everything else
+		return listingComplete && written && !ingestCancelled.get();
+	}
 
-			for (SeriesCategory sc : categories) {
+	/**
+	 * Lists every series category with at most {@link #SERIES_LISTING_PARALLELISM}
+	 * requests in flight. Ids not seen before are offered to {@code feed} as each
+	 * listing arrives; the feed is closed once every listing has finished. Series
+	 * rows are then reconciled in category order, so a series listed in several
+	 * categories keeps the last one, as with the old serial loop.
+	 * <p>
+	 * Listings are always fetched and parsed, because their ids drive the
+	 * series-info fan-out. When the categories and every listing body are
+	 * unchanged, the series rows are not written at all.
+	 *
+	 * @return whether every category was listed
+	 */
+	private boolean listSeriesByCategory(XstreamCredentials creds, List<SeriesCategory> categories,
+			boolean categoriesUnchanged, IngestMode mode, int maxRetries, int batchSize,
+			java.util.Set<String> uniqueSeriesIds, SeriesIdFeed feed) {
+		@SuppressWarnings("unchecked")
+		final List<Series>[] listed = new List[categories.size()];
+		final String[] listingUrls = new String[categories.size()];
+		final HttpResult[] listingResults = new HttpResult[categories.size()];
+		final String[] listingHashes = new String[categories.size()];
+		final var listingComplete = new AtomicBoolean(true);
+		final var listingsUnchanged = new AtomicInteger();
+		final var gate = new Semaphore(SERIES_LISTING_PARALLELISM);
+		final List<CompletableFuture<?>> pending = new ArrayList<>(categories.size());
+		try {
+			for (int i = 0; i < categories.size(); i++) {
+				SeriesCategory sc = categories.get(i);
 				String id = sc.getCategoryId(); // assuming String in your model
 				if (id == null || id.isBlank()) {
 					log.debug("Skipping Series Category with null/blank ID: {}", sc.getCategoryName());
 					continue;
 				}
+				if (!acquireUnlessCancelled(gate)) {
+					listingComplete.set(false);
+					break;
+				}
+				final int slot = i;
 				final String byCatUrl = XtreamCodesUtils.buildEndpointUrl(Constants.SERIES_BY_CATEGORY, creds, id);
+				pending.add(apiClient.getAsync(byCatUrl, creds, maxRetries, ingestCancelled::get)
+						.thenAcceptAsync(seriesRes -> {
+							List<Series> inCat = readSeriesListing(seriesRes);
+							if (inCat == null) {
+								listingComplete.set(false);
+								return;
+							}
+							listed[slot] = inCat;
+							listingUrls[slot] = byCatUrl;
+							listingResults[slot] = seriesRes;
+							listingHashes[slot] = bodyHash(seriesRes);
+							if (snapshots.unchangedReason(byCatUrl, seriesRes.status, listingHashes[slot],
+									mode) != null)
+								listingsUnchanged.incrementAndGet();
+							for (Series s : inCat) {
+								String seriesId = String.valueOf(s.getSeriesId());
+								if (seriesId == null || seriesId.isBlank())
+									continue;
+								if (knownMissingSeries.contains(seriesId))
+									continue; // skip known 404s
+								if (!uniqueSeriesIds.add(seriesId))
+									continue;
+								if (seriesDoneBeforeResume.contains(seriesId))
+									continue; // applied by the interrupted run
+								if (s.getLastModified() != null)
+									seriesListedLastModified.put(seriesId, s.getLastModified());
+								if (s.getLastModified() != null
+										&& s.getLastModified().equals(seriesInfoFetchedFor.get(seriesId))) {
+									seriesInfoUpToDate.incrementAndGet(); // keep stored seasons/episodes
+									continue;
+								}
+								feed.offer(seriesId);
+							}
+						}, workers())
+						.handle((v, e) -> {
+							if (e != null) {
+								log.warn("Series listing failed for category {}", id, e);
+								listingComplete.set(false);
+							}
+							gate.release();
+							return null;
+						}));
+			}
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+		} catch (InterruptedException ie) {
+			listingComplete.set(false);
+			Thread.currentThread().interrupt();
+		} finally {
+			feed.close();
+		}
 
-				HttpResult seriesRes = getWithRetry(byCatUrl, creds, MAX_RETRIES);
-				if (!seriesRes.is2xx() || seriesRes.body == null)
-					continue;
+		final java.util.Map<Integer, Series> listedSeries = new java.util.LinkedHashMap<>(8192);
+		int listings = 0;
+		for (List<Series> inCat : listed) {
+			if (inCat == null)
+				continue;
+			listings++;
+			for (Series s : inCat) {
+				listedSeries.put(s.getSeriesId(), s);
+			}
+		}
+		log.info("Series listing: {} categories, {} series", categories.size(), listedSeries.size());
+
+		boolean complete = listingComplete.get() && !ingestCancelled.get();
+		if (complete && categoriesUnchanged && listingsUnchanged.get() == listings) {
+			recordSkip("Series", listings + " listings unchanged");
+		} else {
+			// Series rows are reconciled in one pass; removals only after a complete listing
+			deltaSync.syncSeries(listedSeries.values(), complete, batchSize);
+			if (!complete) {
+				log.warn("Series listing incomplete; keeping series missing from this run");
+			}
+		}
+		// An incomplete listing kept series it did not see, so none of its responses count as applied
+		for (int i = 0; complete && i < listed.length; i++) {
+			if (listed[i] != null)
+				snapshots.remember(listingUrls[i], listingResults[i].headers, listingHashes[i]);
+		}
+		return complete;
+	}
 
-				List<Series> inCat = seriesListReader.readValue(seriesRes.body);
-				if (inCat == null || inCat.isEmpty())
-					continue;
+	private List<Series> readSeriesListing(HttpResult seriesRes) {
+		if (!seriesRes.is2xx() || seriesRes.body == null)
+			return null;
+		long start = System.nanoTime();
+		try {
+			List<Series> inCat = seriesListReader.readValue(seriesRes.body);
+			return inCat != null ? inCat : List.of();
+		} catch (IOException e) {
+			log.warn("Unreadable series listing: {}", e.getMessage());
+			return null;
+		} finally {
+			metrics.parse("Series Listings", System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Series ids handed from the category listings to the series-info fan-out as
+	 * they arrive. Iteration blocks until the next id is available and ends once
+	 * the feed is closed and drained, or the ingest is cancelled.
+	 */
+	private final class SeriesIdFeed implements Iterable<String> {
+		private final java.util.concurrent.BlockingQueue<String> ids = new java.util.concurrent.LinkedBlockingQueue<>();
+
+		void offer(String seriesId) {
+			ids.add(seriesId);
+		}
+
+		void close() {
+			ids.add(END_OF_FEED);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<>() {
+				private String next;
+				private boolean done;
+
+				@Override
+				public boolean hasNext() {
+					while (next == null && !done) {
+						if (ingestCancelled.get()) {
+							done = true;
+							break;
+						}
+						try {
+							String id = ids.poll(200, TimeUnit.MILLISECONDS);
+							if (id == END_OF_FEED)
+								done = true;
+							else
+								next = id;
+						} catch (InterruptedException ie) {
+							Thread.currentThread().interrupt();
+							done = true;
+						}
+					}
+					return next != null;
+				}
+
+				@Override
+				public String next() {
+					if (!hasNext())
+						throw new java.util.NoSuchElementException();
+					String id = next;
+					next = null;
+					return id;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Original fan-out: tasks run on the shared fixed pool, so concurrency is
+	 * capped by both the pool size and {@code maxInflight}.
+	 */
+	private void fanOutOnPool(Iterable<String> ids, int maxInflight, Consumer<String> task,
+			IntConsumer progress) {
+		// Bound parallelism with a semaphore
+		final var gate = new Semaphore(maxInflight);
+		List<CompletableFuture<Void>> inflight = new ArrayList<>(maxInflight);
+		long lastLog = System.nanoTime();
 
-				seriesQ.addAll(inCat);
-				for (Series s : inCat) {
-					String seriesId = String.valueOf(s.getSeriesId());
-					if (seriesId == null || seriesId.isBlank())
-						continue;
-					if (knownMissingSeries.contains(seriesId))
-						continue; // skip known 404s
-					uniqueSeriesIds.add(seriesId);
+		for (String id : ids) {
+			if (ingestCancelled.get()) {
+				log.warn("Ingest cancelled; stopping series-info fan-out");
+				break;
+			}
+			gate.acquireUninterruptibly();
+			var cf = CompletableFuture.runAsync(() -> {
+				try {
+					task.accept(id);
+				} finally {
+					gate.release();
 				}
+			}, workers());
+			inflight.add(cf);
+
+			// keep list from growing unbounded
+			if (inflight.size() >= maxInflight * 4) {
+				CompletableFuture.anyOf(inflight.toArray(new CompletableFuture[0])).join();
+				inflight.removeIf(CompletableFuture::isDone);
 			}
 
-			// Fan-out only unique IDs
-			for (String seriesId : uniqueSeriesIds) {
-				gate.acquireUninterruptibly();
-				var cf = CompletableFuture.runAsync(() -> {
+			// compact logging every ~2s
+			if (System.nanoTime() - lastLog > TimeUnit.SECONDS.toNanos(2)) {
+				progress.accept(maxInflight - gate.availablePermits());
+				lastLog = System.nanoTime();
+			}
+		}
+
+		CompletableFuture.allOf(inflight.toArray(new CompletableFuture[0])).join();
+	}
+
+	/**
+	 * Virtual-thread fan-out: every id gets its own virtual thread, so the only
+	 * limit on concurrency is the provider limit {@code maxInflight}. The
+	 * executor is scoped to this call and not closed until every child has
+	 * finished; cancelling the ingest interrupts all children at once.
+	 */
+	private void fanOutOnVirtualThreads(Iterable<String> ids, int maxInflight, Consumer<String> task,
+			IntConsumer progress) throws InterruptedException {
+		final var gate = new Semaphore(maxInflight);
+		long lastLog = System.nanoTime();
+		ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			for (String id : ids) {
+				if (!acquireUnlessCancelled(gate)) {
+					log.warn("Ingest cancelled; stopping series-info fan-out");
+					scope.shutdownNow();
+					break;
+				}
+				scope.submit(CatalogStaging.bind(() -> {
 					try {
-						fetchOneSeriesInfo(creds, seriesId, seasonsQ, episodesQ, okCount, notFoundCount,
-								otherErrorCount, MAX_RETRIES);
+						task.accept(id);
 					} finally {
 						gate.release();
 					}
-				}, executor);
-				inflight.add(cf);
+				}));
 
-				// keep list from growing unbounded
-				if (inflight.size() >= SERIES_INFO_MAX_INFLIGHT * 4) {
-					CompletableFuture.anyOf(inflight.toArray(new CompletableFuture[0])).join();
-					inflight.removeIf(CompletableFuture::isDone);
-				}
-
-				processed++;
-				// compact logging every ~2s
 				if (System.nanoTime() - lastLog > TimeUnit.SECONDS.toNanos(2)) {
-					int infl = SERIES_INFO_MAX_INFLIGHT - gate.availablePermits();
-					log.info("Series processed: {} | ok:{} 404:{} other:{} | inflight:{} | queues S:{} Se:{} Ep:{}",
-							processed, okCount.get(), notFoundCount.get(), otherErrorCount.get(),
-							infl, seriesQ.size(), seasonsQ.size(), episodesQ.size());
+					progress.accept(maxInflight - gate.availablePermits());
 					lastLog = System.nanoTime();
 				}
 			}
-
-			CompletableFuture.allOf(inflight.toArray(new CompletableFuture[0])).join();
-		} catch (Exception e) {
-			log.warn("Series fetch failed", e);
 		} finally {
-			stopSaver.set(true);
-			// Removing join on saver as it is now a submitted task, potentially long
-			// running.
-			// In a better design we would hold a Future and wait for it,
-			// but for now relying on the queue drain logic and eventual completion is
-			// acceptable given the original used a separate thread.
-			// However, to keep behavior close to original which waited for saver:
-			// Since we replaced it with executor.submit, we can't easily join on it without
-			// refactoring to keep the Future.
-			// Given the complexity, we will rely on stopSaver.set(true) and let the
-			// executor finish it.
-			log.info("Series summary — ok:{} 404:{} other:{}", okCount.get(), notFoundCount.get(),
-					otherErrorCount.get());
-		}
-	}
-
-	private static <T> void drain(Queue<T> q, List<T> buf, int threshold, Consumer<List<T>> sink) {
-		while (!q.isEmpty() && (threshold == 0 || buf.size() < threshold)) {
-			T t = q.poll();
-			if (t == null)
-				break;
-			buf.add(t);
+			scope.shutdown();
+			while (!scope.awaitTermination(500, TimeUnit.MILLISECONDS)) {
+				if (ingestCancelled.get()) {
+					scope.shutdownNow(); // interrupts every in-flight child
+				}
+			}
 		}
-		if (!buf.isEmpty() && (threshold == 0 || buf.size() >= threshold)) {
-			sink.accept(List.copyOf(buf));
-			buf.clear();
+	}
+
+	private boolean acquireUnlessCancelled(Semaphore gate) throws InterruptedException {
+		while (!gate.tryAcquire(200, TimeUnit.MILLISECONDS)) {
+			if (ingestCancelled.get())
+				return false;
+		}
+		if (ingestCancelled.get()) {
+			gate.release();
+			return false;
 		}
+		return true;
+	}
+
+	/**
+	 * Async fan-out: no thread is held while a request or a retry delay is
+	 * pending, so {@code maxInflight} alone bounds the load on the provider. Each
+	 * permit is released when its future completes; cancelling the ingest
+	 * cancels whatever is still in flight.
+	 */
+	private void fanOutAsync(Iterable<String> ids, int maxInflight,
+			Function<String, CompletableFuture<Void>> task, IntConsumer progress)
+			throws InterruptedException {
+		final var gate = new Semaphore(maxInflight);
+		final java.util.Set<CompletableFuture<Void>> inflight = ConcurrentHashMap.newKeySet();
+		long lastLog = System.nanoTime();
+		try {
+			for (String id : ids) {
+				if (!acquireUnlessCancelled(gate)) {
+					log.warn("Ingest cancelled; stopping series-info fan-out");
+					break;
+				}
+				CompletableFuture<Void> cf;
+				try {
+					cf = task.apply(id);
+				} catch (RuntimeException e) {
+					gate.release();
+					throw e;
+				}
+				inflight.add(cf);
+				cf.whenComplete((v, e) -> {
+					inflight.remove(cf);
+					gate.release();
+				});
+
+				if (System.nanoTime() - lastLog > TimeUnit.SECONDS.toNanos(2)) {
+					progress.accept(maxInflight - gate.availablePermits());
+					lastLog = System.nanoTime();
+				}
+			}
+			// Every permit back means every future has completed
+			while (!gate.tryAcquire(maxInflight, 500, TimeUnit.MILLISECONDS)) {
+				if (ingestCancelled.get())
+					inflight.forEach(cf -> cf.cancel(true));
+			}
+		} catch (InterruptedException ie) {
+			inflight.forEach(cf -> cf.cancel(true));
+			throw ie;
+		}
+	}
+
+	/**
+	 * Requests cancellation of the running ingest. Fan-out loops stop forking and
+	 * the virtual-thread and async fan-outs stop their in-flight children.
+	 */
+	public void cancelIngest() {
+		ingestCancelled.set(true);
+	}
+
+	/**
+	 * Current adaptive provider concurrency limit and observed latency percentiles.
+	 */
+	public AdaptiveConcurrencyLimiter.Stats getProviderLimiterStats() {
+		return apiClient.getLimiter().stats();
+	}
+
+	/**
+	 * Queue depth and flush latency of the season/episode writers of the current
+	 * (or last) series ingest.
+	 */
+	public List<BatchWriter.Stats> getSeriesWriterStats() {
+		return seriesWriters.stream().map(BatchWriter::stats).toList();
 	}
 
 	@TrackExecutionTime
 	public void fetchOneSeriesInfo(
 			XstreamCredentials creds,
 			String seriesId,
-			Queue<Season> seasonsQ,
-			Queue<Episode> episodesQ,
+			BatchWriter<Season> seasonsOut,
+			BatchWriter<Episode> episodesOut,
 			AtomicInteger okCount,
 			AtomicInteger notFoundCount,
 			AtomicInteger otherErrorCount,
+			int max404Retries,
+			IngestMode mode) {
+		HttpResult r = ProviderApiClient.await(fetchSeriesInfoAsync(creds, seriesId, max404Retries), null);
+		if (r == null)
+			return; // cancelled or interrupted
+		handleSeriesInfo(creds, seriesId, r, seasonsOut, episodesOut, okCount, notFoundCount, otherErrorCount, mode);
+	}
+
+	/**
+	 * Fetches get_series_info for one series. The request jitter and the pause
+	 * before re-trying a 404 are timer delays, not sleeps. Completes with null if
+	 * the ingest is cancelled first.
+	 */
+	CompletableFuture<HttpResult> fetchSeriesInfoAsync(XstreamCredentials creds, String seriesId,
 			int max404Retries) {
 		String url = XtreamCodesUtils.buildEndpointUrl(Constants.SERIES_INFO, creds, seriesId);
-		int attempt = 0;
-		while (attempt <= max404Retries) {
-			try {
-				// Add random jitter to avoid spikes
-				long jitter = ThreadLocalRandom.current().nextLong(50, 200);
-				Thread.sleep(jitter);
-			} catch (InterruptedException ignored) {
-			}
-			HttpResult r = getWithRetry(url, creds, max404Retries);
-			if (r.status == 404) {
-				if (attempt < max404Retries) {
-					try {
-						Thread.sleep(2000);
-					} catch (InterruptedException ignored) {
+		return fetchSeriesInfoAttempt(url, creds, 0, max404Retries);
+	}
+
+	private CompletableFuture<HttpResult> fetchSeriesInfoAttempt(String url, XstreamCredentials creds, int attempt,
+			int max404Retries) {
+		if (ingestCancelled.get())
+			return CompletableFuture.completedFuture(null);
+		// Add random jitter to avoid spikes
+		long jitter = ThreadLocalRandom.current().nextLong(50, 200);
+		return ProviderApiClient.delay(jitter)
+				.thenCompose(v -> apiClient.getAsync(url, creds, max404Retries, ingestCancelled::get))
+				.thenCompose(r -> {
+					if (r.status == 404 && attempt < max404Retries) {
+						return ProviderApiClient.delay(2000)
+								.thenCompose(v -> fetchSeriesInfoAttempt(url, creds, attempt + 1, max404Retries));
 					}
-					attempt++;
-					continue;
-				}
-				knownMissingSeries.add(seriesId);
-				notFoundCount.incrementAndGet();
+					return CompletableFuture.completedFuture(r);
+				});
+	}
+
+	private void handleSeriesInfo(XstreamCredentials creds, String seriesId, HttpResult r,
+			BatchWriter<Season> seasonsOut,
+			BatchWriter<Episode> episodesOut,
+			AtomicInteger okCount,
+			AtomicInteger notFoundCount,
+			AtomicInteger otherErrorCount,
+			IngestMode mode) {
+		if (r == null)
+			return; // cancelled
+		if (r.status == 404) {
+			knownMissingSeries.add(seriesId);
+			missingSeriesDue.remove(seriesId);
+			missingSeriesRegistry.markMissing(creds.getApiUrl(), seriesId, missingSeriesTtlDays);
+			notFoundCount.incrementAndGet();
+			return;
+		}
+		if (!r.is2xx() || r.body == null || r.body.isBlank()) {
+			otherErrorCount.incrementAndGet();
+			return;
+		}
+		if (missingSeriesDue.remove(seriesId)) {
+			// Answered again on re-check
+			missingSeriesRegistry.markFound(creds.getApiUrl(), seriesId);
+		}
+		try {
+			long parseStart = System.nanoTime();
+			SeriesInfoParser.Result parsed = seriesInfoParser.parse(r.body, seriesId);
+			metrics.parse("Series Info", System.nanoTime() - parseStart);
+			if (parsed == null) {
+				okCount.incrementAndGet();
+				markSeriesInfoApplied(seriesId);
 				return;
 			}
-			if (!r.is2xx() || r.body == null || r.body.isBlank()) {
-				otherErrorCount.incrementAndGet();
-				return;
+			List<Season> seasons = parsed.seasons();
+			List<Episode> episodes = parsed.episodes();
+			for (Episode episode : episodes) {
+				deltaSync.stampEpisodeHash(episode);
 			}
-			try {
-				JsonNode root = objectMapper.readTree(r.body);
-				JsonNode episodesNode = root.path("episodes");
-				if (!episodesNode.isObject()) {
-					okCount.incrementAndGet();
-					return;
-				}
-				Iterator<String> seasonFields = episodesNode.fieldNames();
-				while (seasonFields.hasNext()) {
-					String seasonNumRaw = seasonFields.next();
-					String seasonNum = XtreamCodesUtils.sanitizeName(seasonNumRaw);
-					JsonNode arr = episodesNode.get(seasonNumRaw);
-					if (arr == null || !arr.isArray())
-						continue;
-					seasonsQ.add(Season.builder()
-							.seasonId(seasonNum)
-							.seriesId(seriesId)
-							.name("Season " + seasonNum)
-							.build());
-					for (JsonNode ep : arr) {
-						String epNum = ep.has("episode_num")
-								? XtreamCodesUtils.sanitizeName(ep.get("episode_num").asText())
-								: "unknown";
-						String episodeId = ep.has("id") ? ep.get("id").asText() : null;
-						String containerExtension = ep.has("container_extension")
-								? ep.get("container_extension").asText()
-								: "mp4";
-						String directSource = String.format("%s/series/%s/%s/%s.%s",
-								creds.getApiUrl(),
-								creds.getUsername(),
-								creds.getPassword(),
-								episodeId,
-								containerExtension);
-						episodesQ.add(Episode.builder()
-								.episodeId(episodeId)
-								.seriesId(seriesId)
-								.seasonId(seasonNum)
-								.name(ep.has("title") ? ep.get("title").asText() : null)
-								.episodeNum(epNum)
-								.infoJson(ep.toString())
-								.directSource(directSource)
-								.build());
-					}
-				}
-				okCount.incrementAndGet();
-				return;
-			} catch (Exception e) {
-				otherErrorCount.incrementAndGet();
-				return;
+			if (mode == IngestMode.DELTA) {
+				var delta = deltaSync.reconcileSeriesInfo(seriesId, seasons, episodes);
+				seasons = delta.seasonsToSave();
+				episodes = delta.episodesToSave();
 			}
+			expectRows(seriesId, seasons.size() + episodes.size());
+			seasonsOut.putAll(seasons);
+			episodesOut.putAll(episodes);
+			okCount.incrementAndGet();
+		} catch (Exception e) {
+			otherErrorCount.incrementAndGet();
+			if (seriesInfoFailures.getAndIncrement() == 0)
+				firstSeriesInfoFailure = "series " + seriesId + ": " + e;
+			log.debug("Could not process series_info of series {}", seriesId, e);
 		}
 	}
 
-	// ---- Status-aware HTTP with backoff (skips retries on 4xx) ----
-	private HttpResult getWithRetry(String urlStr, XstreamCredentials creds, int maxRetries) {
+	/**
+	 * Registers how many rows of a fetched series the writers still have to
+	 * flush; with nothing to write the series is applied right away.
+	 */
+	private void expectRows(String seriesId, int rows) {
+		if (rows == 0)
+			markSeriesInfoApplied(seriesId);
+		else
+			seriesRowsPending.put(seriesId, new AtomicInteger(rows));
+	}
+
+	/**
+	 * Called by the season/episode writers after each flush.
+	 */
+	private <T> void rowsWritten(List<T> rows, Function<T, String> seriesIdOf) {
+		for (T row : rows) {
+			String seriesId = seriesIdOf.apply(row);
+			AtomicInteger left = seriesRowsPending.get(seriesId);
+			if (left != null && left.decrementAndGet() == 0 && seriesRowsPending.remove(seriesId, left))
+				markSeriesInfoApplied(seriesId);
+		}
+	}
+
+	private void markSeriesInfoApplied(String seriesId) {
+		seriesInfoStates.put(SeriesInfoState.builder()
+				.seriesId(seriesId)
+				.lastModified(seriesListedLastModified.get(seriesId))
+				.appliedAt(java.time.Instant.now())
+				.build());
+	}
+
+	/**
+	 * Closes the season/episode writers, waits for them, then closes the state
+	 * writer they feed.
+	 *
+	 * @return whether every row was written
+	 */
+	private boolean closeSeriesWriters(BatchWriter<Season> seasons, BatchWriter<Episode> episodes,
+			BatchWriter<SeriesInfoState> states) {
+		seasons.close();
+		episodes.close();
+		boolean ok = true;
 		try {
-			// URL url = new URI(urlStr).toURL(); // Removed unused
-			for (int attempt = 0; attempt <= maxRetries; attempt++) {
-				try {
-					HttpRequest request = HttpRequest.newBuilder()
-							.uri(URI.create(urlStr))
-							.timeout(Duration.ofSeconds(30))
-							.GET()
-							.build();
-
-					HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-					if (response.statusCode() == 404) {
-						log.warn("404 Not Found for URL: {} | user: {} | attempt: {}", urlStr, creds.getUsername(),
-								attempt);
-						return new HttpResult(404, null); // hard miss, don't retry
-					}
-					if (response.statusCode() >= 200 && response.statusCode() < 300)
-						return new HttpResult(response.statusCode(), response.body()); // success
+			try {
+				CompletableFuture.allOf(seasons.completion(), episodes.completion()).get();
+			} catch (java.util.concurrent.ExecutionException e) {
+				ok = false;
+				log.warn("Season/episode writer failed; affected series will be fetched again next run", e.getCause());
+			}
+			states.close();
+			states.completion().get();
+		} catch (InterruptedException ie) {
+			states.close();
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (java.util.concurrent.ExecutionException e) {
+			log.warn("Series info state writer failed", e.getCause());
+			return false;
+		}
+		return ok;
+	}
 
-					if (response.statusCode() >= 400 && response.statusCode() < 500) {
-						log.warn("{} Client Error for URL: {} | user: {} | attempt: {}", response.statusCode(), urlStr,
-								creds.getUsername(), attempt);
-						return new HttpResult(response.statusCode(), null); // other client errors: no retry
-					}
-					// 5xx or weird -> retry
-				} catch (InterruptedException ie) {
-					Thread.currentThread().interrupt();
-					throw ie;
-				} catch (IOException io) {
-					// network issue -> retry
-				} catch (Exception ex) {
-					// transient -> retry
-				}
-				long jitter = RAND.nextLong(50, 150);
-				long sleepMs = Math.min((long) (BASE_BACKOFF.toMillis() * Math.pow(2, attempt)) + jitter, 4000);
-				try {
-					Thread.sleep(sleepMs);
-				} catch (InterruptedException ignored) {
-					Thread.currentThread().interrupt();
+	/**
+	 * Reads a JSON array element by element, handing fixed-size batches to
+	 * {@code sink}. The full list is never materialized, so heap use does not
+	 * grow with the catalog.
+	 *
+	 * @return number of elements read
+	 */
+	static <T> long readArrayInBatches(InputStream in, ObjectReader elementReader, Class<T> type, int batchSize,
+			Consumer<? super List<T>> sink) throws IOException {
+		int size = Math.max(1, batchSize);
+		long count = 0;
+		try (JsonParser parser = elementReader.getFactory().createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				// Panels answer an empty catalog with {} or null instead of []
+				return 0;
+			}
+			List<T> batch = new ArrayList<>(size);
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				batch.add(type.cast(elementReader.readValue(parser)));
+				count++;
+				if (batch.size() >= size) {
+					sink.accept(batch);
+					batch = new ArrayList<>(size);
 				}
 			}
-		} catch (Exception e) {
-			// bad URL
+			if (!batch.isEmpty()) {
+				sink.accept(batch);
+			}
 		}
-		return new HttpResult(599, null); // network/unknown
+		return count;
 	}
 
 	public Page<MovieStream> getMoviesByCategory(String categoryId, int page, int size, String letter) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-
-		Specification<MovieStream> spec = StreamSpecifications.<MovieStream>hasCategoryId(categoryId)
-				.and(StreamSpecifications.isIncluded(includedSet))
-				.and(StreamSpecifications.nameStartsWith(letter));
-
-		PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "name"));
-
-		return movieStreamRepository.findAll(spec, pageRequest)
-				.map(m -> {
-					m.setName(XtreamCodesUtils.cleanTitle(m.getName()));
-					return m;
-				});
+		return categoryPage(catalog.current().movies(categoryId), MovieStream::getPreface,
+				MovieStream::getFirstLetter, includedSet, letter, page, size)
+				.map(JsonService::withCleanName);
 	}
 
+	/**
+	 * Starting letters of the movies a category page can show, from the stored
+	 * first letter of each clean title.
+	 */
 	public List<String> getAvailableStartingLetters(String categoryId) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		List<MovieStream> movies = movieStreamRepository.findByCategoryId(categoryId);
-		java.util.Set<String> letters = new java.util.TreeSet<>();
-		for (MovieStream movie : movies) {
-			String title = XtreamCodesUtils.cleanTitle(movie.getName());
-			if (!title.isEmpty()) {
-				String first = title.substring(0, 1).toUpperCase();
-				if (includedSet.contains(first)) {
-					letters.add(first);
-				}
-			}
-		}
-		return new ArrayList<>(letters);
+		return startingLetters(catalog.current().movies(categoryId), MovieStream::getPreface,
+				MovieStream::getFirstLetter, includedSet);
 	}
 
 	public List<LiveCategory> getAllLiveCategories() {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		List<LiveCategory> all = liveCategoryRepository.findAll();
+		List<LiveCategory> all = catalog.current().liveCategories();
 		List<LiveCategory> filtered = all.stream()
 				.filter(cat -> XtreamCodesUtils.isIncluded(cat.getCategoryName(), includedSet))
-				.sorted(java.util.Comparator.comparing(LiveCategory::getCategoryName, String.CASE_INSENSITIVE_ORDER))
 				.toList();
 		log.info("getAllLiveCategories: found {}, filtered to {} (includedSet: {})", all.size(), filtered.size(),
 				includedSet);
@@ -623,17 +1349,18 @@ public class JsonService {
 
 	public List<LiveStream> getLiveStreamsByCategory(String categoryId) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		return liveStreamRepository.findByCategoryId(categoryId).stream()
+		return catalog.current().liveStreams(categoryId).stream()
 				.filter(s -> XtreamCodesUtils.isIncluded(s.getName(), includedSet))
+				// Copies: callers fill in the playable URL
+				.map(s -> s.toBuilder().build())
 				.toList();
 	}
 
 	public List<MovieCategory> getAllMovieCategories() {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		List<MovieCategory> all = movieCategoryRepository.findAll();
+		List<MovieCategory> all = catalog.current().movieCategories();
 		List<MovieCategory> filtered = all.stream()
 				.filter(cat -> XtreamCodesUtils.isIncluded(cat.getCategoryName(), includedSet))
-				.sorted(java.util.Comparator.comparing(MovieCategory::getCategoryName, String.CASE_INSENSITIVE_ORDER))
 				.toList();
 		log.info("getAllMovieCategories: found {}, filtered to {} (includedSet: {})", all.size(), filtered.size(),
 				includedSet);
@@ -642,18 +1369,17 @@ public class JsonService {
 
 	public List<MovieStream> getMoviesByCategory(String categoryId) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		return movieStreamRepository.findByCategoryId(categoryId).stream()
+		return catalog.current().movies(categoryId).stream()
 				.filter(m -> XtreamCodesUtils.isIncluded(m.getName(), includedSet))
-				.peek(m -> m.setName(XtreamCodesUtils.cleanTitle(m.getName())))
+				.map(JsonService::withCleanName)
 				.toList();
 	}
 
 	public List<SeriesCategory> getAllSeriesCategories() {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		List<SeriesCategory> all = seriesCategoryRepository.findAll();
+		List<SeriesCategory> all = catalog.current().seriesCategories();
 		List<SeriesCategory> filtered = all.stream()
 				.filter(cat -> XtreamCodesUtils.isIncluded(cat.getCategoryName(), includedSet))
-				.sorted(java.util.Comparator.comparing(SeriesCategory::getCategoryName, String.CASE_INSENSITIVE_ORDER))
 				.toList();
 		log.info("getAllSeriesCategories: found {}, filtered to {} (includedSet: {})", all.size(), filtered.size(),
 				includedSet);
@@ -662,7 +1388,7 @@ public class JsonService {
 
 	public List<Series> getSeriesByCategory(String categoryId) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		return seriesRepository.findByCategoryId(categoryId).stream()
+		return catalog.current().series(categoryId).stream()
 				.filter(s -> XtreamCodesUtils.isIncluded(s.getName(), includedSet))
 				.toList();
 	}
@@ -670,34 +1396,65 @@ public class JsonService {
 	public org.springframework.data.domain.Page<Series> getSeriesByCategory(String categoryId, int page, int size,
 			String letter) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-
-		Specification<Series> spec = StreamSpecifications.<Series>hasCategoryId(categoryId)
-				.and(StreamSpecifications.isIncluded(includedSet))
-				.and(StreamSpecifications.nameStartsWith(letter));
-
-		PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "name"));
-
-		return seriesRepository.findAll(spec, pageRequest);
+		return categoryPage(catalog.current().series(categoryId), Series::getPreface, Series::getFirstLetter,
+				includedSet, letter, page, size);
 	}
 
 	public java.util.List<String> getAvailableSeriesStartingLetters(String categoryId) {
 		java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
-		java.util.List<Series> seriesList = seriesRepository.findByCategoryId(categoryId);
-		java.util.Set<String> letters = new java.util.TreeSet<>();
-		for (Series s : seriesList) {
-			String cleaned = com.hawkins.xtreamjson.util.XtreamCodesUtils.cleanTitle(s.getName());
-			if (!cleaned.isEmpty()) {
-				String first = cleaned.substring(0, 1).toUpperCase();
-				if (includedSet.contains(first)) {
-					letters.add(first);
-				}
+		return startingLetters(catalog.current().series(categoryId), Series::getPreface, Series::getFirstLetter,
+				includedSet);
+	}
+
+	public List<Season> getSeasonsBySeries(String seriesId) {
+		return catalog.current().seasons(seriesId);
+	}
+
+	/**
+	 * One page of a category, which the snapshot keeps in name order: rows
+	 * with an included preface (or none) whose clean title starts with
+	 * {@code letter}, if one is selected.
+	 */
+	private static <T> Page<T> categoryPage(List<T> rows, Function<T, String> preface,
+			Function<T, String> firstLetter, java.util.Set<String> includedSet, String letter, int page, int size) {
+		PageRequest pageRequest = PageRequest.of(page, size);
+		String wanted = letter == null || letter.isEmpty() ? null : XtreamCodesUtils.firstLetter(letter);
+		List<T> matching = rows;
+		if (!includedSet.isEmpty() || wanted != null) {
+			matching = new ArrayList<>();
+			for (T row : rows) {
+				if (hasIncludedPreface(preface.apply(row), includedSet)
+						&& (wanted == null || wanted.equals(firstLetter.apply(row))))
+					matching.add(row);
 			}
 		}
-		return new java.util.ArrayList<>(letters);
+		int from = (int) Math.min(pageRequest.getOffset(), matching.size());
+		int to = Math.min(from + size, matching.size());
+		return new PageImpl<>(matching.subList(from, to), pageRequest, matching.size());
 	}
 
-	public List<Season> getSeasonsBySeries(String seriesId) {
-		return seasonRepository.findBySeriesId(seriesId);
+	private static <T> List<String> startingLetters(List<T> rows, Function<T, String> preface,
+			Function<T, String> firstLetter, java.util.Set<String> includedSet) {
+		java.util.TreeSet<String> letters = new java.util.TreeSet<>();
+		for (T row : rows) {
+			String l = firstLetter.apply(row);
+			if (l != null && hasIncludedPreface(preface.apply(row), includedSet))
+				letters.add(l);
+		}
+		return new ArrayList<>(letters);
+	}
+
+	// StreamSpecifications.isIncluded on the stored preface
+	private static boolean hasIncludedPreface(String preface, java.util.Set<String> includedSet) {
+		return includedSet.isEmpty() || preface == null || includedSet.contains(preface);
+	}
+
+	/**
+	 * A copy of {@code m} named by its clean title; the snapshot's row keeps
+	 * the provider name.
+	 */
+	private static MovieStream withCleanName(MovieStream m) {
+		return m.toBuilder().name(XtreamCodesUtils.cleanTitle(m.getName())).build();
 	}
 
 	public List<Episode> getEpisodesBySeason(String seasonId) {
@@ -705,59 +1462,57 @@ public class JsonService {
 	}
 
 	// --- search helpers ---
+	// Most rows one title search returns
+	private static final int SEARCH_LIMIT = 100;
 	private static final java.util.regex.Pattern YEAR_ONLY = java.util.regex.Pattern.compile("^\\d{4}$");
-	private static final java.util.regex.Pattern YEAR_IN_TITLE = java.util.regex.Pattern
-			.compile("(?:\\(|\\[|\\s)(19\\d{2}|20\\d{2})(?:\\)|\\]|\\s|$)");
 
 	private static boolean isYearQuery(String q) {
 		return q != null && YEAR_ONLY.matcher(q.trim()).matches();
 	}
 
-	private static String extractYearFromTitle(String title) {
-		if (title == null)
-			return null;
-		var m = YEAR_IN_TITLE.matcher(title);
-		return m.find() ? m.group(1) : null;
-	}
-
 	public List<MovieStream> searchMoviesByTitle(String q) {
 		if (q == null || q.isBlank())
 			return List.of();
 		try {
 			String query = q.trim();
-			// MovieStream doesn't store a release date/year, so for year-only search we do a
-			// best-effort filter based on a year token in the title.
-			if (isYearQuery(query)) {
-				List<MovieStream> candidates = movieStreamRepository.searchByNameContaining(query);
-				List<MovieStream> filtered = new java.util.ArrayList<>();
-				for (MovieStream m : candidates) {
-					String year = extractYearFromTitle(m.getName());
-					if (query.equals(year)) {
-						m.setName(XtreamCodesUtils.cleanTitle(m.getName()));
-						filtered.add(m);
-					}
-				}
-				return filtered;
-			}
-
-			List<MovieStream> results = movieStreamRepository.searchByNameContaining(query);
-			results.forEach(m -> m.setName(XtreamCodesUtils.cleanTitle(m.getName())));
-			return results;
+			CatalogSnapshot snapshot = catalog.current();
+			// Providers give no movie release date; the year is the one written in the
+			// title, stored at ingest.
+			List<MovieStream> results = isYearQuery(query)
+					? first(snapshot.moviesOfYear(query), SEARCH_LIMIT)
+					: inRankOrder(titleSearch.searchMovies(query, SEARCH_LIMIT), snapshot::movie);
+			return results.stream().map(JsonService::withCleanName).toList();
 		} catch (Exception e) {
 			log.warn("searchMoviesByTitle failed for '{}': {}", q, e.getMessage());
 			return List.of();
 		}
 	}
 
+	/**
+	 * The rows of ranked ids, best first. Right after a publish the index can
+	 * still list an id the snapshot no longer has; it is skipped.
+	 */
+	private static <T> List<T> inRankOrder(List<Integer> ids, java.util.function.IntFunction<Optional<T>> lookup) {
+		List<T> ranked = new ArrayList<>(ids.size());
+		for (int id : ids)
+			lookup.apply(id).ifPresent(ranked::add);
+		return ranked;
+	}
+
+	private static <T> List<T> first(List<T> rows, int limit) {
+		return rows.subList(0, Math.min(limit, rows.size()));
+	}
+
 	public List<Series> searchSeriesByTitle(String q) {
 		if (q == null || q.isBlank())
 			return List.of();
 		try {
 			String query = q.trim();
+			CatalogSnapshot snapshot = catalog.current();
 			if (isYearQuery(query)) {
-				return seriesRepository.searchByReleaseYear(query);
+				return first(snapshot.seriesOfYear(query), SEARCH_LIMIT);
 			}
-			return seriesRepository.searchByNameContaining(query);
+			return inRankOrder(titleSearch.searchSeries(query, SEARCH_LIMIT), snapshot::series);
 		} catch (Exception e) {
 			log.warn("searchSeriesByTitle failed for '{}': {}", q, e.getMessage());
 			return List.of();
@@ -0,0 +1,162 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.UnaryOperator;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.hawkins.xtreamjson.util.CompressionUtils;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Brings catalog tables written by older versions in line with this one.
+ * Schema updates only ever add columns, so without this the contents of
+ * dropped mappings would stay in the database file and new derived columns
+ * would stay empty until each row changes. Each step only touches what is
+ * left to do, so once done it does nothing.
+ * <ul>
+ * <li>{@code episode.info_json}: moved gzipped into {@code episode_info}.</li>
+ * <li>{@code direct_source} of episodes, live and movie streams: URLs are built
+ * on read now. Episodes keep the container extension taken from it.</li>
+ * <li>Title fields of movies and series (clean title, preface, first letter,
+ * year): computed for rows stored before they existed.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class LegacyColumnMigration {
+
+    private static final int BATCH = 500;
+
+    private final DataSource dataSource;
+
+    public LegacyColumnMigration(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Ahead of the other startup listeners, which read the migrated tables
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrate() {
+        try (Connection c = dataSource.getConnection()) {
+            if (hasColumn(c, "EPISODE", "INFO_JSON")) {
+                moveEpisodeInfo(c);
+            }
+            if (hasColumn(c, "EPISODE", "DIRECT_SOURCE")) {
+                try (Statement s = c.createStatement()) {
+                    int filled = s.executeUpdate("UPDATE PUBLIC.EPISODE SET CONTAINER_EXTENSION ="
+                            + " SUBSTRING(DIRECT_SOURCE FROM LOCATE('.', DIRECT_SOURCE, -1) + 1)"
+                            + " WHERE CONTAINER_EXTENSION IS NULL AND LOCATE('.', DIRECT_SOURCE, -1) > 0");
+                    log.info("Took the container extension of {} episodes from their stored URL", filled);
+                }
+            }
+            for (String table : new String[] { "EPISODE", "LIVE_STREAM", "MOVIE_STREAM" }) {
+                if (hasColumn(c, table, "DIRECT_SOURCE")) {
+                    try (Statement s = c.createStatement()) {
+                        s.execute("ALTER TABLE PUBLIC." + table + " DROP COLUMN DIRECT_SOURCE");
+                    }
+                    log.info("Dropped stored stream URLs from {}", table);
+                }
+            }
+            fillTitleFields(c, "MOVIE_STREAM", "STREAM_ID", "NAME", XtreamCodesUtils::extractYear);
+            fillTitleFields(c, "SERIES", "SERIES_ID", "RELEASE_DATE", XtreamCodesUtils::leadingYear);
+        } catch (SQLException e) {
+            log.warn("Could not migrate legacy catalog columns: {}", e.getMessage());
+        }
+    }
+
+    private static void moveEpisodeInfo(Connection c) throws SQLException {
+        long start = System.nanoTime();
+        int moved = 0;
+        c.setAutoCommit(false);
+        try (Statement s = c.createStatement();
+                PreparedStatement merge = c.prepareStatement("MERGE INTO PUBLIC.EPISODE_INFO"
+                        + " (EPISODE_ID, SERIES_ID, DATA) KEY (EPISODE_ID) VALUES (?, ?, ?)")) {
+            try (ResultSet rs = s.executeQuery("SELECT EPISODE_ID, SERIES_ID, INFO_JSON FROM PUBLIC.EPISODE"
+                    + " WHERE EPISODE_ID IS NOT NULL AND INFO_JSON IS NOT NULL")) {
+                while (rs.next()) {
+                    merge.setString(1, rs.getString(1));
+                    merge.setString(2, rs.getString(2));
+                    merge.setBytes(3, CompressionUtils.gzip(rs.getString(3)));
+                    merge.addBatch();
+                    if (++moved % BATCH == 0) {
+                        merge.executeBatch();
+                    }
+                }
+            }
+            merge.executeBatch();
+            s.execute("ALTER TABLE PUBLIC.EPISODE DROP COLUMN INFO_JSON");
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        log.info("Moved {} episode payloads to EPISODE_INFO in {} ms", moved,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Same derivation as the entities' {@code deriveTitleFields}, for rows
+     * without a clean title yet.
+     */
+    private static void fillTitleFields(Connection c, String table, String idColumn, String yearSource,
+            UnaryOperator<String> year) throws SQLException {
+        int filled = 0;
+        c.setAutoCommit(false);
+        try (Statement s = c.createStatement();
+                PreparedStatement update = c.prepareStatement("UPDATE PUBLIC." + table + " SET CLEAN_TITLE = ?,"
+                        + " PREFACE = ?, FIRST_LETTER = ?, RELEASE_YEAR = ? WHERE " + idColumn + " = ?")) {
+            try (ResultSet rs = s.executeQuery("SELECT " + idColumn + ", NAME, " + yearSource + " FROM PUBLIC."
+                    + table + " WHERE CLEAN_TITLE IS NULL AND NAME IS NOT NULL")) {
+                while (rs.next()) {
+                    String name = rs.getString(2);
+                    String cleanTitle = XtreamCodesUtils.cleanTitle(name);
+                    update.setString(1, cleanTitle);
+                    update.setString(2, XtreamCodesUtils.extractPreface(name));
+                    update.setString(3, XtreamCodesUtils.firstLetter(cleanTitle));
+                    update.setString(4, year.apply(rs.getString(3)));
+                    update.setInt(5, rs.getInt(1));
+                    update.addBatch();
+                    if (++filled % BATCH == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        if (filled > 0) {
+            log.info("Filled title fields of {} {} rows", filled, table);
+        }
+    }
+
+    private static boolean hasColumn(Connection c, String table, String column) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS"
+                + " WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
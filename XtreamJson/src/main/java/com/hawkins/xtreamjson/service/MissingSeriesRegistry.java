@@ -0,0 +1,101 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.data.MissingSeries;
+import com.hawkins.xtreamjson.repository.MissingSeriesRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persistent registry of series that answer 404 on get_series_info, so they
+ * are skipped across runs and restarts instead of being re-probed every night.
+ * <p>
+ * Each entry is re-checked once its TTL has passed. Every further confirmed
+ * 404 doubles the wait, up to {@link #MAX_TTL_MULTIPLIER} times the TTL, and a
+ * random ±{@link #JITTER} spreads re-checks over several runs rather than
+ * letting a whole batch expire together. A series that answers again is
+ * removed.
+ */
+@Slf4j
+@Service
+public class MissingSeriesRegistry {
+
+    static final int MAX_TTL_MULTIPLIER = 4;
+    static final double JITTER = 0.2;
+
+    private final MissingSeriesRepository repository;
+
+    public MissingSeriesRegistry(MissingSeriesRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Series ids of one provider, split into those still within their TTL
+     * (skip) and those due for re-verification (probe once more).
+     */
+    public record Entries(Set<String> active, Set<String> due) {
+    }
+
+    public Entries load(String apiUrl) {
+        Instant now = Instant.now();
+        Set<String> active = new HashSet<>();
+        Set<String> due = new HashSet<>();
+        for (MissingSeries m : repository.findByIdStartingWith(keyPrefix(apiUrl))) {
+            if (m.getRecheckAfter() != null && m.getRecheckAfter().isAfter(now))
+                active.add(m.getSeriesId());
+            else
+                due.add(m.getSeriesId());
+        }
+        log.info("Known missing series: {} skipped, {} due for re-check", active.size(), due.size());
+        return new Entries(active, due);
+    }
+
+    /**
+     * Records a confirmed 404 and schedules the next re-check.
+     */
+    public void markMissing(String apiUrl, String seriesId, int ttlDays) {
+        Instant now = Instant.now();
+        String id = keyPrefix(apiUrl) + seriesId;
+        try {
+            MissingSeries m = repository.findById(id).orElseGet(() -> MissingSeries.builder()
+                    .id(id).seriesId(seriesId).firstMissingAt(now).build());
+            m.setConfirmations(m.getConfirmations() + 1);
+            m.setLastVerifiedAt(now);
+            m.setRecheckAfter(now.plus(nextTtl(ttlDays, m.getConfirmations())));
+            repository.save(m);
+        } catch (Exception e) {
+            // Worst case the series is probed again next run
+            log.warn("Could not record missing series {}: {}", seriesId, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops a series that answered again on re-check.
+     */
+    public void markFound(String apiUrl, String seriesId) {
+        try {
+            repository.deleteById(keyPrefix(apiUrl) + seriesId);
+        } catch (Exception e) {
+            log.warn("Could not clear missing series {}: {}", seriesId, e.getMessage());
+        }
+    }
+
+    static Duration nextTtl(int ttlDays, int confirmations) {
+        // 1x, 2x, 4x ... the TTL, capped
+        long multiplier = Math.min(1L << Math.min(Math.max(confirmations - 1, 0), 30), MAX_TTL_MULTIPLIER);
+        double jitter = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        long seconds = (long) (Duration.ofDays(Math.max(ttlDays, 0)).toSeconds() * multiplier * jitter);
+        return Duration.ofSeconds(seconds);
+    }
+
+    private static String keyPrefix(String apiUrl) {
+        return apiUrl + "#";
+    }
+}
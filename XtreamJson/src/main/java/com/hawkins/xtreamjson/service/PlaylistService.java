@@ -25,12 +25,14 @@ public class PlaylistService {
     private final LiveCategoryRepository liveCategoryRepository;
     private final LiveStreamRepository liveStreamRepository;
     private final ApplicationPropertiesService applicationPropertiesService;
+    private final StreamUrlResolver urlResolver;
 
     public PlaylistService(LiveCategoryRepository liveCategoryRepository, LiveStreamRepository liveStreamRepository,
-            ApplicationPropertiesService applicationPropertiesService) {
+            ApplicationPropertiesService applicationPropertiesService, StreamUrlResolver urlResolver) {
         this.liveCategoryRepository = liveCategoryRepository;
         this.liveStreamRepository = liveStreamRepository;
         this.applicationPropertiesService = applicationPropertiesService;
+        this.urlResolver = urlResolver;
     }
 
     public void generateFullLibraryPlaylist() {
@@ -38,6 +40,7 @@ public class PlaylistService {
         log.info("Generating full library playlist...");
         StringBuilder playlist = new StringBuilder("#EXTM3U\n");
         AtomicInteger counter = new AtomicInteger(1);
+        StreamUrlResolver.Urls urls = urlResolver.forSelectedProvider();
 
         java.util.Set<String> includedSet = XtreamCodesUtils.getIncludedCountriesSet(applicationPropertiesService);
 
@@ -91,7 +94,7 @@ public class PlaylistService {
                             .append("group-title=\"").append(category.getCategoryName()).append("\", ")
                             .append(displayTitle)
                             .append("\n")
-                            .append(stream.getDirectSource())
+                            .append(urls.live(stream.getStreamId()))
                             .append("\n");
                 }
             }
@@ -0,0 +1,363 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.service.AdaptiveConcurrencyLimiter.Outcome;
+import com.hawkins.xtreamjson.util.XstreamCredentials;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking HTTP access to the Xtream provider API. Requests go through
+ * {@link HttpClient#sendAsync} and retries are scheduled on a timer instead of
+ * sleeping, so no thread is parked while a request or a backoff is pending.
+ * Blocking callers use the synchronous wrappers, which simply wait on the
+ * async pipeline.
+ * <p>
+ * Every request, retries included, takes a permit from an
+ * {@link AdaptiveConcurrencyLimiter}, so the panel sees at most the current
+ * adaptive limit of concurrent requests whichever section issued them.
+ * <p>
+ * Bodies are requested compressed (see {@link ContentDecoding}); the wire and
+ * decoded sizes are totalled per endpoint for the ingest log.
+ */
+@Slf4j
+@Service
+public class ProviderApiClient {
+
+    private static final Duration BASE_BACKOFF = Duration.ofMillis(250);
+    private static final long MAX_BACKOFF_MS = 4000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int DEFAULT_INITIAL_LIMIT = 8;
+    private static final int MAX_LIMIT = 128;
+
+    private final HttpClient httpClient;
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(DEFAULT_INITIAL_LIMIT, 1,
+            MAX_LIMIT);
+    private final IngestMetrics metrics;
+    private final Map<String, TransferTotals> transfers = new ConcurrentHashMap<>();
+    private volatile ResponseArchive archive;
+
+    public ProviderApiClient(IngestMetrics metrics) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.metrics = metrics;
+        metrics.gauge("xtream.ingest.http.limit", limiter::getLimit);
+        metrics.gauge("xtream.ingest.http.inflight", () -> limiter.stats().inflight());
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Per-endpoint transfer totals since the last {@link #resetTransfers()}.
+     */
+    static final class TransferTotals {
+        private final Map<String, LongAdder> responses = new ConcurrentHashMap<>();
+        private final LongAdder wire = new LongAdder();
+        private final LongAdder decoded = new LongAdder();
+
+        void add(ContentDecoding.Transfer t) {
+            responses.computeIfAbsent(t.encoding(), e -> new LongAdder()).increment();
+            wire.add(t.wireBytes());
+            decoded.add(t.decodedBytes());
+        }
+
+        @Override
+        public String toString() {
+            Map<String, Long> byEncoding = new TreeMap<>();
+            responses.forEach((encoding, n) -> byEncoding.put(encoding, n.sum()));
+            return new ContentDecoding.Transfer(String.valueOf(byEncoding), wire.sum(), decoded.sum()).toString();
+        }
+    }
+
+    /**
+     * Records responses to, or replays them from, {@code archive} until reset
+     * to null.
+     */
+    public void useArchive(ResponseArchive archive) {
+        this.archive = archive;
+    }
+
+    public void resetTransfers() {
+        transfers.clear();
+    }
+
+    /**
+     * Per endpoint: responses per encoding, wire and decoded bytes and the
+     * compression ratio.
+     */
+    public Map<String, String> transferStats() {
+        Map<String, String> stats = new TreeMap<>();
+        transfers.forEach((endpoint, totals) -> stats.put(endpoint, totals.toString()));
+        return stats;
+    }
+
+    /**
+     * Handler for a streamed, decoded response body from {@code urlStr}.
+     */
+    ContentDecoding.Handler<InputStream> ofInputStream(String urlStr) {
+        return ContentDecoding.ofInputStream(t -> transferred(urlStr, t));
+    }
+
+    private void transferred(String urlStr, ContentDecoding.Transfer transfer) {
+        String endpoint = IngestMetrics.endpointOf(urlStr);
+        metrics.bytes(urlStr, transfer.wireBytes());
+        transfers.computeIfAbsent(endpoint, e -> new TransferTotals()).add(transfer);
+        // Section payloads are worth a line each; series_info would flood the log
+        if (transfer.decodedBytes() >= 1024 * 1024)
+            log.info("{}: {}", endpoint, transfer);
+        else
+            log.debug("{}: {}", endpoint, transfer);
+    }
+
+    // Status-aware HTTP result
+    static final class HttpResult {
+        final int status;
+        final String body;
+        final HttpHeaders headers; // null when no response arrived
+
+        HttpResult(int status, String body) {
+            this(status, body, null);
+        }
+
+        HttpResult(int status, String body, HttpHeaders headers) {
+            this.status = status;
+            this.body = body;
+            this.headers = headers;
+        }
+
+        boolean is2xx() {
+            return status >= 200 && status < 300;
+        }
+
+        boolean isNotModified() {
+            return status == 304;
+        }
+    }
+
+    /**
+     * Blocking GET with retry; see {@link #getAsync}.
+     */
+    HttpResult getWithRetry(String urlStr, XstreamCredentials creds, int maxRetries) {
+        return getWithRetry(urlStr, creds, maxRetries, Map.of());
+    }
+
+    /**
+     * Blocking GET with retry and extra request headers; see {@link #getAsync}.
+     */
+    HttpResult getWithRetry(String urlStr, XstreamCredentials creds, int maxRetries, Map<String, String> headers) {
+        return await(getAsync(urlStr, creds, maxRetries, headers, () -> false), new HttpResult(599, null));
+    }
+
+    /**
+     * Blocking send with retry; see {@link #sendAsyncWithRetry}.
+     */
+    <T> HttpResponse<T> sendWithRetry(String urlStr, XstreamCredentials creds, int maxRetries,
+            HttpResponse.BodyHandler<T> bodyHandler) {
+        return await(sendAsyncWithRetry(urlStr, creds, maxRetries, bodyHandler, () -> false), null);
+    }
+
+    /**
+     * GET a provider endpoint as a string. 404/4xx and exhausted retries are
+     * reported through the status (599 for network/unknown) rather than
+     * exceptionally, so callers can compose on the result directly.
+     */
+    CompletableFuture<HttpResult> getAsync(String urlStr, XstreamCredentials creds, int maxRetries,
+            BooleanSupplier cancelled) {
+        return getAsync(urlStr, creds, maxRetries, Map.of(), cancelled);
+    }
+
+    /**
+     * As {@link #getAsync(String, XstreamCredentials, int, BooleanSupplier)},
+     * sending {@code headers} with every attempt (e.g. conditional-request
+     * validators, answered with a 304 result).
+     */
+    CompletableFuture<HttpResult> getAsync(String urlStr, XstreamCredentials creds, int maxRetries,
+            Map<String, String> headers, BooleanSupplier cancelled) {
+        return sendAsyncWithRetry(urlStr, creds, maxRetries, ContentDecoding.ofString(t -> transferred(urlStr, t)),
+                headers, cancelled)
+                .thenApply(response -> {
+                    if (response == null)
+                        return new HttpResult(599, null); // network/unknown
+                    if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                        return new HttpResult(response.statusCode(), response.body(), response.headers()); // success
+                    }
+                    return new HttpResult(response.statusCode(), null, response.headers());
+                });
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsyncWithRetry(String urlStr, XstreamCredentials creds,
+            int maxRetries, HttpResponse.BodyHandler<T> bodyHandler, BooleanSupplier cancelled) {
+        return sendAsyncWithRetry(urlStr, creds, maxRetries, bodyHandler, Map.of(), cancelled);
+    }
+
+    /**
+     * Sends a GET, retrying 5xx and network failures with exponential backoff
+     * scheduled on a timer; 429 is retried the same way. Completes with the
+     * response for 2xx, 304 and 4xx (4xx are not retried; their body is
+     * discarded), or with null when every attempt failed or {@code cancelled}
+     * became true between attempts.
+     */
+    <T> CompletableFuture<HttpResponse<T>> sendAsyncWithRetry(String urlStr, XstreamCredentials creds,
+            int maxRetries, HttpResponse.BodyHandler<T> bodyHandler, Map<String, String> headers,
+            BooleanSupplier cancelled) {
+        final HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(URI.create(urlStr))
+                    .timeout(REQUEST_TIMEOUT)
+                    .GET();
+            ResponseArchive current = archive;
+            headers.forEach((name, value) -> {
+                // A recording needs full bodies, not 304s
+                if (current == null || current.isReplay() || !name.startsWith("If-"))
+                    builder.header(name, value);
+            });
+            if (bodyHandler instanceof ContentDecoding.Handler && !headers.containsKey("Accept-Encoding"))
+                builder.header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING);
+            request = builder.build();
+        } catch (Exception e) {
+            // bad URL
+            return CompletableFuture.completedFuture(null);
+        }
+        return attempt(request, creds, 0, maxRetries, bodyHandler, cancelled);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> attempt(HttpRequest request, XstreamCredentials creds,
+            int attempt, int maxRetries, HttpResponse.BodyHandler<T> bodyHandler, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean())
+            return CompletableFuture.completedFuture(null);
+        return limiter.acquire()
+                .thenCompose(permit -> {
+                    if (cancelled.getAsBoolean()) {
+                        // cancelled while queued for a permit
+                        permit.release(Outcome.IGNORE);
+                        return CompletableFuture.<HttpResponse<T>>failedFuture(new CancellationException());
+                    }
+                    long start = System.nanoTime();
+                    return send(request, bodyHandler)
+                            .whenComplete((response, failure) -> {
+                                permit.release(outcomeOf(response, failure));
+                                metrics.request(request.uri(), response, failure, System.nanoTime() - start);
+                            });
+                })
+                .handle((response, failure) -> {
+                    if (failure != null && cancelled.getAsBoolean())
+                        return CompletableFuture.<HttpResponse<T>>completedFuture(null);
+                    if (failure == null) {
+                        int status = response.statusCode();
+                        if (status >= 200 && status < 300)
+                            return CompletableFuture.completedFuture(response); // success
+
+                        discardBody(response);
+                        if (status == 304)
+                            return CompletableFuture.completedFuture(response); // validators matched
+                        if (status == 404) {
+                            log.warn("404 Not Found for URL: {} | user: {} | attempt: {}", request.uri(),
+                                    creds.getUsername(), attempt);
+                            return CompletableFuture.completedFuture(response); // hard miss, don't retry
+                        }
+                        if (status >= 400 && status < 500 && status != 429) {
+                            log.warn("{} Client Error for URL: {} | user: {} | attempt: {}", status, request.uri(),
+                                    creds.getUsername(), attempt);
+                            return CompletableFuture.completedFuture(response); // other client errors: no retry
+                        }
+                        // 5xx, 429 or weird -> retry
+                    }
+                    // network issue / transient -> retry
+                    if (attempt >= maxRetries)
+                        return CompletableFuture.<HttpResponse<T>>completedFuture(null);
+                    metrics.retry(request.uri());
+                    long jitter = ThreadLocalRandom.current().nextLong(50, 150);
+                    long sleepMs = Math.min((long) (BASE_BACKOFF.toMillis() * Math.pow(2, attempt)) + jitter,
+                            MAX_BACKOFF_MS);
+                    return delay(sleepMs)
+                            .thenCompose(v -> attempt(request, creds, attempt + 1, maxRetries, bodyHandler, cancelled));
+                })
+                .thenCompose(f -> f);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        ResponseArchive current = archive;
+        if (current == null)
+            return httpClient.sendAsync(request, handler);
+        if (current.isReplay())
+            return current.replay(request, handler);
+        return httpClient.sendAsync(request, current.recording(request.uri(), handler));
+    }
+
+    /**
+     * Congestion signal for the limiter: 5xx, 429 and timeouts/network failures
+     * count as drops.
+     */
+    static Outcome outcomeOf(HttpResponse<?> response, Throwable failure) {
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure;
+            return cause instanceof HttpTimeoutException || cause instanceof IOException ? Outcome.DROPPED
+                    : Outcome.IGNORE;
+        }
+        int status = response.statusCode();
+        return status == 429 || status >= 500 ? Outcome.DROPPED : Outcome.SUCCESS;
+    }
+
+    /**
+     * Completes after {@code millis} without holding a thread while waiting.
+     */
+    static CompletableFuture<Void> delay(long millis) {
+        return CompletableFuture.runAsync(() -> {
+        }, CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Waits for an async result on the calling thread. An interrupt cancels the
+     * wait, restores the interrupt flag and returns {@code fallback}.
+     */
+    static <T> T await(CompletableFuture<T> future, T fallback) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException | CancellationException | CompletionException e) {
+            return fallback;
+        }
+    }
+
+    private static void discardBody(HttpResponse<?> response) {
+        if (response.body() instanceof java.io.Closeable c) {
+            try {
+                c.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
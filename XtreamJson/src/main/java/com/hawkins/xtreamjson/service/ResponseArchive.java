@@ -0,0 +1,370 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.net.ssl.SSLSession;
+
+import com.hawkins.xtreamjson.data.ResponseArchiveMode;
+import com.hawkins.xtreamjson.util.ContentHashUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Raw provider responses on disk, so an ingest can be re-run without the
+ * provider: after a schema change, or to benchmark the ingest reproducibly.
+ * <p>
+ * A recording run writes one snapshot directory. Each request is stored as
+ * two files: the body, compressed, and a {@code .properties} file with the
+ * status and the headers the ingest uses. Credentials and the host are not
+ * part of the file names, so a snapshot replays against any provider entry.
+ * The body is stored as it arrived when the provider compressed it, and
+ * gzipped otherwise; a replayed response is served compressed, so it goes
+ * through the same decoding as a live one.
+ */
+@Slf4j
+public final class ResponseArchive {
+
+    private static final DateTimeFormatter SNAPSHOT_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int CHUNK = 64 * 1024;
+    private static final int MAX_NAME = 120;
+    // Chunks queued ahead of a replay subscriber
+    private static final int PUBLISH_BUFFER = 4;
+
+    private final ResponseArchiveMode mode;
+    private final Path dir;
+    private final AtomicInteger recorded = new AtomicInteger();
+    private final AtomicInteger replayed = new AtomicInteger();
+    private final AtomicInteger missing = new AtomicInteger();
+
+    private ResponseArchive(ResponseArchiveMode mode, Path dir) {
+        this.mode = mode;
+        this.dir = dir;
+    }
+
+    /**
+     * Starts a new snapshot directory under {@code root}.
+     */
+    public static ResponseArchive record(Path root) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(LocalDateTime.now().format(SNAPSHOT_NAME)));
+        log.info("Recording provider responses to {}", dir.toAbsolutePath());
+        return new ResponseArchive(ResponseArchiveMode.RECORD, dir);
+    }
+
+    /**
+     * Replays {@code dir}, or the most recent snapshot under it.
+     */
+    public static ResponseArchive replay(Path dir) throws IOException {
+        Path snapshot = dir;
+        if (!isSnapshot(dir)) {
+            try (Stream<Path> children = Files.list(dir)) {
+                snapshot = children.filter(Files::isDirectory).filter(ResponseArchive::isSnapshot)
+                        .max(Comparator.comparing(p -> p.getFileName().toString()))
+                        .orElseThrow(() -> new IOException("No recorded snapshot in " + dir.toAbsolutePath()));
+            }
+        }
+        log.info("Replaying provider responses from {}", snapshot.toAbsolutePath());
+        return new ResponseArchive(ResponseArchiveMode.REPLAY, snapshot);
+    }
+
+    private static boolean isSnapshot(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.anyMatch(f -> f.getFileName().toString().endsWith(".properties"));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public boolean isReplay() {
+        return mode == ResponseArchiveMode.REPLAY;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public String summary() {
+        return isReplay()
+                ? String.format("replayed %d responses from %s (%d not recorded)", replayed.get(), dir, missing.get())
+                : String.format("recorded %d responses to %s", recorded.get(), dir);
+    }
+
+    /**
+     * File name stem for a request: path and query without credentials.
+     */
+    static String nameOf(URI uri) {
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        String key = path.substring(path.lastIndexOf('/') + 1);
+        if (uri.getRawQuery() != null)
+            key += "?" + uri.getRawQuery();
+        key = EndpointSnapshotCache.keyOf(key).replaceAll("[?&]+$", "").replaceAll("[^A-Za-z0-9._=-]+", "_");
+        if (key.length() > MAX_NAME)
+            key = key.substring(0, MAX_NAME - 17) + "-" + ContentHashUtils.hash(key).substring(0, 16);
+        return key;
+    }
+
+    // ---- recording
+
+    /**
+     * Wraps {@code handler} so the response is also written to the snapshot.
+     * Error responses are stored without their body.
+     */
+    <T> HttpResponse.BodyHandler<T> recording(URI uri, HttpResponse.BodyHandler<T> handler) {
+        String name = nameOf(uri);
+        return info -> {
+            HttpResponse.BodySubscriber<T> subscriber = handler.apply(info);
+            if (info.statusCode() < 200 || info.statusCode() >= 300) {
+                writeMeta(name, info.statusCode(), info.headers(), null);
+                return subscriber;
+            }
+            String encoding = ContentDecoding.encodingOf(info.headers());
+            // identity bodies are gzipped here; gzip/deflate ones are kept as sent
+            String stored = encoding.equals("identity") ? "gzip" : encoding;
+            try {
+                Path tmp = Files.createTempFile(dir, name, ".tmp");
+                OutputStream file = Files.newOutputStream(tmp);
+                OutputStream out = encoding.equals("identity") ? new GZIPOutputStream(file, CHUNK) : file;
+                return new RecordingSubscriber<>(subscriber, out, tmp, () -> {
+                    Files.move(tmp, bodyFile(name, stored), StandardCopyOption.REPLACE_EXISTING);
+                    writeMeta(name, info.statusCode(), info.headers(), stored);
+                });
+            } catch (IOException e) {
+                log.warn("Could not record {}: {}", name, e.getMessage());
+                return subscriber;
+            }
+        };
+    }
+
+    private void writeMeta(String name, int status, HttpHeaders headers, String storedEncoding) {
+        Properties meta = new Properties();
+        meta.setProperty("status", String.valueOf(status));
+        for (String header : List.of("Content-Type", "ETag", "Last-Modified")) {
+            headers.firstValue(header).ifPresent(v -> meta.setProperty(header, v));
+        }
+        if (storedEncoding != null)
+            meta.setProperty("Content-Encoding", storedEncoding);
+        try (OutputStream out = Files.newOutputStream(dir.resolve(name + ".properties"))) {
+            meta.store(out, null);
+            recorded.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Could not record {}: {}", name, e.getMessage());
+        }
+    }
+
+    private Path bodyFile(String name, String encoding) {
+        return dir.resolve(name + (encoding.equals("gzip") ? ".gz" : "." + encoding));
+    }
+
+    @FunctionalInterface
+    private interface Completion {
+        void run() throws IOException;
+    }
+
+    /**
+     * Copies every body chunk to the snapshot before handing it on.
+     */
+    private static final class RecordingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final OutputStream out;
+        private final Path tmp;
+        private final Completion completion;
+        private volatile boolean failed;
+
+        RecordingSubscriber(HttpResponse.BodySubscriber<T> delegate, OutputStream out, Path tmp,
+                Completion completion) {
+            this.delegate = delegate;
+            this.out = out;
+            this.tmp = tmp;
+            this.completion = completion;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (!failed) {
+                try {
+                    for (ByteBuffer buf : item) {
+                        ByteBuffer copy = buf.duplicate();
+                        byte[] bytes = new byte[copy.remaining()];
+                        copy.get(bytes);
+                        out.write(bytes);
+                    }
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+            delegate.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            abandon(throwable);
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!failed) {
+                try {
+                    out.close();
+                    completion.run();
+                } catch (IOException e) {
+                    abandon(e);
+                }
+            }
+            delegate.onComplete();
+        }
+
+        private void abandon(Throwable cause) {
+            if (failed)
+                return;
+            failed = true;
+            log.warn("Could not record {}: {}", tmp.getFileName(), cause.getMessage());
+            try {
+                out.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    // ---- replay
+
+    /**
+     * The recorded response to {@code request}, delivered through
+     * {@code handler} as if it came from the network; 404 if the request was
+     * not recorded.
+     */
+    <T> CompletableFuture<HttpResponse<T>> replay(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        InputStream body = InputStream.nullInputStream();
+        try {
+            String name = nameOf(request.uri());
+            Path metaFile = dir.resolve(name + ".properties");
+            Properties meta = new Properties();
+            if (Files.exists(metaFile)) {
+                try (InputStream in = Files.newInputStream(metaFile)) {
+                    meta.load(in);
+                }
+                String stored = meta.getProperty("Content-Encoding");
+                if (stored != null) {
+                    body = Files.newInputStream(bodyFile(name, stored));
+                    if (!(handler instanceof ContentDecoding.Handler)) {
+                        // The caller cannot decode: serve the body as identity, decoded as it is read
+                        body = ContentDecoding.decode(body, stored, t -> {
+                        });
+                        meta.remove("Content-Encoding");
+                    }
+                }
+                replayed.incrementAndGet();
+            } else {
+                meta.setProperty("status", "404");
+                missing.incrementAndGet();
+            }
+            int status = Integer.parseInt(meta.getProperty("status"));
+            Map<String, List<String>> headerMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            meta.stringPropertyNames().stream().filter(k -> !k.equals("status"))
+                    .forEach(k -> headerMap.put(k, List.of(meta.getProperty(k))));
+            HttpHeaders headers = HttpHeaders.of(headerMap, (k, v) -> true);
+            HttpResponse.BodySubscriber<T> subscriber = handler
+                    .apply(new ReplayedInfo(status, headers));
+            publish(body, subscriber);
+            return subscriber.getBody().toCompletableFuture()
+                    .thenApply(b -> new Replayed<>(status, request, headers, b));
+        } catch (IOException e) {
+            try {
+                body.close();
+            } catch (IOException ignored) {
+            }
+            return CompletableFuture.failedFuture(new UncheckedIOException(e));
+        }
+    }
+
+    /**
+     * Feeds {@code body} to the subscriber in chunks read from disk as the
+     * subscriber asks for them, so a replayed body is never held in memory as
+     * a whole; streaming subscribers only take the next chunk once the reader
+     * needs it.
+     */
+    private static void publish(InputStream body, Flow.Subscriber<List<ByteBuffer>> subscriber) {
+        SubmissionPublisher<List<ByteBuffer>> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(),
+                PUBLISH_BUFFER);
+        publisher.subscribe(subscriber);
+        Thread.ofVirtual().name("replay-publisher").start(() -> {
+            try (body) {
+                byte[] chunk;
+                while ((chunk = body.readNBytes(CHUNK)).length > 0) {
+                    publisher.submit(List.of(ByteBuffer.wrap(chunk)));
+                }
+                publisher.close();
+            } catch (IOException e) {
+                publisher.closeExceptionally(e);
+            }
+        });
+    }
+
+    private record ReplayedInfo(int statusCode, HttpHeaders headers) implements HttpResponse.ResponseInfo {
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+
+    private record Replayed<T>(int statusCode, HttpRequest request, HttpHeaders headers, T body)
+            implements HttpResponse<T> {
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
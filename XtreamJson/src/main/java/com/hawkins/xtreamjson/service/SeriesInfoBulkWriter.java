@@ -0,0 +1,118 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.util.CompressionUtils;
+
+/**
+ * Batched JDBC writes for the Season and Episode tables.
+ * <p>
+ * Both ids are IDENTITY columns. Hibernate has to read each generated key
+ * back as soon as the entity is persisted, so it inserts them one statement
+ * at a time and {@code hibernate.jdbc.batch_size} has no effect. The ingest
+ * never uses those ids, so here new rows go out as one JDBC batch of plain
+ * INSERTs, changed rows (id already set) as one batch of MERGEs keyed by id,
+ * both in a single transaction per call. A merge rather than an update, since
+ * a staged change set starts out without the row it changes.
+ * <p>
+ * An episode's raw JSON goes gzipped into {@code episode_info} in the same
+ * transaction, keyed by its provider id.
+ * <p>
+ * Column lists follow the entity mapping; {@code SeriesInfoBulkWriterTest}
+ * checks them against the schema Hibernate generates.
+ */
+@Component
+public class SeriesInfoBulkWriter {
+
+    private static final String INSERT_SEASON = "INSERT INTO season (season_id, series_id, name, season_number)"
+            + " VALUES (?, ?, ?, ?)";
+    private static final String MERGE_SEASON = "MERGE INTO season (season_id, series_id, name, season_number, id)"
+            + " KEY (id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_EPISODE = "INSERT INTO episode (episode_id, series_id, season_id, name,"
+            + " episode_num, container_extension, duration_seconds, content_hash)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_EPISODE = "MERGE INTO episode (episode_id, series_id, season_id, name,"
+            + " episode_num, container_extension, duration_seconds, content_hash, id)"
+            + " KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_EPISODE_INFO = "MERGE INTO episode_info (episode_id, series_id, data)"
+            + " KEY (episode_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+
+    public SeriesInfoBulkWriter(DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @FunctionalInterface
+    private interface Binder<T> {
+        int bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    public void saveSeasons(List<Season> seasons) {
+        write(seasons, Season::getId, INSERT_SEASON, MERGE_SEASON, (ps, s) -> {
+            ps.setString(1, s.getSeasonId());
+            ps.setString(2, s.getSeriesId());
+            ps.setString(3, s.getName());
+            ps.setInt(4, s.getSeasonNumber());
+            return 5;
+        }, null);
+    }
+
+    public void saveEpisodes(List<Episode> episodes) {
+        List<Episode> withInfo = episodes.stream()
+                .filter(e -> e.getEpisodeId() != null && e.getInfoJson() != null)
+                .toList();
+        write(episodes, Episode::getId, INSERT_EPISODE, MERGE_EPISODE, (ps, e) -> {
+            ps.setString(1, e.getEpisodeId());
+            ps.setString(2, e.getSeriesId());
+            ps.setString(3, e.getSeasonId());
+            ps.setString(4, e.getName());
+            ps.setString(5, e.getEpisodeNum());
+            ps.setString(6, e.getContainerExtension());
+            ps.setInt(7, e.getDurationSeconds());
+            ps.setString(8, e.getContentHash());
+            return 9;
+        }, () -> {
+            if (!withInfo.isEmpty())
+                jdbc.batchUpdate(MERGE_EPISODE_INFO, withInfo, withInfo.size(), (ps, e) -> {
+                    ps.setString(1, e.getEpisodeId());
+                    ps.setString(2, e.getSeriesId());
+                    ps.setBytes(3, CompressionUtils.gzip(e.getInfoJson()));
+                });
+        });
+    }
+
+    private <T> void write(List<T> rows, java.util.function.Function<T, Long> id, String insertSql,
+            String mergeSql, Binder<T> binder, Runnable alongside) {
+        if (rows.isEmpty())
+            return;
+        List<T> inserts = new ArrayList<>(rows.size());
+        List<T> merges = new ArrayList<>();
+        for (T row : rows) {
+            (id.apply(row) == null ? inserts : merges).add(row);
+        }
+        tx.executeWithoutResult(status -> {
+            if (!inserts.isEmpty())
+                jdbc.batchUpdate(insertSql, inserts, inserts.size(), (ps, row) -> binder.bind(ps, row));
+            if (!merges.isEmpty())
+                jdbc.batchUpdate(mergeSql, merges, merges.size(),
+                        (ps, row) -> ps.setLong(binder.bind(ps, row), id.apply(row)));
+            if (alongside != null)
+                alongside.run();
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
+
+/**
+ * Streaming reader for get_series_info payloads.
+ * <p>
+ * Only the {@code episodes} object is read: one season per key, one episode
+ * per element of its array. The handful of episode fields we keep are read
+ * off the token stream and everything else is skipped, so no JsonNode tree is
+ * built. The stored episode JSON is the episode's own slice of the response
+ * body, located by token offsets, rather than a re-serialized node.
+ */
+final class SeriesInfoParser {
+
+    /**
+     * Seasons and episodes of one series, in payload order.
+     */
+    record Result(List<Season> seasons, List<Episode> episodes) {
+    }
+
+    private final JsonFactory factory;
+
+    SeriesInfoParser(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Parses one response body.
+     *
+     * @return null if the payload has no {@code episodes} object
+     */
+    Result parse(String body, String seriesId) throws IOException {
+        try (JsonParser p = factory.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT)
+                return null;
+            Result result = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                if (p.nextToken() == JsonToken.START_OBJECT && "episodes".equals(field))
+                    result = readSeasons(p, body, seriesId);
+                else
+                    p.skipChildren();
+            }
+            return result;
+        }
+    }
+
+    private static Result readSeasons(JsonParser p, String body, String seriesId) throws IOException {
+        List<Season> seasons = new ArrayList<>();
+        List<Episode> episodes = new ArrayList<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String seasonNum = XtreamCodesUtils.sanitizeName(p.currentName());
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            seasons.add(Season.builder()
+                    .seasonId(seasonNum)
+                    .seriesId(seriesId)
+                    .name("Season " + seasonNum)
+                    .build());
+            JsonToken t;
+            while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (t == JsonToken.START_OBJECT)
+                    episodes.add(readEpisode(p, body, seriesId, seasonNum));
+                else
+                    p.skipChildren();
+            }
+        }
+        return new Result(seasons, episodes);
+    }
+
+    private static Episode readEpisode(JsonParser p, String body, String seriesId, String seasonNum)
+            throws IOException {
+        int start = (int) p.currentTokenLocation().getCharOffset();
+        String episodeNum = null;
+        String episodeId = null;
+        String containerExtension = null;
+        String title = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (!value.isScalarValue()) {
+                p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "episode_num" -> episodeNum = p.getValueAsString();
+                case "id" -> episodeId = p.getValueAsString();
+                case "container_extension" -> containerExtension = p.getValueAsString();
+                case "title" -> title = p.getValueAsString();
+                default -> {
+                }
+            }
+        }
+        int end = (int) p.currentTokenLocation().getCharOffset() + 1;
+        return Episode.builder()
+                .episodeId(episodeId)
+                .seriesId(seriesId)
+                .seasonId(seasonNum)
+                .name(title)
+                .episodeNum(episodeNum != null ? XtreamCodesUtils.sanitizeName(episodeNum) : "unknown")
+                .infoJson(body.substring(start, end))
+                .containerExtension(containerExtension != null ? containerExtension : "mp4")
+                .build();
+    }
+}
@@ -1,45 +1,66 @@
 package com.hawkins.xtreamjson.service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
-import com.hawkins.xtreamjson.data.Episode;
 import com.hawkins.xtreamjson.data.Season;
 import com.hawkins.xtreamjson.data.Series;
-import com.hawkins.xtreamjson.repository.EpisodeRepository;
-import com.hawkins.xtreamjson.repository.SeasonRepository;
-import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.repository.EpisodeInfoRepository;
+import com.hawkins.xtreamjson.util.CompressionUtils;
 import com.hawkins.xtreamjson.util.StreamViewUtils;
 
 @Service
 public class SeriesService {
 
-    private final SeriesRepository seriesRepository;
-    private final SeasonRepository seasonRepository;
-    private final EpisodeRepository episodeRepository;
+    private final CatalogReadModel catalog;
+    private final EpisodeInfoRepository episodeInfoRepository;
+    private final StreamUrlResolver urlResolver;
 
-    public SeriesService(SeriesRepository seriesRepository,
-            SeasonRepository seasonRepository,
-            EpisodeRepository episodeRepository) {
-        this.seriesRepository = seriesRepository;
-        this.seasonRepository = seasonRepository;
-        this.episodeRepository = episodeRepository;
+    public SeriesService(CatalogReadModel catalog,
+            EpisodeInfoRepository episodeInfoRepository,
+            StreamUrlResolver urlResolver) {
+        this.catalog = catalog;
+        this.episodeInfoRepository = episodeInfoRepository;
+        this.urlResolver = urlResolver;
+    }
+
+    /**
+     * An episode as the season view lists it, with its playable URL.
+     */
+    public record EpisodeItem(String episodeId, String name, String episodeNum, String directSource) {
     }
 
     public List<Series> getSeriesByCategory(String categoryId) {
-        return seriesRepository.findByCategoryId(categoryId);
+        return catalog.current().series(categoryId);
     }
 
     public List<Season> getSeasonsBySeries(String seriesId) {
-        return seasonRepository.findBySeriesId(seriesId);
+        return catalog.current().seasons(seriesId);
+    }
+
+    public List<EpisodeItem> getEpisodesBySeriesAndSeason(String seriesId, String seasonId) {
+        StreamUrlResolver.Urls urls = urlResolver.forSelectedProvider();
+        List<EpisodeItem> items = new ArrayList<>();
+        for (CatalogSnapshot.EpisodeEntry e : catalog.current().episodes(seriesId, seasonId)) {
+            items.add(new EpisodeItem(e.episodeId(), e.name(), e.episodeNum(),
+                    urls.episode(e.episodeId(), e.containerExtension())));
+        }
+        return items;
     }
 
-    public List<Episode> getEpisodesBySeriesAndSeason(String seriesId, String seasonId) {
-        return episodeRepository.findBySeriesIdAndSeasonId(seriesId, seasonId);
+    /**
+     * The provider's raw JSON for one episode, if it was stored. Read from the
+     * database: the payloads are kept compressed there and not in the
+     * in-memory catalog.
+     */
+    public Optional<String> getEpisodeInfo(String episodeId) {
+        return episodeInfoRepository.findById(episodeId).map(info -> CompressionUtils.gunzip(info.getData()));
     }
 
     public String resolveSeriesImage(String seriesId, String seriesImage) {
-        return StreamViewUtils.resolveSeriesImage(seriesId, seriesImage, seriesRepository);
+        return StreamViewUtils.resolveSeriesImage(seriesId, seriesImage, catalog.current()::series);
     }
 }
@@ -0,0 +1,156 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.data.LiveStream;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.model.IptvProvider;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.util.XstreamCredentials;
+
+/**
+ * Builds playable provider URLs when they are needed.
+ * <p>
+ * Stream URLs embed the provider credentials, so they are not stored: rows
+ * keep their stream id and container extension, and the URL is the provider
+ * prefix plus those two. The three prefixes of a provider are built once and
+ * reused until the selected provider or its credentials change, which
+ * therefore no longer calls for a re-ingest.
+ */
+@Service
+public class StreamUrlResolver {
+
+    private final IptvProviderService providerService;
+    private final MovieStreamRepository movieStreamRepository;
+    private final EpisodeRepository episodeRepository;
+    private volatile Urls cached = Urls.NONE;
+
+    public StreamUrlResolver(IptvProviderService providerService,
+            MovieStreamRepository movieStreamRepository,
+            EpisodeRepository episodeRepository) {
+        this.providerService = providerService;
+        this.movieStreamRepository = movieStreamRepository;
+        this.episodeRepository = episodeRepository;
+    }
+
+    /**
+     * URL prefixes of one provider account. Every method returns null where
+     * the old per-row URL would have been missing: no provider, an invalid
+     * stream id or an unknown container.
+     */
+    public static final class Urls {
+        static final Urls NONE = new Urls(null, null, null);
+
+        private final String apiUrl;
+        private final String username;
+        private final String password;
+        private final String live;
+        private final String movie;
+        private final String series;
+
+        private Urls(String apiUrl, String username, String password) {
+            this.apiUrl = apiUrl;
+            this.username = username;
+            this.password = password;
+            boolean usable = !isEmpty(apiUrl) && !isEmpty(username) && !isEmpty(password);
+            String account = usable ? "/" + username + "/" + password + "/" : null;
+            this.live = usable ? apiUrl + "/live" + account : null;
+            this.movie = usable ? apiUrl + "/movie" + account : null;
+            this.series = usable ? apiUrl + "/series" + account : null;
+        }
+
+        private boolean sameAccount(String apiUrl, String username, String password) {
+            return Objects.equals(this.apiUrl, apiUrl) && Objects.equals(this.username, username)
+                    && Objects.equals(this.password, password);
+        }
+
+        public String live(int streamId) {
+            return live == null || streamId <= 0 ? null : live + streamId + ".ts";
+        }
+
+        public String movie(int streamId, String containerExtension) {
+            return movie == null || streamId <= 0 || isEmpty(containerExtension) ? null
+                    : movie + streamId + "." + containerExtension;
+        }
+
+        public String episode(String episodeId, String containerExtension) {
+            return series == null || isEmpty(episodeId) ? null
+                    : series + episodeId + "." + (isEmpty(containerExtension) ? "mp4" : containerExtension);
+        }
+
+        /** Fills the transient {@code directSource} of each stream. */
+        public void applyLive(List<LiveStream> streams) {
+            for (LiveStream stream : streams) {
+                stream.setDirectSource(live(stream.getStreamId()));
+            }
+        }
+
+        /** Fills the transient {@code directSource} of each movie. */
+        public void applyMovies(List<MovieStream> movies) {
+            for (MovieStream movie : movies) {
+                movie.setDirectSource(movie(movie.getStreamId(), movie.getContainerExtension()));
+            }
+        }
+    }
+
+    /**
+     * URLs for the selected provider.
+     */
+    public Urls forSelectedProvider() {
+        return providerService.getSelectedProvider().map(this::of).orElse(Urls.NONE);
+    }
+
+    public Urls of(IptvProvider provider) {
+        return of(provider.getApiUrl(), provider.getUsername(), provider.getPassword());
+    }
+
+    public Urls of(XstreamCredentials creds) {
+        return creds == null ? Urls.NONE : of(creds.getApiUrl(), creds.getUsername(), creds.getPassword());
+    }
+
+    private Urls of(String apiUrl, String username, String password) {
+        Urls urls = cached;
+        if (!urls.sameAccount(apiUrl, username, password)) {
+            urls = new Urls(apiUrl, username, password);
+            cached = urls;
+        }
+        return urls;
+    }
+
+    /**
+     * Provider URL behind {@code /play/{type}/{id}}: {@code live} and
+     * {@code movie} take a stream id, {@code series} an episode id.
+     */
+    public Optional<String> resolve(String type, String id) {
+        Urls urls = forSelectedProvider();
+        String url = switch (type) {
+            case "live" -> urls.live(parseId(id));
+            case "movie" -> movieStreamRepository.findById(parseId(id))
+                    .map(m -> urls.movie(m.getStreamId(), m.getContainerExtension()))
+                    .orElse(null);
+            case "series" -> {
+                List<String> extensions = episodeRepository.findContainerExtensions(id);
+                yield extensions.isEmpty() ? null : urls.episode(id, extensions.get(0));
+            }
+            default -> null;
+        };
+        return Optional.ofNullable(url);
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
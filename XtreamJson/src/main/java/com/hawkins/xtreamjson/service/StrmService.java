@@ -13,15 +13,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.hawkins.xtreamjson.annotations.TrackExecutionTime;
-import com.hawkins.xtreamjson.data.Episode;
 import com.hawkins.xtreamjson.data.MovieStream;
 import com.hawkins.xtreamjson.data.Season;
 import com.hawkins.xtreamjson.data.Series;
+import com.hawkins.xtreamjson.repository.EpisodeListView;
 import com.hawkins.xtreamjson.repository.EpisodeRepository;
 import com.hawkins.xtreamjson.repository.MovieStreamRepository;
 import com.hawkins.xtreamjson.repository.SeasonRepository;
 import com.hawkins.xtreamjson.repository.SeriesRepository;
-import com.hawkins.xtreamjson.util.StreamUrlHelper;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -45,6 +44,8 @@ public class StrmService {
     private SeasonRepository seasonRepository;
     @Autowired
     private EpisodeRepository episodeRepository;
+    @Autowired
+    private StreamUrlResolver urlResolver;
 
     // Create a counter for Movies and Shows generated
     AtomicInteger movieCounter = new AtomicInteger(0);
@@ -63,7 +64,7 @@ public class StrmService {
         if (selectedProviderOpt.isEmpty()) {
             throw new IllegalStateException("No IPTV provider selected.");
         }
-        var selectedProvider = selectedProviderOpt.get();
+        StreamUrlResolver.Urls urls = urlResolver.of(selectedProviderOpt.get());
         Path moviesPath = Paths.get(MOVIES_DIR);
         if (!Files.exists(moviesPath)) {
             Files.createDirectory(moviesPath);
@@ -88,11 +89,7 @@ public class StrmService {
             Path strmFile = movieDir.resolve(strmFileName);
             // Overwrite file if it already exists
             try (BufferedWriter writer = new BufferedWriter(new FileWriter(strmFile.toFile(), false))) {
-                String url = StreamUrlHelper.buildVodUrl(
-                        selectedProvider.getApiUrl(),
-                        selectedProvider.getUsername(),
-                        selectedProvider.getPassword(),
-                        movie);
+                String url = urls.movie(movie.getStreamId(), movie.getContainerExtension());
                 writer.write(url != null ? url : "");
             }
             movieCounter.incrementAndGet();
@@ -108,6 +105,7 @@ public class StrmService {
 
         // Get included countries set
         java.util.Set<String> includedSet = getIncludedCountriesSet();
+        StreamUrlResolver.Urls urls = urlResolver.forSelectedProvider();
 
         List<Series> seriesList = seriesRepository.findAll().stream()
                 .filter(series -> titleIncludesCountry(series.getName(), includedSet))
@@ -134,9 +132,9 @@ public class StrmService {
                     Files.createDirectory(seasonPath);
                 }
                 // Get all episodes for this season
-                List<Episode> episodes = episodeRepository
-                        .findBySeriesIdAndSeasonId(String.valueOf(series.getSeriesId()), season.getSeasonId());
-                for (Episode episode : episodes) {
+                List<EpisodeListView> episodes = episodeRepository
+                        .findListBySeriesIdAndSeasonId(String.valueOf(series.getSeriesId()), season.getSeasonId());
+                for (EpisodeListView episode : episodes) {
                     String episodeNum = padNumber(episode.getEpisodeNum(), 2);
                     String seasonNum = padNumber(String.valueOf(season.getSeasonNumber()), 2);
                     String episodeTitle = sanitizeFileName(episode.getName(), null, null);
@@ -147,9 +145,10 @@ public class StrmService {
                             episodeNum,
                             episodeTitle);
                     Path episodeFile = seasonPath.resolve(fileName);
-                    // Write directSource to the .strm file
+                    // Write the episode URL to the .strm file
+                    String url = urls.episode(episode.getEpisodeId(), episode.getContainerExtension());
                     try (BufferedWriter writer = new BufferedWriter(new FileWriter(episodeFile.toFile(), false))) {
-                        writer.write(episode.getDirectSource() != null ? episode.getDirectSource() : "");
+                        writer.write(url != null ? url : "");
                     }
                 }
             }
@@ -0,0 +1,268 @@
+package com.hawkins.xtreamjson.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.repository.TitleView;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory inverted index over movie and series titles for the search box.
+ * <p>
+ * Titles are split into lower-case words with accents removed. A query
+ * matches a title when each of its words starts some word of the title, so a
+ * search is a few binary searches in a sorted term dictionary plus a walk
+ * over the matching postings, where the database would scan both tables for
+ * {@code LIKE '%q%'}. Matches are ranked: whole-word matches before prefix
+ * matches, titles that start with the query first, then shorter titles, then
+ * alphabetically. Only the best {@code limit} are returned.
+ * <p>
+ * The index is built from the live catalog at startup and rebuilt whenever an
+ * ingest publishes a new one.
+ */
+@Slf4j
+@Service
+public class TitleSearchIndex {
+
+    private final MovieStreamRepository movieStreamRepository;
+    private final SeriesRepository seriesRepository;
+    private volatile Indexes indexes;
+
+    private record Indexes(Index movies, Index series) {
+    }
+
+    public TitleSearchIndex(MovieStreamRepository movieStreamRepository, SeriesRepository seriesRepository) {
+        this.movieStreamRepository = movieStreamRepository;
+        this.seriesRepository = seriesRepository;
+    }
+
+    /** Stream ids of the best matching movies, best first. */
+    public List<Integer> searchMovies(String query, int limit) {
+        return indexes().movies().search(query, limit);
+    }
+
+    /** Series ids of the best matching series, best first. */
+    public List<Integer> searchSeries(String query, int limit) {
+        return indexes().series().search(query, limit);
+    }
+
+    /**
+     * Replaces the index with one built from the live catalog. Searches keep
+     * using the previous index until the new one is complete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Indexes built = new Indexes(Index.of(movieStreamRepository.findAllTitles()),
+                Index.of(seriesRepository.findAllTitles()));
+        indexes = built;
+        log.info("Title search index: {} movies, {} series in {} ms", built.movies().size(),
+                built.series().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private Indexes indexes() {
+        Indexes current = indexes;
+        if (current == null) {
+            synchronized (this) {
+                if (indexes == null) {
+                    rebuild();
+                }
+                current = indexes;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Lower-case words of {@code text}, split at anything that is not a
+     * letter or digit, with accents removed.
+     */
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char ch = folded.charAt(i);
+            if (Character.getType(ch) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(ch)) {
+                word.append(Character.toLowerCase(ch));
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * One immutable index: documents are titles in alphabetical order, terms
+     * are sorted and each term lists its documents in ascending order.
+     */
+    static final class Index {
+        private final int[] ids;
+        private final short[] wordCounts;
+        private final int[] firstTerms;
+        private final String[] terms;
+        private final int[][] postings;
+
+        private Index(int[] ids, short[] wordCounts, int[] firstTerms, String[] terms, int[][] postings) {
+            this.ids = ids;
+            this.wordCounts = wordCounts;
+            this.firstTerms = firstTerms;
+            this.terms = terms;
+            this.postings = postings;
+        }
+
+        static Index of(List<TitleView> rows) {
+            List<TitleView> titled = new ArrayList<>(rows.size());
+            for (TitleView row : rows) {
+                if (row.getId() != null && row.getTitle() != null) {
+                    titled.add(row);
+                }
+            }
+            titled.sort(Comparator.comparing(TitleView::getTitle, String.CASE_INSENSITIVE_ORDER));
+
+            int docs = titled.size();
+            int[] ids = new int[docs];
+            short[] wordCounts = new short[docs];
+            String[] firstWords = new String[docs];
+            Map<String, Postings> byTerm = new HashMap<>();
+            for (int doc = 0; doc < docs; doc++) {
+                TitleView row = titled.get(doc);
+                List<String> words = words(row.getTitle());
+                ids[doc] = row.getId();
+                wordCounts[doc] = (short) Math.min(words.size(), Short.MAX_VALUE);
+                firstWords[doc] = words.isEmpty() ? null : words.get(0);
+                for (String word : words) {
+                    byTerm.computeIfAbsent(word, w -> new Postings()).add(doc);
+                }
+            }
+
+            String[] terms = byTerm.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            int[][] postings = new int[terms.length][];
+            for (int t = 0; t < terms.length; t++) {
+                postings[t] = byTerm.get(terms[t]).toArray();
+            }
+            int[] firstTerms = new int[docs];
+            for (int doc = 0; doc < docs; doc++) {
+                firstTerms[doc] = firstWords[doc] == null ? -1 : Arrays.binarySearch(terms, firstWords[doc]);
+            }
+            return new Index(ids, wordCounts, firstTerms, terms, postings);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        List<Integer> search(String query, int limit) {
+            List<String> words = words(query);
+            if (words.isEmpty() || limit <= 0 || ids.length == 0) {
+                return List.of();
+            }
+            int n = words.size();
+            int[] exactTerms = new int[n];
+            int firstFrom = 0;
+            int firstTo = 0;
+            BitSet matches = null;
+            for (int w = 0; w < n; w++) {
+                String word = words.get(w);
+                int from = lowerBound(word);
+                int to = lowerBound(word + Character.MAX_VALUE);
+                if (from == to) {
+                    return List.of();
+                }
+                exactTerms[w] = terms[from].equals(word) ? from : -1;
+                if (w == 0) {
+                    firstFrom = from;
+                    firstTo = to;
+                }
+                BitSet docs = new BitSet(ids.length);
+                for (int t = from; t < to; t++) {
+                    for (int doc : postings[t]) {
+                        docs.set(doc);
+                    }
+                }
+                if (matches == null) {
+                    matches = docs;
+                } else {
+                    matches.and(docs);
+                }
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            // Ranks pack score, shortness and alphabetical position so the
+            // heap compares plain longs; its head is the worst kept match.
+            PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, matches.cardinality()) + 1);
+            for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+                int score = 0;
+                for (int w = 0; w < n; w++) {
+                    score += exactTerms[w] >= 0 && Arrays.binarySearch(postings[exactTerms[w]], doc) >= 0 ? 2 : 1;
+                }
+                if (firstTerms[doc] >= firstFrom && firstTerms[doc] < firstTo) {
+                    score += 2;
+                }
+                long rank = ((long) score << 48) | ((long) (Short.MAX_VALUE - wordCounts[doc]) << 32)
+                        | (Integer.MAX_VALUE - doc);
+                best.add(rank);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            Integer[] result = new Integer[best.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = ids[Integer.MAX_VALUE - (int) (best.poll() & 0xFFFFFFFFL)];
+            }
+            return Arrays.asList(result);
+        }
+
+        private int lowerBound(String key) {
+            int i = Arrays.binarySearch(terms, key);
+            return i >= 0 ? i : -i - 1;
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private int size;
+
+        void add(int doc) {
+            // Documents arrive in order; a word repeated in one title is listed once
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(docs, size);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.hawkins.xtreamjson.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip helpers for provider payloads kept in the database.
+ */
+public class CompressionUtils {
+
+    /**
+     * Returns the gzipped UTF-8 bytes of {@code text}, or null for null.
+     */
+    public static byte[] gzip(String text) {
+        if (text == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, text.length() / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reverses {@link #gzip(String)}.
+     */
+    public static String gunzip(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new java.io.ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
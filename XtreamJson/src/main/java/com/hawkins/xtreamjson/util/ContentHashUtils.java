@@ -0,0 +1,62 @@
+package com.hawkins.xtreamjson.util;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content hashes used to detect provider rows that changed between refreshes.
+ */
+public class ContentHashUtils {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * Returns the hex SHA-256 of the given bytes.
+     */
+    public static String hash(byte[] bytes) {
+        return HEX.formatHex(digest().digest(bytes));
+    }
+
+    /**
+     * Returns the hex SHA-256 of the given parts, separated so that ("ab", "c")
+     * and ("a", "bc") hash differently. Null parts are hashed as empty.
+     */
+    public static String hash(String... parts) {
+        MessageDigest md = digest();
+        for (String part : parts) {
+            if (part != null) {
+                md.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            md.update((byte) 0);
+        }
+        return HEX.formatHex(md.digest());
+    }
+
+    /**
+     * Wraps {@code in} so that the hash of everything read through it can be
+     * taken with {@link #hash(DigestInputStream)}.
+     */
+    public static DigestInputStream digesting(InputStream in) {
+        return new DigestInputStream(in, digest());
+    }
+
+    /**
+     * Returns the hex SHA-256 of the bytes read so far through a stream from
+     * {@link #digesting(InputStream)}.
+     */
+    public static String hash(DigestInputStream in) {
+        return HEX.formatHex(in.getMessageDigest().digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
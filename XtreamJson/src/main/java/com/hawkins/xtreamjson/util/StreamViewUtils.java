@@ -1,10 +1,12 @@
 package com.hawkins.xtreamjson.util;
 
+import java.util.Optional;
+import java.util.function.IntFunction;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hawkins.xtreamjson.data.Series;
-import com.hawkins.xtreamjson.repository.SeriesRepository;
 
 public class StreamViewUtils {
     private static final Logger logger = LoggerFactory.getLogger(StreamViewUtils.class);
@@ -14,16 +16,17 @@ public class StreamViewUtils {
      * 
      * @param seriesId         the series ID as String
      * @param seriesImage      the provided image (may be null or empty)
-     * @param seriesRepository the repository to fetch the series if needed
+     * @param findSeries       looks the series up by id if needed
      * @return the image URL to use
      */
-    public static String resolveSeriesImage(String seriesId, String seriesImage, SeriesRepository seriesRepository) {
+    public static String resolveSeriesImage(String seriesId, String seriesImage,
+            IntFunction<Optional<Series>> findSeries) {
         if (seriesImage != null && !seriesImage.isEmpty()) {
             return seriesImage;
         }
         Series series = null;
         try {
-            series = seriesRepository.findById(Integer.parseInt(seriesId)).orElse(null);
+            series = findSeries.apply(Integer.parseInt(seriesId)).orElse(null);
         } catch (NumberFormatException e) {
             logger.warn("Invalid seriesId for findById: {}", seriesId);
         }
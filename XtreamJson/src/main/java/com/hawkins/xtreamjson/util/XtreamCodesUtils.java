@@ -2,6 +2,8 @@ package com.hawkins.xtreamjson.util;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import com.hawkins.xtreamjson.service.ApplicationPropertiesService;
 
@@ -128,6 +130,43 @@ public class XtreamCodesUtils {
         return null;
     }
 
+    /**
+     * First character of a clean title, upper-cased; null for an empty title.
+     */
+    public static String firstLetter(String cleanTitle) {
+        if (cleanTitle == null || cleanTitle.isEmpty())
+            return null;
+        return cleanTitle.substring(0, 1).toUpperCase();
+    }
+
+    private static final Pattern YEAR_IN_TITLE = Pattern
+            .compile("(?:\\(|\\[|\\s)(19\\d{2}|20\\d{2})(?:\\)|\\]|\\s|$)");
+
+    /**
+     * Release year written in a title.
+     * E.g. "Inception (2010)" -> "2010"
+     */
+    public static String extractYear(String title) {
+        if (title == null)
+            return null;
+        Matcher m = YEAR_IN_TITLE.matcher(title);
+        return m.find() ? m.group(1) : null;
+    }
+
+    /**
+     * Year a release date starts with.
+     * E.g. "2008-01-20" -> "2008"
+     */
+    public static String leadingYear(String date) {
+        if (date == null || date.length() < 4)
+            return null;
+        for (int i = 0; i < 4; i++) {
+            if (!Character.isDigit(date.charAt(i)))
+                return null;
+        }
+        return date.substring(0, 4);
+    }
+
     // Helper to get includedCountries as a Set<String>
     public static java.util.Set<String> getIncludedCountriesSet(
             ApplicationPropertiesService applicationPropertiesService) {
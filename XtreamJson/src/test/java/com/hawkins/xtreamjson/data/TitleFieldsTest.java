@@ -0,0 +1,48 @@
+package com.hawkins.xtreamjson.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TitleFieldsTest {
+
+    @Test
+    void movieFieldsComeFromTheName() {
+        MovieStream movie = new MovieStream();
+        movie.setName("* EN | inception (2010)");
+        movie.deriveTitleFields();
+
+        assertThat(movie.getCleanTitle()).isEqualTo("inception (2010)");
+        assertThat(movie.getPreface()).isEqualTo("EN");
+        assertThat(movie.getFirstLetter()).isEqualTo("I");
+        assertThat(movie.getReleaseYear()).isEqualTo("2010");
+    }
+
+    @Test
+    void seriesYearComesFromTheReleaseDate() {
+        Series series = new Series();
+        series.setName("Breaking Bad 1999");
+        series.setReleaseDate("2008-01-20");
+        series.deriveTitleFields();
+
+        assertThat(series.getCleanTitle()).isEqualTo("Breaking Bad 1999");
+        assertThat(series.getPreface()).isNull();
+        assertThat(series.getFirstLetter()).isEqualTo("B");
+        assertThat(series.getReleaseYear()).isEqualTo("2008");
+
+        series.setReleaseDate("unknown");
+        series.deriveTitleFields();
+        assertThat(series.getReleaseYear()).isNull();
+    }
+
+    @Test
+    void derivedFieldsStayOutOfTheJsonTheContentHashIsTakenFrom() throws Exception {
+        MovieStream movie = new MovieStream();
+        movie.setName("EN - Heat (1995)");
+        String before = new ObjectMapper().writeValueAsString(movie);
+        movie.deriveTitleFields();
+
+        assertThat(new ObjectMapper().writeValueAsString(movie)).isEqualTo(before);
+    }
+}
@@ -0,0 +1,211 @@
+package com.hawkins.xtreamjson.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.EpisodeInfo;
+import com.hawkins.xtreamjson.data.LiveCategory;
+import com.hawkins.xtreamjson.data.LiveStream;
+import com.hawkins.xtreamjson.data.MissingSeries;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.data.Series;
+import com.hawkins.xtreamjson.service.StreamSpecifications;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Runs the repository finders against a synthetic catalog of realistic size,
+ * captures the SQL Hibernate sends and checks H2's EXPLAIN of each statement
+ * for table scans. Left out on purpose: the title reads feeding the search
+ * index and the full-table hash reads of the delta sync, which want every
+ * row, and the single-row provider and settings tables.
+ */
+class RepositoryQueryPlanTest {
+
+    private static final String URL = "jdbc:h2:mem:plans;DB_CLOSE_DELAY=-1";
+    private static final List<String> statements = new ArrayList<>();
+
+    private static SessionFactory hibernate;
+    private static EntityManager em;
+    private static JpaRepositoryFactory repositories;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        hibernate = new Configuration()
+                .addAnnotatedClass(LiveCategory.class)
+                .addAnnotatedClass(LiveStream.class)
+                .addAnnotatedClass(MovieStream.class)
+                .addAnnotatedClass(Series.class)
+                .addAnnotatedClass(Season.class)
+                .addAnnotatedClass(Episode.class)
+                .addAnnotatedClass(EpisodeInfo.class)
+                .addAnnotatedClass(MissingSeries.class)
+                .setProperty("hibernate.connection.url", URL)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                // Spring Boot's naming, as in the application
+                .setProperty("hibernate.physical_naming_strategy",
+                        "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy")
+                .setStatementInspector(sql -> {
+                    statements.add(sql);
+                    return sql;
+                })
+                .buildSessionFactory();
+        try (Connection c = DriverManager.getConnection(URL, "sa", ""); Statement s = c.createStatement()) {
+            s.execute("INSERT INTO live_category (category_id, category_name, parent_id)"
+                    + " SELECT X, 'Category ' || X, 0 FROM SYSTEM_RANGE(1, 500)");
+            s.execute("INSERT INTO live_stream (stream_id, num, name, category_id, epg_channel_id, is_adult,"
+                    + " tv_archive, tv_archive_duration) SELECT X, X, 'UK | Channel ' || X, MOD(X, 500),"
+                    + " 'ch' || X, 0, 0, 0 FROM SYSTEM_RANGE(1, 10000)");
+            s.execute("INSERT INTO movie_stream (stream_id, num, name, category_id, container_extension, is_adult,"
+                    + " clean_title, preface, first_letter, release_year) SELECT X, X, 'EN - Movie ' || X,"
+                    + " MOD(X, 500), 'mkv', 0, 'Movie ' || X, 'EN', CHAR(65 + MOD(X, 26)), 1950 + MOD(X, 70)"
+                    + " FROM SYSTEM_RANGE(1, 40000)");
+            s.execute("INSERT INTO series (series_id, num, name, category_id, clean_title, preface, first_letter,"
+                    + " release_year) SELECT X, X, 'EN - Show ' || X, MOD(X, 200), 'Show ' || X, 'EN',"
+                    + " CHAR(65 + MOD(X, 26)), 1950 + MOD(X, 70) FROM SYSTEM_RANGE(1, 10000)");
+            s.execute("INSERT INTO season (season_id, series_id, name, season_number)"
+                    + " SELECT MOD(X, 5) + 1, X / 5, 'Season', MOD(X, 5) + 1 FROM SYSTEM_RANGE(0, 49999)");
+            s.execute("INSERT INTO episode (episode_id, series_id, season_id, name, episode_num, container_extension,"
+                    + " duration_seconds) SELECT X, X / 50, MOD(X / 10, 5) + 1, 'Episode ' || X, MOD(X, 10),"
+                    + " 'mkv', 0 FROM SYSTEM_RANGE(0, 99999)");
+            s.execute("INSERT INTO episode_info (episode_id, series_id, data)"
+                    + " SELECT X, X / 50, X'00' FROM SYSTEM_RANGE(0, 49999)");
+            s.execute("INSERT INTO missing_series (id, series_id, confirmations)"
+                    + " SELECT 'http://p' || MOD(X, 20) || '|' || X, X, 1 FROM SYSTEM_RANGE(1, 10000)");
+            s.execute("ANALYZE");
+        }
+        em = hibernate.createEntityManager();
+        repositories = new JpaRepositoryFactory(em);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        em.close();
+        hibernate.close();
+    }
+
+    /**
+     * Runs {@code queries} in a rolled-back transaction and returns the plan
+     * of every statement they sent.
+     */
+    private static List<String> plans(Runnable queries) throws SQLException {
+        statements.clear();
+        em.getTransaction().begin();
+        try {
+            queries.run();
+            em.flush();
+        } finally {
+            em.getTransaction().rollback();
+            em.clear();
+        }
+        assertThat(statements).isNotEmpty();
+        List<String> plans = new ArrayList<>();
+        try (Connection c = DriverManager.getConnection(URL, "sa", "")) {
+            for (String sql : statements) {
+                try (PreparedStatement ps = c.prepareStatement("EXPLAIN " + sql)) {
+                    for (int i = 1; i <= ps.getParameterMetaData().getParameterCount(); i++) {
+                        ps.setString(i, "1");
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        plans.add(rs.getString(1));
+                    }
+                }
+            }
+        }
+        return plans;
+    }
+
+    private static void assertIndexed(Runnable queries) throws SQLException {
+        for (String plan : plans(queries)) {
+            assertThat(plan).as("query plan").doesNotContain("tableScan");
+        }
+    }
+
+    /** The order of the category pages in JsonService. */
+    private static final PageRequest BY_NAME = PageRequest.of(2, 50,
+            Sort.by(Sort.Direction.ASC, "categoryId", "name"));
+
+    @Test
+    void liveFindersUseIndexes() throws SQLException {
+        LiveStreamRepository streams = repositories.getRepository(LiveStreamRepository.class);
+        LiveCategoryRepository categories = repositories.getRepository(LiveCategoryRepository.class);
+        assertIndexed(() -> streams.findByCategoryId("7"));
+        assertIndexed(() -> categories.findByCategoryNameIn(List.of("Category 7", "Category 8")));
+    }
+
+    @Test
+    void movieFindersUseIndexes() throws SQLException {
+        MovieStreamRepository movies = repositories.getRepository(MovieStreamRepository.class);
+        assertIndexed(() -> movies.findByCategoryId("7"));
+        assertIndexed(() -> movies.findByCategoryId("7", BY_NAME));
+        assertIndexed(() -> movies.findByCategoryIdAndNameStartingWith("7", "e", BY_NAME));
+        assertIndexed(() -> movies.findDistinctFirstLettersByCategoryId("7"));
+        assertIndexed(() -> movies.findDistinctFirstLettersIncluded("7", Set.of("EN", "UK")));
+        assertIndexed(() -> movies.searchByReleaseYear("1999", Limit.of(100)));
+        // The movie pages of JsonService.getMoviesByCategory
+        assertIndexed(() -> movies.findAll(StreamSpecifications.<MovieStream>hasCategoryId("7")
+                .and(StreamSpecifications.isIncluded(Set.of("EN")))
+                .and(StreamSpecifications.nameStartsWith("e")), BY_NAME));
+    }
+
+    @Test
+    void seriesFindersUseIndexes() throws SQLException {
+        SeriesRepository series = repositories.getRepository(SeriesRepository.class);
+        SeasonRepository seasons = repositories.getRepository(SeasonRepository.class);
+        EpisodeRepository episodes = repositories.getRepository(EpisodeRepository.class);
+        EpisodeInfoRepository infos = repositories.getRepository(EpisodeInfoRepository.class);
+        MissingSeriesRepository missing = repositories.getRepository(MissingSeriesRepository.class);
+
+        assertIndexed(() -> series.findByCategoryId("7"));
+        assertIndexed(() -> series.findAll(StreamSpecifications.<Series>hasCategoryId("7")
+                .and(StreamSpecifications.isIncluded(Set.of("EN"))), BY_NAME));
+        assertIndexed(() -> series.findDistinctFirstLettersByCategoryId("7"));
+        assertIndexed(() -> series.findDistinctFirstLettersIncluded("7", Set.of("EN", "UK")));
+        assertIndexed(() -> series.searchByReleaseYear("1999", Limit.of(100)));
+        assertIndexed(() -> seasons.findBySeriesId("7"));
+        assertIndexed(() -> episodes.findListBySeriesIdAndSeasonId("7", "1"));
+        assertIndexed(() -> episodes.findBySeasonId("1"));
+        assertIndexed(() -> episodes.findContainerExtensions("7"));
+        assertIndexed(() -> episodes.findHashesBySeriesId("7"));
+        assertIndexed(() -> infos.findById("7"));
+        assertIndexed(() -> missing.findByIdStartingWith("http://p7|"));
+        assertIndexed(() -> {
+            seasons.deleteBySeriesIdIn(List.of("7", "8"));
+            episodes.deleteBySeriesIdIn(List.of("7", "8"));
+            infos.deleteBySeriesIdIn(List.of("7", "8"));
+        });
+    }
+
+    @Test
+    void categoryPagesReadTheIndexInNameOrder() throws SQLException {
+        MovieStreamRepository movies = repositories.getRepository(MovieStreamRepository.class);
+        SeriesRepository series = repositories.getRepository(SeriesRepository.class);
+        // The first statement of a page is the row query, the second its count.
+        assertThat(plans(() -> movies.findAll(StreamSpecifications.<MovieStream>hasCategoryId("7")
+                .and(StreamSpecifications.nameStartsWith("e")), BY_NAME)).get(0)).contains("index sorted");
+        assertThat(plans(() -> series.findAll(StreamSpecifications.<Series>hasCategoryId("7")
+                .and(StreamSpecifications.isIncluded(Set.of("EN"))), BY_NAME)).get(0)).contains("index sorted");
+    }
+}
@@ -0,0 +1,158 @@
+package com.hawkins.xtreamjson.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.HibernateMetrics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+
+import com.hawkins.xtreamjson.data.ApplicationProperties;
+import com.hawkins.xtreamjson.model.IptvProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * The provider and settings finders against the Caffeine-backed second-level
+ * cache, configured as in application.properties: repeated reads are cache
+ * hits and the write paths invalidate what they change.
+ */
+class SecondLevelCacheTest {
+
+    private SessionFactory hibernate;
+    private Statistics stats;
+
+    /** A persistence context and the repositories bound to it, as one request sees them. */
+    private record Session(EntityManager em, IptvProviderRepository providers,
+            ApplicationPropertiesRepository settings) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        hibernate = new Configuration()
+                .addAnnotatedClass(IptvProvider.class)
+                .addAnnotatedClass(ApplicationProperties.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:l2;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.cache.use_second_level_cache", "true")
+                .setProperty("hibernate.cache.use_query_cache", "true")
+                .setProperty("hibernate.cache.region.factory_class", "jcache")
+                .setProperty("hibernate.javax.cache.provider",
+                        "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider")
+                .setProperty("hibernate.javax.cache.missing_cache_strategy", "create")
+                .setProperty("hibernate.generate_statistics", "true")
+                .buildSessionFactory();
+        stats = hibernate.getStatistics();
+
+        write(s -> {
+            s.providers().save(provider("http://a", true));
+            s.providers().save(provider("http://b", false));
+            s.settings().save(new ApplicationProperties());
+        });
+        stats.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernate.close();
+    }
+
+    private static IptvProvider provider(String apiUrl, boolean selected) {
+        IptvProvider p = new IptvProvider();
+        p.setApiUrl(apiUrl);
+        p.setUsername("user");
+        p.setPassword("secret");
+        p.setSelected(selected);
+        return p;
+    }
+
+    /** Runs {@code query} in a new persistence context, so only the shared cache can answer it. */
+    private <T> T read(Function<Session, T> query) {
+        EntityManager em = hibernate.createEntityManager();
+        try {
+            JpaRepositoryFactory repositories = new JpaRepositoryFactory(em);
+            return query.apply(new Session(em, repositories.getRepository(IptvProviderRepository.class),
+                    repositories.getRepository(ApplicationPropertiesRepository.class)));
+        } finally {
+            em.close();
+        }
+    }
+
+    private void write(Consumer<Session> work) {
+        read(s -> {
+            s.em().getTransaction().begin();
+            work.accept(s);
+            s.em().getTransaction().commit();
+            return null;
+        });
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() {
+        read(s -> s.providers().findBySelectedTrue());
+        read(s -> s.providers().findAll());
+        read(s -> s.settings().findTopByOrderByIdAsc());
+        long queries = stats.getPrepareStatementCount();
+
+        Optional<IptvProvider> selected = read(s -> s.providers().findBySelectedTrue());
+        List<IptvProvider> all = read(s -> s.providers().findAll());
+        Optional<ApplicationProperties> properties = read(s -> s.settings().findTopByOrderByIdAsc());
+
+        assertThat(selected).get().extracting(IptvProvider::getApiUrl).isEqualTo("http://a");
+        assertThat(all).hasSize(2);
+        assertThat(properties).isPresent();
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(queries);
+        assertThat(stats.getQueryCacheHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void selectingAProviderInvalidatesTheCachedSelection() {
+        List<IptvProvider> all = read(s -> s.providers().findAll());
+        Long other = all.stream().filter(p -> !p.isSelected()).findFirst().orElseThrow().getId();
+        read(s -> s.providers().findBySelectedTrue());
+
+        write(s -> s.providers().updateSelectedProvider(other));
+
+        Optional<IptvProvider> selected = read(s -> s.providers().findBySelectedTrue());
+        assertThat(selected).get().extracting(IptvProvider::getId).isEqualTo(other);
+    }
+
+    @Test
+    void savingSettingsUpdatesTheCachedRow() {
+        ApplicationProperties current = read(s -> s.settings().findTopByOrderByIdAsc()).orElseThrow();
+        current.setIncludedCountries("UK,IE");
+
+        write(s -> s.settings().save(current));
+
+        Optional<ApplicationProperties> saved = read(s -> s.settings().findTopByOrderByIdAsc());
+        assertThat(saved).get().extracting(ApplicationProperties::getIncludedCountries).isEqualTo("UK,IE");
+    }
+
+    @Test
+    void hitsAndMissesArePublishedAsMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        // What the actuator's Hibernate metrics auto-configuration binds
+        new HibernateMetrics(hibernate, "entityManagerFactory", List.of()).bindTo(registry);
+
+        read(s -> s.providers().findBySelectedTrue());
+        read(s -> s.providers().findBySelectedTrue());
+
+        assertThat(registry.get("hibernate.cache.query.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("hibernate.cache.query.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.find("hibernate.second.level.cache.requests").meters()).isNotEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.hawkins.xtreamjson.service.AdaptiveConcurrencyLimiter.Outcome;
+import com.hawkins.xtreamjson.service.AdaptiveConcurrencyLimiter.Permit;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void queuesBeyondLimitAndHandsOverOnRelease() {
+        var limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+        CompletableFuture<Permit> a = limiter.acquire();
+        CompletableFuture<Permit> b = limiter.acquire();
+        CompletableFuture<Permit> c = limiter.acquire();
+
+        assertThat(a).isDone();
+        assertThat(b).isDone();
+        assertThat(c).isNotDone();
+        assertThat(limiter.stats().queued()).isEqualTo(1);
+
+        a.join().release(Outcome.IGNORE);
+
+        assertThat(c).isDone();
+        assertThat(limiter.stats().inflight()).isEqualTo(2);
+    }
+
+    @Test
+    void growsByAboutOneSlotPerRoundOfHealthyResponses() {
+        var limiter = new AdaptiveConcurrencyLimiter(4, 1, 100);
+        var inflight = new ArrayDeque<Permit>();
+        // Keep the limiter saturated; rounds of 4, 5, 6 and 7 successes
+        for (int i = 0; i < 4 + 5 + 6 + 7; i++) {
+            while (inflight.size() < limiter.getLimit())
+                inflight.add(limiter.acquire().join());
+            inflight.poll().release(Outcome.SUCCESS);
+        }
+        assertThat(limiter.getLimit()).isBetween(7, 8);
+    }
+
+    @Test
+    void cutsOncePerCongestionEvent() {
+        var limiter = new AdaptiveConcurrencyLimiter(8, 1, 100);
+
+        // Two requests that were in flight together fail: only one cut
+        Permit first = limiter.acquire().join();
+        Permit second = limiter.acquire().join();
+        first.release(Outcome.DROPPED);
+        second.release(Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(6);
+
+        // A request started after the cut signals a new event
+        limiter.acquire().join().release(Outcome.DROPPED);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.stats().drops()).isEqualTo(3);
+    }
+}
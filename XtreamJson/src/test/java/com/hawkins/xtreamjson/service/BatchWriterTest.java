@@ -0,0 +1,67 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+class BatchWriterTest {
+
+    @Test
+    void flushesFullBatchesAndTheRemainderOnClose() {
+        var batches = new CopyOnWriteArrayList<List<Integer>>();
+        BatchWriter<Integer> writer = BatchWriter.start("test", 3, 10, Duration.ofMinutes(1), batches::add);
+        writer.putAll(List.of(1, 2, 3, 4, 5, 6, 7));
+        writer.close();
+        writer.completion().join();
+
+        assertThat(batches.stream().flatMap(List::stream)).containsExactly(1, 2, 3, 4, 5, 6, 7);
+        assertThat(batches).allSatisfy(b -> assertThat(b).hasSizeLessThanOrEqualTo(3));
+        assertThat(writer.stats().written()).isEqualTo(7);
+    }
+
+    @Test
+    void blocksProducersWhileTheQueueIsFull() throws Exception {
+        var release = new CountDownLatch(1);
+        BatchWriter<Integer> writer = BatchWriter.start("test", 1, 2, Duration.ofMillis(10), batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // One item is held by the stalled sink, two fill the queue
+        writer.putAll(List.of(1, 2, 3));
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> writer.put(4));
+
+        Thread.sleep(200);
+        assertThat(blocked).isNotDone();
+
+        release.countDown();
+        blocked.get(5, TimeUnit.SECONDS);
+        writer.close();
+        writer.completion().get(5, TimeUnit.SECONDS);
+        assertThat(writer.stats().written()).isEqualTo(4);
+        assertThat(writer.stats().producerWaitMs()).isPositive();
+    }
+
+    @Test
+    void failedSinkFailsCompletionAndRejectsFurtherItems() {
+        BatchWriter<Integer> writer = BatchWriter.start("test", 1, 2, Duration.ofMillis(10), batch -> {
+            throw new IllegalStateException("db down");
+        });
+        writer.put(1);
+
+        assertThatThrownBy(() -> writer.completion().join()).hasRootCauseMessage("db down");
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 10; i++)
+                writer.put(i);
+        }).isInstanceOf(IllegalStateException.class);
+    }
+}
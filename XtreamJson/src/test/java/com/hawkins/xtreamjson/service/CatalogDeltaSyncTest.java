@@ -0,0 +1,155 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.repository.EpisodeHashView;
+import com.hawkins.xtreamjson.repository.EpisodeInfoRepository;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.IdHashView;
+import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
+import com.hawkins.xtreamjson.repository.LiveStreamRepository;
+import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeasonRepository;
+import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogDeltaSyncTest {
+
+    @Mock private LiveCategoryRepository liveCategoryRepository;
+    @Mock private LiveStreamRepository liveStreamRepository;
+    @Mock private MovieCategoryRepository movieCategoryRepository;
+    @Mock private MovieStreamRepository movieStreamRepository;
+    @Mock private SeriesCategoryRepository seriesCategoryRepository;
+    @Mock private SeriesRepository seriesRepository;
+    @Mock private SeasonRepository seasonRepository;
+    @Mock private EpisodeRepository episodeRepository;
+    @Mock private EpisodeInfoRepository episodeInfoRepository;
+    @Mock private SeriesInfoStateRepository seriesInfoStateRepository;
+    @Mock private InsertOnlyWriter insertWriter;
+
+    // Not staging, so reads pass straight through; removals are still reported
+    private final CatalogStaging staging = spy(new CatalogStaging(null));
+    private CatalogDeltaSync deltaSync;
+
+    @BeforeEach
+    void setUp() {
+        deltaSync = new CatalogDeltaSync(liveCategoryRepository, liveStreamRepository, movieCategoryRepository,
+                movieStreamRepository, seriesCategoryRepository, seriesRepository, seasonRepository,
+                episodeRepository, episodeInfoRepository, seriesInfoStateRepository, insertWriter,
+                new IngestMetrics(new SimpleMeterRegistry()), new ObjectMapper(), staging);
+    }
+
+    private static MovieStream movie(int id, String name) {
+        MovieStream m = new MovieStream();
+        m.setStreamId(id);
+        m.setName(name);
+        return m;
+    }
+
+    private static IdHashView idHash(int id, String hash) {
+        return new IdHashView() {
+            public Integer getId() { return id; }
+            public String getContentHash() { return hash; }
+        };
+    }
+
+    private static EpisodeHashView episodeHash(long id, String episodeId, String hash) {
+        return new EpisodeHashView() {
+            public Long getId() { return id; }
+            public String getEpisodeId() { return episodeId; }
+            public String getContentHash() { return hash; }
+        };
+    }
+
+    @Test
+    void syncMovieStreams_writesOnlyNewAndChangedRowsAndDeletesRemoved() {
+        // First pass against an empty table stamps hashes we can reuse as "stored"
+        MovieStream unchanged = movie(1, "EN | Alpha");
+        MovieStream changed = movie(2, "EN | Beta");
+        when(movieStreamRepository.findAllIdHashes()).thenReturn(List.of());
+        deltaSync.syncMovieStreams(List.of(unchanged, changed), 100);
+
+        when(movieStreamRepository.findAllIdHashes()).thenReturn(List.of(
+                idHash(1, unchanged.getContentHash()),
+                idHash(2, changed.getContentHash()),
+                idHash(3, "gone")));
+
+        MovieStream changedAgain = movie(2, "EN | Beta (Director's Cut)");
+        MovieStream added = movie(4, "EN | Delta");
+        var result = deltaSync.syncMovieStreams(List.of(movie(1, "EN | Alpha"), changedAgain, added), 100);
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.unchanged()).isEqualTo(1);
+        assertThat(result.deleted()).isEqualTo(1);
+        verify(movieStreamRepository).saveAll(List.of(changedAgain));
+        verify(insertWriter).insert(eq(List.of(added)), eq(100), any());
+        verify(movieStreamRepository).deleteAllByIdInBatch(List.of(3));
+        verify(staging).recordRemoval("MOVIE_STREAM", List.of(3));
+    }
+
+    @Test
+    void syncMovieStreams_insertsNewIdsOnceWithoutMerging() {
+        when(movieStreamRepository.findAllIdHashes()).thenReturn(List.of());
+        MovieStream first = movie(7, "EN | Listed Twice");
+        MovieStream other = movie(8, "EN | Other");
+        MovieStream again = movie(7, "EN | Listed Twice (HD)");
+
+        var result = deltaSync.syncMovieStreams(List.of(first, other, again), 100);
+
+        assertThat(result.inserted()).isEqualTo(2);
+        verify(insertWriter).insert(eq(List.of(again, other)), eq(100), any());
+        verify(movieStreamRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void reconcileSeriesInfo_keepsUnchangedEpisodesAndUpdatesChangedInPlace() {
+        Episode same = Episode.builder().episodeId("e1").seriesId("10").seasonId("1").infoJson("{}").build();
+        Episode edited = Episode.builder().episodeId("e2").seriesId("10").seasonId("1").infoJson("{\"a\":1}").build();
+        deltaSync.stampEpisodeHash(same);
+        String sameHash = same.getContentHash();
+
+        when(seasonRepository.findBySeriesId("10")).thenReturn(List.of(
+                Season.builder().id(5L).seasonId("1").seriesId("10").build()));
+        when(episodeRepository.findHashesBySeriesId("10")).thenReturn(List.of(
+                episodeHash(100L, "e1", sameHash),
+                episodeHash(101L, "e2", "old"),
+                episodeHash(102L, "e3", "removed")));
+
+        var delta = deltaSync.reconcileSeriesInfo("10",
+                List.of(Season.builder().seasonId("1").seriesId("10").build()),
+                List.of(same, edited));
+
+        assertThat(delta.seasonsToSave()).isEmpty();
+        assertThat(delta.episodesToSave()).containsExactly(edited);
+        assertThat(edited.getId()).isEqualTo(101L);
+        assertThat(delta.unchanged()).isEqualTo(1);
+        verify(episodeRepository).deleteAllByIdInBatch(List.of(102L));
+        verify(episodeInfoRepository).deleteAllByIdInBatch(List.of("e3"));
+        verify(staging).recordRemoval("EPISODE", "10", List.of(102L));
+        verify(staging).recordRemoval("EPISODE_INFO", "10", List.of("e3"));
+        verify(seasonRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+}
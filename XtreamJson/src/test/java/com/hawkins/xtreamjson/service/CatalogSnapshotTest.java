@@ -0,0 +1,66 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+
+import com.hawkins.xtreamjson.data.LiveCategory;
+import com.hawkins.xtreamjson.data.LiveStream;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.data.Series;
+import com.hawkins.xtreamjson.repository.EpisodeRow;
+
+class CatalogSnapshotTest {
+
+    private static LiveCategory category(String id, String name) {
+        LiveCategory c = new LiveCategory();
+        c.setCategoryId(id);
+        c.setCategoryName(name);
+        return c;
+    }
+
+    private static LiveStream live(int id, String categoryId, String name) {
+        return LiveStream.builder().streamId(id).categoryId(categoryId).name(name).build();
+    }
+
+    @Test
+    void groupsStreamsByCategoryInNameOrder() {
+        CatalogSnapshot snapshot = CatalogSnapshot.of(
+                List.of(category("2", "uk sport"), category("1", "UK News"), category("3", "FR News")),
+                List.of(live(1, "1", "UK: Sky News"), live(2, "2", "UK: Eurosport"), live(3, "1", "UK: BBC News"),
+                        live(4, null, "No category")),
+                List.of(), List.of(), List.of(), List.of(), List.of(), List.of());
+
+        assertThat(snapshot.liveCategories()).extracting(LiveCategory::getCategoryName)
+                .containsExactly("FR News", "UK News", "uk sport");
+        assertThat(snapshot.liveStreams("1")).extracting(LiveStream::getStreamId).containsExactly(3, 1);
+        assertThat(snapshot.liveStreams("9")).isEmpty();
+        assertThat(snapshot.liveStreams()).hasSize(4);
+        assertThatThrownBy(() -> snapshot.liveStreams("1").add(live(5, "1", "UK: ITV")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void keepsSeasonsAndEpisodesUnderTheirSeries() {
+        Series show = Series.builder().seriesId(7).categoryId("5").name("Show").build();
+        Season s2 = Season.builder().id(11L).seriesId("7").seasonId("2").build();
+        Season s1 = Season.builder().id(10L).seriesId("7").seasonId("1").build();
+        CatalogSnapshot snapshot = CatalogSnapshot.of(List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(show), List.of(s2, s1),
+                List.of(new EpisodeRow("7", "1", "701", "Pilot", "1", "mkv"),
+                        new EpisodeRow("7", "2", "711", "Return", "1", "mp4"),
+                        new EpisodeRow("7", "1", "702", "Second", "2", "mkv")));
+
+        assertThat(snapshot.series(7)).containsSame(show);
+        assertThat(snapshot.series("5")).containsExactly(show);
+        assertThat(snapshot.seasons("7")).extracting(Season::getSeasonId).containsExactly("1", "2");
+        assertThat(snapshot.episodes("7", "1")).extracting(CatalogSnapshot.EpisodeEntry::episodeId)
+                .containsExactly("701", "702");
+        assertThat(snapshot.episodes("7", "2")).containsExactly(
+                new CatalogSnapshot.EpisodeEntry("711", "Return", "1", "mp4"));
+        assertThat(snapshot.episodes("7", "3")).isEmpty();
+        assertThat(snapshot.episodes("8", "1")).isEmpty();
+    }
+}
@@ -0,0 +1,187 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogStagingTest {
+
+    private JdbcDataSource dataSource;
+    private CatalogStaging staging;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:staging" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            for (String table : CatalogStaging.TABLES) {
+                s.execute("CREATE TABLE " + table + " (ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                        + " NAME VARCHAR(50), SERIES_ID VARCHAR(20))");
+            }
+            s.execute("CREATE TABLE PROVIDER_SETTING (NAME VARCHAR(50))");
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('old-1'), ('old-2'), ('old-3')");
+            s.execute("INSERT INTO SEASON (NAME, SERIES_ID) VALUES ('s1', '1'), ('s2', '2')");
+            s.execute("INSERT INTO PROVIDER_SETTING VALUES ('shared')");
+        }
+        staging = new CatalogStaging(dataSource);
+    }
+
+    @Test
+    void changeSetPublishesOnlyItsRowsAndRemovals() throws SQLException {
+        staging.prepare(true);
+        assertThat(staging.isIntact()).isTrue();
+
+        try (CatalogStaging.Scope scope = CatalogStaging.enter();
+                Connection c = CatalogStaging.route(dataSource.getConnection());
+                Statement s = c.createStatement()) {
+            // Nothing is copied in; new ids continue after the live ones
+            assertThat(count(s, "SERIES")).isZero();
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('new')");
+            s.execute("INSERT INTO SERIES (ID, NAME) VALUES (2, 'old-2 changed')");
+            staging.recordRemoval("SERIES", List.of(1));
+            // Tables that are not staged resolve to the live schema
+            assertThat(count(s, "PROVIDER_SETTING")).isEqualTo(1);
+        }
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(names(s)).isEqualTo("old-1,old-2,old-3");
+        }
+
+        staging.swap(CatalogStaging.SECTION_TABLES.keySet());
+
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(names(s)).isEqualTo("old-2 changed,old-3,new");
+            // A removed series takes its rows in the other tables with it
+            assertThat(count(s, "SEASON WHERE SERIES_ID = '1'")).isZero();
+            assertThat(count(s, "SEASON WHERE SERIES_ID = '2'")).isEqualTo(1);
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('after')");
+            assertThat(count(s, "SERIES WHERE ID = 5")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void currentOverlaysTheChangeSetOnTheLiveRows() throws SQLException {
+        staging.prepare(true);
+        try (CatalogStaging.Scope scope = CatalogStaging.enter()) {
+            try (Connection c = CatalogStaging.route(dataSource.getConnection());
+                    Statement s = c.createStatement()) {
+                s.execute("INSERT INTO SERIES (ID, NAME) VALUES (2, 'old-2 changed')");
+            }
+            staging.recordRemoval("SERIES", List.of(3));
+
+            assertThat(staging.current("SERIES", this::readSeries, row -> row.split("=")[0]))
+                    .containsExactly("1=old-1", "2=old-2 changed");
+            assertThat(staging.live(this::readSeries)).containsExactly("1=old-1", "2=old-2", "3=old-3");
+        }
+        // Outside the ingest the overlay does not apply
+        assertThat(staging.current("SERIES", this::readSeries, row -> row.split("=")[0]))
+                .containsExactly("1=old-1", "2=old-2", "3=old-3");
+    }
+
+    @Test
+    void fullGenerationReplacesTheLiveRows() throws SQLException {
+        staging.prepare(false);
+        try (CatalogStaging.Scope scope = CatalogStaging.enter();
+                Connection c = CatalogStaging.route(dataSource.getConnection());
+                Statement s = c.createStatement()) {
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('only')");
+        }
+
+        staging.swap(CatalogStaging.SECTION_TABLES.keySet());
+
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(names(s)).isEqualTo("only");
+            assertThat(count(s, "SEASON")).isZero();
+        }
+    }
+
+    @Test
+    void onlyTheGivenSectionsArePublished() throws SQLException {
+        staging.prepare(false);
+        try (CatalogStaging.Scope scope = CatalogStaging.enter();
+                Connection c = CatalogStaging.route(dataSource.getConnection());
+                Statement s = c.createStatement()) {
+            s.execute("INSERT INTO LIVE_STREAM (NAME) VALUES ('live')");
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('half-loaded')");
+        }
+
+        staging.swap(List.of("live"));
+
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(count(s, "LIVE_STREAM")).isEqualTo(1);
+            // The series section failed, so its previous generation stays live
+            assertThat(names(s)).isEqualTo("old-1,old-2,old-3");
+            assertThat(count(s, "SEASON")).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void resumingAChangeSetRedoesTheListingsOfUnfinishedSections() throws SQLException {
+        staging.prepare(true);
+        try (CatalogStaging.Scope scope = CatalogStaging.enter();
+                Connection c = CatalogStaging.route(dataSource.getConnection());
+                Statement s = c.createStatement()) {
+            s.execute("INSERT INTO LIVE_STREAM (NAME) VALUES ('live')");
+            s.execute("INSERT INTO SERIES (NAME) VALUES ('series')");
+            staging.recordRemoval("LIVE_STREAM", List.of(7));
+            staging.recordRemoval("SERIES", List.of(1));
+        }
+
+        // As after a restart
+        new CatalogStaging(dataSource).resume(List.of("live"));
+
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(count(s, "STAGING.LIVE_STREAM")).isZero();
+            assertThat(count(s, "STAGING.REMOVED_ROW WHERE TABLE_NAME = 'LIVE_STREAM'")).isZero();
+            assertThat(count(s, "STAGING.SERIES")).isEqualTo(1);
+            assertThat(count(s, "STAGING.REMOVED_ROW WHERE TABLE_NAME = 'SERIES'")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void fullReloadStartsEmptyAndSchemaChangesInvalidateStaging() throws SQLException {
+        assertThat(staging.isIntact()).isFalse();
+        staging.prepare(false);
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            assertThat(count(s, "STAGING.SERIES")).isZero();
+            s.execute("ALTER TABLE SERIES ADD COLUMN RATING VARCHAR(10)");
+        }
+        assertThat(staging.isIntact()).isFalse();
+    }
+
+    /** SERIES rows as "id=name", from whichever tables the calling thread is routed to. */
+    private List<String> readSeries() {
+        List<String> rows = new ArrayList<>();
+        try (Connection c = CatalogStaging.route(dataSource.getConnection());
+                Statement s = c.createStatement();
+                ResultSet rs = s.executeQuery("SELECT ID, NAME FROM SERIES ORDER BY ID")) {
+            while (rs.next()) {
+                rows.add(rs.getLong(1) + "=" + rs.getString(2));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return rows;
+    }
+
+    private static long count(Statement s, String from) throws SQLException {
+        try (ResultSet rs = s.executeQuery("SELECT COUNT(*) FROM " + from)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static String names(Statement s) throws SQLException {
+        try (ResultSet rs = s.executeQuery("SELECT LISTAGG(NAME, ',') WITHIN GROUP (ORDER BY ID) FROM SERIES")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class ContentDecodingTest {
+
+    private static final String JSON = "[" + "{\"name\":\"Some Channel\",\"stream_id\":1},".repeat(2000)
+            + "{\"name\":\"Last\",\"stream_id\":2}]";
+
+    @Test
+    void decodesGzipResponsesAndReportsTheRatio() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/player_api.php", exchange -> {
+            boolean gzip = exchange.getRequestHeaders().getFirst("Accept-Encoding").contains("gzip");
+            byte[] body = gzip ? gzip(JSON.getBytes(StandardCharsets.UTF_8)) : JSON.getBytes(StandardCharsets.UTF_8);
+            if (gzip)
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            var transfer = new AtomicReference<ContentDecoding.Transfer>();
+            var request = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/player_api.php"))
+                    .header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING).build();
+
+            String body = HttpClient.newHttpClient().send(request, ContentDecoding.ofString(transfer::set)).body();
+
+            assertThat(body).isEqualTo(JSON);
+            assertThat(transfer.get().encoding()).isEqualTo("gzip");
+            assertThat(transfer.get().decodedBytes()).isEqualTo(JSON.length());
+            assertThat(transfer.get().ratio()).isGreaterThan(10);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void readsAnEmptyGzipBodyAsAnEmptyString() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/player_api.php", exchange -> {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            var transfer = new AtomicReference<ContentDecoding.Transfer>();
+            var request = HttpRequest.newBuilder(
+                    URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/player_api.php"))
+                    .header("Accept-Encoding", ContentDecoding.ACCEPT_ENCODING).build();
+
+            String body = HttpClient.newHttpClient().send(request, ContentDecoding.ofString(transfer::set)).body();
+
+            assertThat(body).isEmpty();
+            assertThat(transfer.get().wireBytes()).isZero();
+            assertThat(transfer.get().decodedBytes()).isZero();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void acceptsZlibAndRawDeflate() throws IOException {
+        byte[] json = JSON.getBytes(StandardCharsets.UTF_8);
+        for (boolean raw : new boolean[] { false, true }) {
+            var out = new ByteArrayOutputStream();
+            try (var deflate = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+                deflate.write(json);
+            }
+            var transfer = new AtomicReference<ContentDecoding.Transfer>();
+            try (InputStream in = ContentDecoding.decode(new ByteArrayInputStream(out.toByteArray()), "deflate",
+                    transfer::set)) {
+                assertThat(in.readAllBytes()).isEqualTo(json);
+            }
+            assertThat(transfer.get().wireBytes()).isEqualTo(out.size());
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
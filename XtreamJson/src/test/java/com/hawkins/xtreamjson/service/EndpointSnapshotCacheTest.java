@@ -0,0 +1,113 @@
+package com.hawkins.xtreamjson.service;
+
+import java.net.http.HttpHeaders;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.hawkins.xtreamjson.data.EndpointSnapshot;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.EndpointSnapshotRepository;
+import com.hawkins.xtreamjson.util.ContentHashUtils;
+
+@ExtendWith(MockitoExtension.class)
+class EndpointSnapshotCacheTest {
+
+    private static final String URL = "http://panel/player_api.php?username=u&password=p&action=get_vod_streams";
+    private static final String KEY = "http://panel/player_api.php?action=get_vod_streams";
+
+    @Mock private EndpointSnapshotRepository repository;
+
+    @Test
+    void keyOf_dropsCredentials() {
+        assertThat(EndpointSnapshotCache.keyOf(URL)).isEqualTo(KEY);
+        assertThat(EndpointSnapshotCache.keyOf(
+                "http://panel/player_api.php?username=u&password=p&action=get_series&category_id=7"))
+                .isEqualTo("http://panel/player_api.php?action=get_series&category_id=7");
+    }
+
+    @Test
+    void unchangedOnlyForSameAccountAndBodyAndNeverInFullMode() {
+        var cache = new EndpointSnapshotCache(repository);
+        when(repository.findById(KEY)).thenReturn(Optional.of(EndpointSnapshot.builder().endpoint(KEY)
+                .urlHash(ContentHashUtils.hash(URL)).etag("\"v1\"").bodyHash("abc").build()));
+
+        assertThat(cache.conditionalHeaders(URL, IngestMode.DELTA)).isEqualTo(Map.of("If-None-Match", "\"v1\""));
+        assertThat(cache.unchangedReason(URL, 304, null, IngestMode.DELTA)).isEqualTo("304 Not Modified");
+        assertThat(cache.unchangedReason(URL, 200, "abc", IngestMode.DELTA)).isEqualTo("same body hash");
+        assertThat(cache.unchangedReason(URL, 200, "def", IngestMode.DELTA)).isNull();
+        assertThat(cache.unchangedReason(URL, 200, "abc", IngestMode.FULL)).isNull();
+        // Same endpoint, other account: stream URLs embed the credentials
+        assertThat(cache.unchangedReason(URL.replace("password=p", "password=q"), 200, "abc", IngestMode.DELTA))
+                .isNull();
+    }
+
+    @Test
+    void remember_keepsStoredHashOnNotModified() {
+        var cache = new EndpointSnapshotCache(repository);
+        when(repository.findById(KEY)).thenReturn(Optional.of(EndpointSnapshot.builder().endpoint(KEY)
+                .urlHash(ContentHashUtils.hash(URL)).bodyHash("abc").build()));
+
+        cache.remember(URL, HttpHeaders.of(Map.of("ETag", List.of("\"v2\"")), (a, b) -> true), null);
+        cache.publish(List.of("movies"));
+
+        List<EndpointSnapshot> saved = savedSnapshots();
+        assertThat(saved).singleElement().satisfies(snapshot -> {
+            assertThat(snapshot.getBodyHash()).isEqualTo("abc");
+            assertThat(snapshot.getEtag()).isEqualTo("\"v2\"");
+        });
+    }
+
+    @Test
+    void remember_storesNothingUntilTheSectionIsPublished() {
+        var cache = new EndpointSnapshotCache(repository);
+        String liveUrl = URL.replace("get_vod_streams", "get_live_streams");
+
+        cache.remember(URL, null, "abc");
+        cache.remember(liveUrl, null, "def");
+        verify(repository, never()).save(any());
+
+        cache.publish(List.of("live"));
+        assertThat(savedSnapshots()).extracting(EndpointSnapshot::getEndpoint)
+                .containsExactly(EndpointSnapshotCache.keyOf(liveUrl));
+
+        // A failed section's snapshots never reach the database
+        cache.discardPending();
+        cache.publish(List.of("movies"));
+        assertThat(savedSnapshots()).isEmpty();
+    }
+
+    @Test
+    void sectionOf_followsTheAction() {
+        assertThat(EndpointSnapshotCache.sectionOf(URL)).isEqualTo("movies");
+        assertThat(EndpointSnapshotCache.sectionOf(KEY.replace("get_vod_streams", "get_live_categories")))
+                .isEqualTo("live");
+        assertThat(EndpointSnapshotCache.sectionOf(KEY.replace("get_vod_streams", "get_series&category_id=7")))
+                .isEqualTo("series");
+        assertThat(EndpointSnapshotCache.sectionOf("http://panel/xmltv.php")).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EndpointSnapshot> savedSnapshots() {
+        ArgumentCaptor<Iterable<EndpointSnapshot>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository, atLeastOnce()).saveAll(saved.capture());
+        List<EndpointSnapshot> snapshots = new ArrayList<>();
+        saved.getValue().forEach(snapshots::add);
+        clearInvocations(repository);
+        return snapshots;
+    }
+}
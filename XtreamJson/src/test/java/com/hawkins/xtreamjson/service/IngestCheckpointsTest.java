@@ -0,0 +1,116 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.hawkins.xtreamjson.data.IngestCheckpoint;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.IngestCheckpointRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IngestCheckpointsTest {
+
+    private static final String PROVIDER = "http://panel#user";
+
+    @Mock private IngestCheckpointRepository repository;
+
+    private static IngestCheckpoint checkpoint(String provider, boolean finished, String sections) {
+        return IngestCheckpoint.builder().id(IngestCheckpoints.CHECKPOINT_ID).provider(provider)
+                .mode(IngestMode.FULL).startedAt(Instant.now().minus(Duration.ofHours(3)))
+                .completedSections(sections).publishedSections("live").attempts(1).finished(finished).build();
+    }
+
+    @Test
+    void begin_resumesUnfinishedRunOfSameProvider() {
+        IngestCheckpoint last = checkpoint(PROVIDER, false, "live,movies");
+        when(repository.findById(IngestCheckpoints.CHECKPOINT_ID)).thenReturn(Optional.of(last));
+
+        var run = new IngestCheckpoints(repository).begin(PROVIDER, IngestMode.FULL, true);
+
+        assertThat(run.resumed()).isTrue();
+        assertThat(run.startedAt()).isEqualTo(last.getStartedAt());
+        assertThat(run.isDone("movies")).isTrue();
+        assertThat(run.isDone("series")).isFalse();
+        assertThat(run.isPublished("live")).isTrue();
+        assertThat(run.isPublished("movies")).isFalse();
+        verify(repository).save(last);
+        assertThat(last.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void begin_startsOverOnceTheRunUsedUpItsAttemptsOrGotTooOld() {
+        IngestCheckpoint retried = checkpoint(PROVIDER, false, "live,movies");
+        retried.setAttempts(IngestCheckpoints.MAX_ATTEMPTS);
+        IngestCheckpoint stale = checkpoint(PROVIDER, false, "live,movies");
+        stale.setStartedAt(Instant.now().minus(IngestCheckpoints.MAX_AGE).minusSeconds(60));
+        when(repository.findById(IngestCheckpoints.CHECKPOINT_ID))
+                .thenReturn(Optional.of(retried))
+                .thenReturn(Optional.of(stale));
+
+        var checkpoints = new IngestCheckpoints(repository);
+        for (int i = 0; i < 2; i++) {
+            var run = checkpoints.begin(PROVIDER, IngestMode.DELTA, true);
+
+            assertThat(run.resumed()).isFalse();
+            assertThat(run.abandoned()).isTrue();
+            assertThat(run.completedSections()).isEmpty();
+        }
+        var saved = ArgumentCaptor.forClass(IngestCheckpoint.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).allSatisfy(checkpoint -> {
+            assertThat(checkpoint.getAttempts()).isEqualTo(1);
+            assertThat(checkpoint.getPublishedSections()).isEmpty();
+        });
+    }
+
+    @Test
+    void begin_startsOverAfterFinishedRunOrOtherProvider() {
+        when(repository.findById(IngestCheckpoints.CHECKPOINT_ID))
+                .thenReturn(Optional.of(checkpoint("http://other#user", false, "live")));
+
+        var run = new IngestCheckpoints(repository).begin(PROVIDER, IngestMode.DELTA, true);
+
+        assertThat(run.resumed()).isFalse();
+        var saved = ArgumentCaptor.forClass(IngestCheckpoint.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getProvider()).isEqualTo(PROVIDER);
+        assertThat(saved.getValue().getCompletedSections()).isEmpty();
+    }
+
+    @Test
+    void sectionsPublished_appendsToPublishedSections() {
+        when(repository.findById(IngestCheckpoints.CHECKPOINT_ID))
+                .thenReturn(Optional.of(checkpoint(PROVIDER, false, "live,movies")));
+
+        new IngestCheckpoints(repository).sectionsPublished(List.of("movies"));
+
+        var saved = ArgumentCaptor.forClass(IngestCheckpoint.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getPublishedSections()).isEqualTo("live,movies");
+    }
+
+    @Test
+    void sectionDone_appendsToCompletedSections() {
+        when(repository.findById(IngestCheckpoints.CHECKPOINT_ID))
+                .thenReturn(Optional.of(checkpoint(PROVIDER, false, "live")));
+
+        new IngestCheckpoints(repository).sectionDone("series");
+
+        var saved = ArgumentCaptor.forClass(IngestCheckpoint.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getCompletedSections()).isEqualTo("live,series");
+    }
+}
@@ -0,0 +1,43 @@
+package com.hawkins.xtreamjson.service;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestMetricsTest {
+
+    @Test
+    void tagsEndpointsByActionWithoutCredentials() {
+        assertThat(IngestMetrics.endpointOf(
+                "http://host/player_api.php?username=u&password=p&action=get_series_info&series_id=7"))
+                .isEqualTo("get_series_info");
+        assertThat(IngestMetrics.endpointOf("http://host/player_api.php?username=u&password=p"))
+                .isEqualTo("player_api.php");
+    }
+
+    @Test
+    void countsRetriesAndRowsPerTag() {
+        var registry = new SimpleMeterRegistry();
+        var metrics = new IngestMetrics(registry);
+        URI uri = URI.create("http://host/player_api.php?action=get_live_streams");
+
+        metrics.retry(uri);
+        metrics.retry(uri);
+        metrics.rowsSaved("LiveStream", 120);
+        metrics.rowsDeleted("LiveStream", 0);
+        metrics.flush("episodes", "Episode", List.of(1, 2, 3), () -> {
+        });
+
+        assertThat(registry.get(IngestMetrics.HTTP_RETRIES).tag("endpoint", "get_live_streams").counter().count())
+                .isEqualTo(2);
+        assertThat(registry.get(IngestMetrics.ROWS).tag("entity", "LiveStream").tag("operation", "saved")
+                .counter().count()).isEqualTo(120);
+        assertThat(registry.find(IngestMetrics.ROWS).tag("operation", "deleted").counter()).isNull();
+        assertThat(registry.get(IngestMetrics.ROWS).tag("entity", "Episode").counter().count()).isEqualTo(3);
+        assertThat(registry.get(IngestMetrics.WRITER_FLUSH).tag("writer", "episodes").timer().count()).isEqualTo(1);
+    }
+}
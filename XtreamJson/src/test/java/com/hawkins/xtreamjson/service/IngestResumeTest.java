@@ -0,0 +1,149 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.hawkins.xtreamjson.data.EndpointSnapshot;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.EndpointSnapshotRepository;
+
+/**
+ * A delta run interrupted after its series listing was staged, then resumed:
+ * the listing must be applied again and published, not skipped because the
+ * provider still answers with the bytes the interrupted run saw.
+ */
+class IngestResumeTest {
+
+    private static final String LISTING = "http://panel/player_api.php?username=u&password=p&action=get_series"
+            + "&category_id=1";
+
+    private JdbcDataSource dataSource;
+    private final Map<String, EndpointSnapshot> stored = new ConcurrentHashMap<>();
+    private final EndpointSnapshotRepository repository = mock(EndpointSnapshotRepository.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:resume" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            for (String table : CatalogStaging.TABLES) {
+                s.execute("CREATE TABLE " + table + " (ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                        + " NAME VARCHAR(50), SERIES_ID VARCHAR(20))");
+            }
+            s.execute("INSERT INTO SERIES (ID, NAME) VALUES (1, 'old')");
+        }
+        when(repository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(stored.get(inv.getArgument(0))));
+        when(repository.findAll()).thenAnswer(inv -> List.copyOf(stored.values()));
+        doAnswer(inv -> {
+            ((Iterable<EndpointSnapshot>) inv.getArgument(0)).forEach(s -> stored.put(s.getEndpoint(), s));
+            return null;
+        }).when(repository).saveAll(any());
+        doAnswer(inv -> {
+            ((Iterable<EndpointSnapshot>) inv.getArgument(0)).forEach(s -> stored.remove(s.getEndpoint()));
+            return null;
+        }).when(repository).deleteAllInBatch(any());
+    }
+
+    @Test
+    void resumedChangeSetAppliesTheInterruptedListingAgain() throws SQLException {
+        publishedListing("v1");
+
+        // The delta run stages the changed listing, then the process dies before publishing
+        CatalogStaging staging = new CatalogStaging(dataSource);
+        EndpointSnapshotCache snapshots = new EndpointSnapshotCache(repository);
+        staging.prepare(true);
+        assertThat(applyListing(staging, snapshots, IngestMode.DELTA, "v2")).isTrue();
+
+        assertThat(resumeAndPublish("v2")).isTrue();
+        assertThat(liveSeries()).containsExactly("new");
+    }
+
+    @Test
+    void resumedFullGenerationAppliesTheListingAgainEvenIfUnchanged() throws SQLException {
+        publishedListing("v1");
+
+        // A full reload that dies before its (unchanged) listing was staged in full
+        CatalogStaging staging = new CatalogStaging(dataSource);
+        staging.prepare(false);
+
+        assertThat(resumeAndPublish("v1")).isTrue();
+        assertThat(liveSeries()).containsExactly("new");
+    }
+
+    /** A previous run published the listing with body {@code hash}. */
+    private void publishedListing(String hash) {
+        EndpointSnapshotCache snapshots = new EndpointSnapshotCache(repository);
+        snapshots.remember(LISTING, null, hash);
+        snapshots.publish(List.of("series"));
+    }
+
+    /**
+     * Resumes the series section after a restart, as {@link JsonService} does,
+     * applies the listing with body {@code hash} and publishes it. Returns
+     * whether the listing was applied rather than skipped.
+     */
+    private boolean resumeAndPublish(String hash) throws SQLException {
+        var run = new IngestCheckpoints.Run(Instant.now(), true, false, Set.of("live", "movies"), Set.of());
+        CatalogStaging staging = new CatalogStaging(dataSource);
+        EndpointSnapshotCache snapshots = new EndpointSnapshotCache(repository);
+        staging.resume(run.unfinishedSections());
+        snapshots.forget(run.unfinishedSections());
+
+        boolean applied = applyListing(staging, snapshots, IngestMode.DELTA, hash);
+        staging.swap(run.unfinishedSections());
+        snapshots.publish(run.unfinishedSections());
+        // Published now, so the same bytes are skipped from here on
+        assertThat(snapshots.unchangedReason(LISTING, 200, hash, IngestMode.DELTA)).isEqualTo("same body hash");
+        return applied;
+    }
+
+    /**
+     * The listing step of the series section: skipped when the snapshot
+     * matches, otherwise the listed series replaces the stored one.
+     */
+    private boolean applyListing(CatalogStaging staging, EndpointSnapshotCache snapshots, IngestMode mode,
+            String hash) throws SQLException {
+        if (snapshots.unchangedReason(LISTING, 200, hash, mode) != null)
+            return false;
+        try (CatalogStaging.Scope scope = CatalogStaging.enter();
+                Connection c = CatalogStaging.route(dataSource.getConnection());
+                PreparedStatement ps = c.prepareStatement("INSERT INTO SERIES (ID, NAME) VALUES (2, 'new')")) {
+            ps.executeUpdate();
+            staging.recordRemoval("SERIES", List.of(1));
+        }
+        snapshots.remember(LISTING, null, hash);
+        return true;
+    }
+
+    private List<String> liveSeries() throws SQLException {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement();
+                ResultSet rs = s.executeQuery("SELECT NAME FROM SERIES ORDER BY ID")) {
+            List<String> names = new ArrayList<>();
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+            return names;
+        }
+    }
+}
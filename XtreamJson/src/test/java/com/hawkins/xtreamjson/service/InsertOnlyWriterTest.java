@@ -0,0 +1,83 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import com.hawkins.xtreamjson.data.MovieStream;
+
+class InsertOnlyWriterTest {
+
+    private SessionFactory hibernate;
+    private InsertOnlyWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        hibernate = new Configuration()
+                .addAnnotatedClass(MovieStream.class)
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:insert" + System.nanoTime())
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.jdbc.batch_size", "500")
+                .setProperty("hibernate.generate_statistics", "true")
+                .buildSessionFactory();
+        writer = new InsertOnlyWriter(SharedEntityManagerCreator.createSharedEntityManager(hibernate),
+                new JpaTransactionManager(hibernate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernate.close();
+    }
+
+    private static MovieStream movie(int id) {
+        return MovieStream.builder().streamId(id).name("Movie " + id).build();
+    }
+
+    private long count() {
+        return hibernate.fromSession(session -> session.createQuery("select count(*) from MovieStream", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    void insertsInChunksWithoutLookingRowsUp() {
+        List<MovieStream> rows = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            rows.add(movie(i));
+        }
+        Statistics stats = hibernate.getStatistics();
+        stats.clear();
+
+        writer.insert(rows, 4, chunk -> {
+            throw new AssertionError("no fallback expected");
+        });
+
+        assertThat(stats.getEntityInsertCount()).isEqualTo(10);
+        assertThat(stats.getTransactionCount()).isEqualTo(3);
+        // merge would have issued one SELECT per row on top of the batched INSERTs
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(count()).isEqualTo(10);
+    }
+
+    @Test
+    void mergesAChunkThatHitsAnExistingId() {
+        writer.insert(List.of(movie(1)), 10, chunk -> {
+        });
+        List<List<MovieStream>> merged = new ArrayList<>();
+
+        writer.insert(List.of(movie(2), movie(1)), 10, merged::add);
+
+        assertThat(merged).hasSize(1);
+        assertThat(merged.get(0)).extracting(MovieStream::getStreamId).containsExactly(2, 1);
+        assertThat(count()).isEqualTo(1); // the failed chunk was rolled back
+    }
+}
@@ -0,0 +1,96 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
+import com.hawkins.xtreamjson.repository.LiveStreamRepository;
+import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+
+class JsonServiceIngestTest {
+
+    private final ObjectReader movieReader = new ObjectMapper().readerFor(MovieStream.class);
+
+    private static ByteArrayInputStream json(String s) {
+        return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readArrayInBatches_emitsFixedSizeBatchesAndRemainder() throws Exception {
+        String body = "[{\"stream_id\":1,\"name\":\"A\"},{\"stream_id\":2,\"name\":\"B\"},"
+                + "{\"stream_id\":3,\"name\":\"C\",\"category_ids\":[\"1\",\"2\"]}]";
+        List<List<MovieStream>> batches = new ArrayList<>();
+
+        long count = JsonService.readArrayInBatches(json(body), movieReader, MovieStream.class, 2, batches::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).extracting(MovieStream::getStreamId).containsExactly(1, 2);
+        assertThat(batches.get(1)).extracting(MovieStream::getName).containsExactly("C");
+    }
+
+    @Test
+    void retreiveJsonData_refusesASecondRunWhileOneIsInProgress() throws Exception {
+        IptvProviderService providers = mock(IptvProviderService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(providers.getSelectedProvider()).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return Optional.empty();
+        });
+        JsonService service = new JsonService(providers, mock(LiveCategoryRepository.class),
+                mock(LiveStreamRepository.class), mock(MovieCategoryRepository.class),
+                mock(MovieStreamRepository.class), mock(SeriesCategoryRepository.class),
+                mock(SeriesRepository.class), mock(EpisodeRepository.class), mock(SeriesInfoStateRepository.class),
+                mock(ApplicationPropertiesService.class), mock(CatalogDeltaSync.class),
+                mock(ProviderApiClient.class), mock(EndpointSnapshotCache.class), mock(MissingSeriesRegistry.class),
+                mock(IngestCheckpoints.class), new IngestMetrics(new SimpleMeterRegistry()),
+                mock(CatalogStaging.class), mock(SeriesInfoBulkWriter.class), mock(TitleSearchIndex.class),
+                mock(CatalogReadModel.class), new ObjectMapper());
+        try {
+            CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(service::retreiveJsonData);
+            started.await();
+
+            assertThat(service.isIngestRunning()).isTrue();
+            assertThat(service.retreiveJsonData()).isFalse();
+
+            release.countDown();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(service.isIngestRunning()).isFalse();
+            assertThat(service.retreiveJsonData()).isTrue();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void readArrayInBatches_treatsNonArrayBodyAsEmpty() throws Exception {
+        List<List<MovieStream>> batches = new ArrayList<>();
+
+        long count = JsonService.readArrayInBatches(json("{}"), movieReader, MovieStream.class, 10, batches::add);
+
+        assertThat(count).isZero();
+        assertThat(batches).isEmpty();
+    }
+}
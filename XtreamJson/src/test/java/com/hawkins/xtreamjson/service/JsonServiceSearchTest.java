@@ -1,19 +1,24 @@
 package com.hawkins.xtreamjson.service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.hawkins.xtreamjson.data.ApplicationProperties;
 import com.hawkins.xtreamjson.data.MovieStream;
 import com.hawkins.xtreamjson.data.Series;
 import com.hawkins.xtreamjson.repository.EpisodeRepository;
@@ -21,9 +26,10 @@ import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
 import com.hawkins.xtreamjson.repository.LiveStreamRepository;
 import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
 import com.hawkins.xtreamjson.repository.MovieStreamRepository;
-import com.hawkins.xtreamjson.repository.SeasonRepository;
 import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
 import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
 
 @ExtendWith(MockitoExtension.class)
 class JsonServiceSearchTest {
@@ -35,9 +41,18 @@ class JsonServiceSearchTest {
     @Mock private MovieStreamRepository movieStreamRepository;
     @Mock private SeriesCategoryRepository seriesCategoryRepository;
     @Mock private SeriesRepository seriesRepository;
-    @Mock private SeasonRepository seasonRepository;
     @Mock private EpisodeRepository episodeRepository;
+    @Mock private SeriesInfoStateRepository seriesInfoStateRepository;
     @Mock private ApplicationPropertiesService applicationPropertiesService;
+    @Mock private CatalogDeltaSync deltaSync;
+    @Mock private ProviderApiClient apiClient;
+    @Mock private EndpointSnapshotCache snapshots;
+    @Mock private MissingSeriesRegistry missingSeriesRegistry;
+    @Mock private IngestCheckpoints checkpoints;
+    @Mock private CatalogStaging staging;
+    @Mock private SeriesInfoBulkWriter bulkWriter;
+    @Mock private TitleSearchIndex titleSearch;
+    @Mock private CatalogReadModel catalog;
 
     // Manually constructed so we can pass a real ObjectMapper
     private JsonService jsonService;
@@ -52,42 +67,69 @@ class JsonServiceSearchTest {
                 movieStreamRepository,
                 seriesCategoryRepository,
                 seriesRepository,
-                seasonRepository,
                 episodeRepository,
+                seriesInfoStateRepository,
                 applicationPropertiesService,
+                deltaSync,
+                apiClient,
+                snapshots,
+                missingSeriesRegistry,
+                checkpoints,
+                new IngestMetrics(new SimpleMeterRegistry()),
+                staging,
+                bulkWriter,
+                titleSearch,
+                catalog,
                 new ObjectMapper());
     }
 
+    private static Series series(int id, String name, String year) {
+        Series s = new Series();
+        s.setSeriesId(id);
+        s.setName(name);
+        s.setCleanTitle(name);
+        s.setReleaseYear(year);
+        return s;
+    }
+
+    private static MovieStream movie(int id, String name, String year) {
+        MovieStream m = new MovieStream();
+        m.setStreamId(id);
+        m.setName(name);
+        m.setCleanTitle(XtreamCodesUtils.cleanTitle(name));
+        m.setReleaseYear(year);
+        return m;
+    }
+
+    private void catalogOf(List<MovieStream> movies, List<Series> series) {
+        when(catalog.current()).thenReturn(CatalogSnapshot.of(List.of(), List.of(), List.of(), movies, List.of(),
+                series, List.of(), List.of()));
+    }
+
     // -----------------------------------------------------------------------
     // Series year search
     // -----------------------------------------------------------------------
 
     @Test
-    void searchSeriesByTitle_whenQueryIsYear_callsSearchByReleaseYear() {
-        Series s = new Series();
-        s.setName("Breaking Bad");
-        s.setReleaseDate("2008-01-20");
-        when(seriesRepository.searchByReleaseYear("2008")).thenReturn(List.of(s));
+    void searchSeriesByTitle_whenQueryIsYear_listsThatYearByTitle() {
+        catalogOf(List.of(), List.of(series(1, "Breaking Bad", "2008"), series(2, "Lost", "2004"),
+                series(3, "Fringe", "2008")));
 
         List<Series> results = jsonService.searchSeriesByTitle("2008");
 
-        assertThat(results).hasSize(1);
-        assertThat(results.get(0).getName()).isEqualTo("Breaking Bad");
-        verify(seriesRepository).searchByReleaseYear("2008");
-        verify(seriesRepository, never()).searchByNameContaining(anyString());
+        assertThat(results).extracting(Series::getName).containsExactly("Breaking Bad", "Fringe");
+        verify(titleSearch, never()).searchSeries(anyString(), anyInt());
     }
 
     @Test
-    void searchSeriesByTitle_whenQueryIsTitle_callsSearchByNameContaining() {
-        Series s = new Series();
-        s.setName("Breaking Bad");
-        when(seriesRepository.searchByNameContaining("Breaking")).thenReturn(List.of(s));
+    void searchSeriesByTitle_whenQueryIsTitle_usesTheTitleIndex() {
+        catalogOf(List.of(), List.of(series(7, "Breaking Bad", "2008")));
+        when(titleSearch.searchSeries("Breaking", 100)).thenReturn(List.of(7));
 
         List<Series> results = jsonService.searchSeriesByTitle("Breaking");
 
-        assertThat(results).hasSize(1);
-        verify(seriesRepository).searchByNameContaining("Breaking");
-        verify(seriesRepository, never()).searchByReleaseYear(anyString());
+        assertThat(results).extracting(Series::getSeriesId).containsExactly(7);
+        verify(titleSearch).searchSeries("Breaking", 100);
     }
 
     @Test
@@ -95,8 +137,8 @@ class JsonServiceSearchTest {
         List<Series> results = jsonService.searchSeriesByTitle("  ");
 
         assertThat(results).isEmpty();
-        verify(seriesRepository, never()).searchByNameContaining(anyString());
-        verify(seriesRepository, never()).searchByReleaseYear(anyString());
+        verify(titleSearch, never()).searchSeries(anyString(), anyInt());
+        verify(catalog, never()).current();
     }
 
     @Test
@@ -108,7 +150,7 @@ class JsonServiceSearchTest {
 
     @Test
     void searchSeriesByTitle_whenYearQueryReturnsNoResults_returnsEmptyList() {
-        when(seriesRepository.searchByReleaseYear("1999")).thenReturn(List.of());
+        catalogOf(List.of(), List.of(series(1, "Breaking Bad", "2008")));
 
         List<Series> results = jsonService.searchSeriesByTitle("1999");
 
@@ -116,35 +158,22 @@ class JsonServiceSearchTest {
     }
 
     // -----------------------------------------------------------------------
-    // Movie year search  (year extracted from title, e.g. "Inception (2010)")
+    // Movie year search  (year stored from the title, e.g. "Inception (2010)")
     // -----------------------------------------------------------------------
 
     @Test
-    void searchMoviesByTitle_whenQueryIsYear_filtersMoviesWithMatchingTitleYear() {
-        MovieStream match = new MovieStream();
-        match.setStreamId(1);
-        match.setName("Inception (2010)");
-
-        MovieStream noMatch = new MovieStream();
-        noMatch.setStreamId(2);
-        noMatch.setName("The Matrix (1999)");
-
-        // The repo's LIKE '%2010%' would return both; service then filters
-        when(movieStreamRepository.searchByNameContaining("2010"))
-                .thenReturn(List.of(match, noMatch));
+    void searchMoviesByTitle_whenQueryIsYear_looksUpTheStoredTitleYear() {
+        catalogOf(List.of(movie(1, "Inception (2010)", "2010"), movie(2, "Heat (1995)", "1995")), List.of());
 
         List<MovieStream> results = jsonService.searchMoviesByTitle("2010");
 
-        assertThat(results).hasSize(1);
-        // cleanTitle strips the year suffix, so just check id
-        assertThat(results.get(0).getStreamId()).isEqualTo(1);
-        verify(movieStreamRepository).searchByNameContaining("2010");
+        assertThat(results).extracting(MovieStream::getStreamId).containsExactly(1);
+        verify(titleSearch, never()).searchMovies(anyString(), anyInt());
     }
 
     @Test
     void searchMoviesByTitle_whenQueryIsYear_returnsEmptyWhenNoTitleContainsYear() {
-        // No movie has "2025" anywhere in its name
-        when(movieStreamRepository.searchByNameContaining("2025")).thenReturn(List.of());
+        catalogOf(List.of(movie(1, "Inception (2010)", "2010")), List.of());
 
         List<MovieStream> results = jsonService.searchMoviesByTitle("2025");
 
@@ -152,16 +181,17 @@ class JsonServiceSearchTest {
     }
 
     @Test
-    void searchMoviesByTitle_whenQueryIsTitle_delegatesToNameContaining() {
-        MovieStream m = new MovieStream();
-        m.setStreamId(3);
-        m.setName("Inception (2010)");
-        when(movieStreamRepository.searchByNameContaining("Inception")).thenReturn(List.of(m));
+    void searchMoviesByTitle_whenQueryIsTitle_returnsRankedCleanCopies() {
+        MovieStream best = movie(5, "EN - Inception", null);
+        catalogOf(List.of(movie(3, "Inception (2010)", "2010"), best), List.of());
+        // 9 was dropped by the last publish but is still in the index
+        when(titleSearch.searchMovies("Inception", 100)).thenReturn(List.of(5, 9, 3));
 
         List<MovieStream> results = jsonService.searchMoviesByTitle("Inception");
 
-        assertThat(results).hasSize(1);
-        verify(movieStreamRepository).searchByNameContaining("Inception");
+        assertThat(results).extracting(MovieStream::getStreamId).containsExactly(5, 3);
+        assertThat(results.get(0).getName()).isEqualTo("Inception");
+        assertThat(best.getName()).isEqualTo("EN - Inception");
     }
 
     @Test
@@ -169,7 +199,7 @@ class JsonServiceSearchTest {
         List<MovieStream> results = jsonService.searchMoviesByTitle("");
 
         assertThat(results).isEmpty();
-        verify(movieStreamRepository, never()).searchByNameContaining(anyString());
+        verify(titleSearch, never()).searchMovies(anyString(), anyInt());
     }
 
     // -----------------------------------------------------------------------
@@ -178,21 +208,49 @@ class JsonServiceSearchTest {
 
     @Test
     void searchSeriesByTitle_threeDigitNumber_treatedAsTitle() {
-        when(seriesRepository.searchByNameContaining("202")).thenReturn(List.of());
+        catalogOf(List.of(), List.of(series(1, "Room 202", "2020")));
+        when(titleSearch.searchSeries("202", 100)).thenReturn(List.of());
 
         jsonService.searchSeriesByTitle("202");
 
-        verify(seriesRepository).searchByNameContaining("202");
-        verify(seriesRepository, never()).searchByReleaseYear(anyString());
+        verify(titleSearch).searchSeries("202", 100);
     }
 
     @Test
     void searchSeriesByTitle_fiveDigitNumber_treatedAsTitle() {
-        when(seriesRepository.searchByNameContaining("20234")).thenReturn(List.of());
+        catalogOf(List.of(), List.of());
+        when(titleSearch.searchSeries("20234", 100)).thenReturn(List.of());
 
         jsonService.searchSeriesByTitle("20234");
 
-        verify(seriesRepository).searchByNameContaining("20234");
-        verify(seriesRepository, never()).searchByReleaseYear(anyString());
+        verify(titleSearch).searchSeries("20234", 100);
+    }
+
+    // -----------------------------------------------------------------------
+    // Category pages, filtered and paged from the snapshot
+    // -----------------------------------------------------------------------
+
+    @Test
+    void getMoviesByCategory_pagesTheIncludedTitlesOfALetterInNameOrder() {
+        List<MovieStream> movies = new ArrayList<>();
+        for (String name : new String[] { "EN - Bravo", "FR - Bonjour", "EN - Alpha", "Bad Boys", "EN - Blade",
+                "EN - Beta" }) {
+            MovieStream m = movie(movies.size() + 1, name, null);
+            m.setCategoryId("10");
+            m.setPreface(XtreamCodesUtils.extractPreface(name));
+            m.setFirstLetter(XtreamCodesUtils.firstLetter(m.getCleanTitle()));
+            movies.add(m);
+        }
+        catalogOf(movies, List.of());
+        ApplicationProperties props = new ApplicationProperties();
+        props.setIncludedCountries("EN");
+        when(applicationPropertiesService.getCurrentProperties()).thenReturn(props);
+
+        Page<MovieStream> page = jsonService.getMoviesByCategory("10", 1, 2, "b");
+
+        // "Bad Boys" has no preface and is kept, "FR - Bonjour" is not included
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(MovieStream::getName).containsExactly("Blade", "Bravo");
+        assertThat(jsonService.getAvailableStartingLetters("10")).containsExactly("A", "B");
     }
 }
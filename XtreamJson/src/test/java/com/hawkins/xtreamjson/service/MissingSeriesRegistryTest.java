@@ -0,0 +1,59 @@
+package com.hawkins.xtreamjson.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.hawkins.xtreamjson.data.MissingSeries;
+import com.hawkins.xtreamjson.repository.MissingSeriesRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MissingSeriesRegistryTest {
+
+    private static final String API = "http://panel";
+
+    @Mock private MissingSeriesRepository repository;
+
+    @Test
+    void load_splitsActiveFromDueEntries() {
+        Instant now = Instant.now();
+        when(repository.findByIdStartingWith(API + "#")).thenReturn(List.of(
+                MissingSeries.builder().id(API + "#1").seriesId("1").recheckAfter(now.plusSeconds(3600)).build(),
+                MissingSeries.builder().id(API + "#2").seriesId("2").recheckAfter(now.minusSeconds(1)).build()));
+
+        var entries = new MissingSeriesRegistry(repository).load(API);
+
+        assertThat(entries.active()).containsExactly("1");
+        assertThat(entries.due()).containsExactly("2");
+    }
+
+    @Test
+    void markMissing_stretchesRecheckWithEachConfirmation() {
+        when(repository.findById(API + "#9")).thenReturn(Optional.of(
+                MissingSeries.builder().id(API + "#9").seriesId("9").confirmations(1).build()));
+
+        new MissingSeriesRegistry(repository).markMissing(API, "9", 10);
+
+        var saved = ArgumentCaptor.forClass(MissingSeries.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getConfirmations()).isEqualTo(2);
+        // Second confirmation: twice the TTL, within the jitter
+        Duration wait = Duration.between(saved.getValue().getLastVerifiedAt(), saved.getValue().getRecheckAfter());
+        assertThat(wait).isBetween(Duration.ofDays(16), Duration.ofDays(24));
+    }
+
+    @Test
+    void nextTtl_isCappedAtFourTimesTheTtl() {
+        assertThat(MissingSeriesRegistry.nextTtl(10, 50)).isLessThanOrEqualTo(Duration.ofDays(48));
+    }
+}
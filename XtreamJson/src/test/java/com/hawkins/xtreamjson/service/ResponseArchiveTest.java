@@ -0,0 +1,82 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.hawkins.xtreamjson.util.XstreamCredentials;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResponseArchiveTest {
+
+    private static final String CATEGORIES = "[{\"category_id\":\"1\",\"category_name\":\"UK| News\"}]";
+    private static final String STREAMS = "[" + "{\"stream_id\":1,\"name\":\"Channel\"},".repeat(5000)
+            + "{\"stream_id\":2,\"name\":\"Last\"}]";
+
+    @TempDir
+    Path archiveRoot;
+
+    @Test
+    void replaysARecordedRunWithoutTheProvider() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/player_api.php", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (query.contains("get_live_categories")) {
+                byte[] body = CATEGORIES.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } else if (query.contains("get_live_streams")) {
+                // compressed by the provider
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (var gzip = new GZIPOutputStream(exchange.getResponseBody())) {
+                    gzip.write(STREAMS.getBytes(StandardCharsets.UTF_8));
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        var creds = new XstreamCredentials(base, "user", "secret");
+        String categoriesUrl = base + "/player_api.php?username=user&password=secret&action=get_live_categories";
+        String streamsUrl = base + "/player_api.php?username=user&password=secret&action=get_live_streams";
+        String infoUrl = base + "/player_api.php?username=user&password=secret&action=get_series_info&series_id=9";
+
+        var client = new ProviderApiClient(new IngestMetrics(new SimpleMeterRegistry()));
+        ResponseArchive recording = ResponseArchive.record(archiveRoot);
+        client.useArchive(recording);
+        try {
+            assertThat(client.getWithRetry(categoriesUrl, creds, 0).body).isEqualTo(CATEGORIES);
+            try (InputStream in = client.sendWithRetry(streamsUrl, creds, 0, client.ofInputStream(streamsUrl))
+                    .body()) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(STREAMS);
+            }
+            assertThat(client.getWithRetry(infoUrl, creds, 0).status).isEqualTo(404);
+        } finally {
+            server.stop(0);
+        }
+        assertThat(recording.dir().resolve(ResponseArchive.nameOf(java.net.URI.create(categoriesUrl)) + ".gz"))
+                .exists();
+        assertThat(ResponseArchive.nameOf(java.net.URI.create(categoriesUrl))).doesNotContain("secret");
+
+        // Replay from the root picks the latest snapshot; the provider is gone
+        client.useArchive(ResponseArchive.replay(archiveRoot));
+        assertThat(client.getWithRetry(categoriesUrl, creds, 0).body).isEqualTo(CATEGORIES);
+        try (InputStream in = client.sendWithRetry(streamsUrl, creds, 0, client.ofInputStream(streamsUrl)).body()) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(STREAMS);
+        }
+        assertThat(client.getWithRetry(infoUrl, creds, 0).status).isEqualTo(404);
+        assertThat(client.getWithRetry(base + "/player_api.php?action=get_vod_streams", creds, 0).status)
+                .isEqualTo(404);
+    }
+}
@@ -0,0 +1,168 @@
+package com.hawkins.xtreamjson.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.hawkins.xtreamjson.data.ApplicationProperties;
+import com.hawkins.xtreamjson.data.FanOutMode;
+import com.hawkins.xtreamjson.data.IngestMode;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.LiveCategoryRepository;
+import com.hawkins.xtreamjson.repository.LiveStreamRepository;
+import com.hawkins.xtreamjson.repository.MovieCategoryRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+import com.hawkins.xtreamjson.repository.SeriesCategoryRepository;
+import com.hawkins.xtreamjson.repository.SeriesInfoStateRepository;
+import com.hawkins.xtreamjson.repository.SeriesRepository;
+import com.hawkins.xtreamjson.util.Constants;
+import com.hawkins.xtreamjson.util.XstreamCredentials;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Before/after benchmark of the series listing and get_series_info fan-out against a local stub
+ * provider. Run with {@code mvn test -Dbenchmark=true -Dtest=SeriesFanOutBenchmarkTest}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SeriesFanOutBenchmarkTest {
+
+    private static final int SERIES = 1000;
+    private static final int CATEGORIES = 40;
+    private static final int PROVIDER_LATENCY_MS = 50;
+    private static final int MAX_INFLIGHT = 128;
+
+    private HttpServer server;
+    private final AtomicInteger seriesInfoCalls = new AtomicInteger();
+    private ApplicationPropertiesService applicationPropertiesService;
+    private JsonService jsonService;
+    private ProviderApiClient apiClient;
+    private XstreamCredentials creds;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/player_api.php", this::handle);
+        server.start();
+        creds = new XstreamCredentials("http://127.0.0.1:" + server.getAddress().getPort(), "user", "pass");
+
+        applicationPropertiesService = mock(ApplicationPropertiesService.class);
+        IngestMetrics metrics = new IngestMetrics(new SimpleMeterRegistry());
+        apiClient = new ProviderApiClient(metrics);
+        jsonService = new JsonService(mock(IptvProviderService.class), mock(LiveCategoryRepository.class),
+                mock(LiveStreamRepository.class), mock(MovieCategoryRepository.class),
+                mock(MovieStreamRepository.class), mock(SeriesCategoryRepository.class),
+                mock(SeriesRepository.class), mock(EpisodeRepository.class),
+                mock(SeriesInfoStateRepository.class),
+                applicationPropertiesService, mock(CatalogDeltaSync.class), apiClient,
+                mock(EndpointSnapshotCache.class), missingSeriesRegistry(),
+                mock(IngestCheckpoints.class), metrics, mock(CatalogStaging.class),
+                mock(SeriesInfoBulkWriter.class), mock(TitleSearchIndex.class), mock(CatalogReadModel.class),
+                new ObjectMapper());
+    }
+
+    private static MissingSeriesRegistry missingSeriesRegistry() {
+        MissingSeriesRegistry registry = mock(MissingSeriesRegistry.class);
+        when(registry.load(org.mockito.ArgumentMatchers.anyString()))
+                .thenReturn(new MissingSeriesRegistry.Entries(Set.of(), Set.of()));
+        return registry;
+    }
+
+    @AfterEach
+    void tearDown() {
+        jsonService.shutdown();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        String body;
+        if (query.contains("action=get_series_categories")) {
+            StringBuilder sb = new StringBuilder("[");
+            for (int c = 1; c <= CATEGORIES; c++) {
+                sb.append(c > 1 ? "," : "").append("{\"category_id\":\"").append(c)
+                        .append("\",\"category_name\":\"EN | Genre ").append(c).append("\",\"parent_id\":0}");
+            }
+            body = sb.append(']').toString();
+        } else if (query.contains("action=get_series_info")) {
+            seriesInfoCalls.incrementAndGet();
+            simulateLatency();
+            body = "{\"episodes\":{\"1\":[{\"id\":\"1\",\"episode_num\":1,\"title\":\"Pilot\","
+                    + "\"container_extension\":\"mp4\"}]}}";
+        } else {
+            // get_series&category_id=c lists series c, c + CATEGORIES, c + 2 * CATEGORIES, ...
+            simulateLatency();
+            int category = Integer.parseInt(query.replaceAll(".*category_id=(\\d+).*", "$1"));
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = category; i <= SERIES; i += CATEGORIES) {
+                sb.append(sb.length() > 1 ? "," : "").append("{\"series_id\":").append(i)
+                        .append(",\"name\":\"EN | Series ").append(i).append("\",\"category_id\":\"")
+                        .append(category).append("\"}");
+            }
+            body = sb.append(']').toString();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    private static void simulateLatency() {
+        try {
+            Thread.sleep(PROVIDER_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long run(FanOutMode fanOut) {
+        ApplicationProperties props = new ApplicationProperties();
+        props.setSeriesInfoMaxInflight(MAX_INFLIGHT);
+        props.setMaxRetries(1);
+        props.setSeriesInfoFanOut(fanOut);
+        when(applicationPropertiesService.getCurrentProperties()).thenReturn(props);
+        seriesInfoCalls.set(0);
+        apiClient.getLimiter().reset(MAX_INFLIGHT);
+
+        long start = System.nanoTime();
+        jsonService.fetchAndSaveSeries(creds, XtreamCodesUtils.buildEndpointUrl(Constants.SERIES_CATEGORIES, creds),
+                Collections.synchronizedSet(new HashSet<>()), IngestMode.FULL);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(seriesInfoCalls.get()).isEqualTo(SERIES);
+        return elapsedMs;
+    }
+
+    @Test
+    void compareFanOutModes() {
+        run(FanOutMode.VIRTUAL_THREADS); // warm up HTTP client and JIT
+        long pool = run(FanOutMode.POOL);
+        long virtual = run(FanOutMode.VIRTUAL_THREADS);
+        long async = run(FanOutMode.ASYNC);
+        System.out.printf("series listing + info fan-out: %d categories, %d series, %d ms provider latency, "
+                + "initial limit %d%n", CATEGORIES, SERIES, PROVIDER_LATENCY_MS, MAX_INFLIGHT);
+        System.out.printf("  fixed pool      : %6d ms (%.0f series/s)%n", pool, SERIES * 1000.0 / pool);
+        System.out.printf("  virtual threads : %6d ms (%.0f series/s)%n", virtual, SERIES * 1000.0 / virtual);
+        System.out.printf("  async pipeline  : %6d ms (%.0f series/s)%n", async, SERIES * 1000.0 / async);
+        System.out.printf("  provider        : %s%n", apiClient.getLimiter().stats());
+    }
+}
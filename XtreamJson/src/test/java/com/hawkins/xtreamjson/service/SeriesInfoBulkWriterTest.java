@@ -0,0 +1,142 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.EpisodeInfo;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.util.CompressionUtils;
+
+/**
+ * Runs against the schema Hibernate generates for the entities, so a mapping
+ * change that the hand-written SQL misses fails here. The before/after
+ * benchmark runs with {@code mvn test -Dbenchmark=true -Dtest=SeriesInfoBulkWriterTest}.
+ */
+class SeriesInfoBulkWriterTest {
+
+    private SessionFactory hibernate;
+    private SeriesInfoBulkWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:h2:mem:bulk" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        hibernate = new Configuration()
+                .addAnnotatedClass(Episode.class)
+                .addAnnotatedClass(Season.class)
+                .addAnnotatedClass(EpisodeInfo.class)
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                // Spring Boot's naming, as in the application
+                .setProperty("hibernate.physical_naming_strategy",
+                        "org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy")
+                .setProperty("hibernate.jdbc.batch_size", "500")
+                .setProperty("hibernate.order_inserts", "true")
+                .buildSessionFactory();
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser("sa");
+        writer = new SeriesInfoBulkWriter(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hibernate.close();
+    }
+
+    private static Episode episode(int i) {
+        return Episode.builder().episodeId("e" + i).seriesId("s" + (i / 100)).seasonId("1").name("Episode " + i)
+                .episodeNum(String.valueOf(i % 100)).infoJson("{\"plot\":\"" + "x".repeat(600) + "\"}")
+                .containerExtension("mkv").durationSeconds(2700)
+                .contentHash("h" + i).build();
+    }
+
+    @Test
+    void insertsNewRowsAndUpdatesRowsWithAnId() {
+        writer.saveSeasons(List.of(Season.builder().seasonId("1").seriesId("s0").name("Season 1").seasonNumber(1)
+                .build()));
+        writer.saveEpisodes(List.of(episode(1), episode(2)));
+
+        Episode changed = hibernate.fromSession(session -> session
+                .createQuery("from Episode where episodeId = 'e2'", Episode.class).getSingleResult());
+        changed.setName("Renamed");
+        changed.setContentHash("h2b");
+        writer.saveEpisodes(List.of(changed, episode(3)));
+
+        List<Episode> stored = hibernate.fromSession(session -> session
+                .createQuery("from Episode order by id", Episode.class).getResultList());
+        assertThat(stored).extracting(Episode::getEpisodeId).containsExactly("e1", "e2", "e3");
+        assertThat(stored.get(1).getName()).isEqualTo("Renamed");
+        assertThat(stored.get(1).getContentHash()).isEqualTo("h2b");
+        EpisodeInfo info = hibernate.fromSession(session -> session.find(EpisodeInfo.class, "e1"));
+        assertThat(info.getSeriesId()).isEqualTo("s0");
+        assertThat(info.getData().length).isLessThan(100);
+        assertThat(CompressionUtils.gunzip(info.getData())).startsWith("{\"plot\":").hasSize(611);
+        Long infoRows = hibernate.fromSession(session -> session
+                .createQuery("select count(*) from EpisodeInfo", Long.class).getSingleResult());
+        assertThat(infoRows).isEqualTo(3);
+        assertThat(stored.get(0).getDurationSeconds()).isEqualTo(2700);
+        Season season = hibernate.fromSession(session -> session.createQuery("from Season", Season.class)
+                .getSingleResult());
+        assertThat(season.getSeasonNumber()).isEqualTo(1);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkEpisodeInserts() {
+        final int total = 100_000;
+        final int batch = 500;
+        List<Episode> before = new ArrayList<>(total);
+        List<Episode> after = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            before.add(episode(i));
+            after.add(episode(i));
+        }
+
+        // Before: what episodeRepository.saveAll did, one transaction per writer batch. Both paths
+        // store the gzipped info payload, which the bulk writer merges alongside each batch
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i += batch) {
+            List<Episode> chunk = before.subList(i, Math.min(total, i + batch));
+            hibernate.inTransaction(session -> chunk.forEach(e -> {
+                session.persist(e);
+                session.persist(EpisodeInfo.builder().episodeId(e.getEpisodeId()).seriesId(e.getSeriesId())
+                        .data(CompressionUtils.gzip(e.getInfoJson())).build());
+            }));
+        }
+        long hibernateMs = (System.nanoTime() - start) / 1_000_000;
+
+        hibernate.inTransaction(session -> {
+            session.createMutationQuery("delete from Episode").executeUpdate();
+            session.createMutationQuery("delete from EpisodeInfo").executeUpdate();
+        });
+
+        start = System.nanoTime();
+        for (int i = 0; i < total; i += batch) {
+            writer.saveEpisodes(after.subList(i, Math.min(total, i + batch)));
+        }
+        long bulkMs = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("episode inserts with gzipped info: %d rows, batches of %d%n", total, batch);
+        System.out.printf("  hibernate saveAll (IDENTITY) : %6d ms (%d episodes/s)%n", hibernateMs,
+                total * 1000L / Math.max(1, hibernateMs));
+        System.out.printf("  jdbc batch                   : %6d ms (%d episodes/s)%n", bulkMs,
+                total * 1000L / Math.max(1, bulkMs));
+        Long stored = hibernate.fromSession(session -> session.createQuery("select count(*) from Episode", Long.class)
+                .getSingleResult());
+        Long infoRows = hibernate.fromSession(session -> session
+                .createQuery("select count(*) from EpisodeInfo", Long.class).getSingleResult());
+        assertThat(stored).isEqualTo(total);
+        assertThat(infoRows).isEqualTo(total);
+    }
+}
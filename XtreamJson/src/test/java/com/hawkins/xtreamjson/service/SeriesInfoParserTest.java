@@ -0,0 +1,150 @@
+package com.hawkins.xtreamjson.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hawkins.xtreamjson.data.Episode;
+import com.hawkins.xtreamjson.data.Season;
+import com.hawkins.xtreamjson.util.XtreamCodesUtils;
+
+/**
+ * The tree-vs-stream benchmark runs with
+ * {@code mvn test -Dbenchmark=true -Dtest=SeriesInfoParserTest}.
+ */
+class SeriesInfoParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SeriesInfoParser parser = new SeriesInfoParser(objectMapper.getFactory());
+
+    /**
+     * A get_series_info body shaped like the providers': seasons and info
+     * around the episodes, nested info objects inside each episode.
+     */
+    private static String payload(int seasons, int episodesPerSeason) {
+        StringBuilder sb = new StringBuilder("{\"seasons\":[{\"season_number\":1,\"name\":\"Season 1\"}],")
+                .append("\"info\":{\"name\":\"Show\",\"plot\":\"").append("p".repeat(400)).append("\"},")
+                .append("\"episodes\":{");
+        for (int s = 1; s <= seasons; s++) {
+            sb.append(s > 1 ? "," : "").append('"').append(s).append("\":[");
+            for (int e = 1; e <= episodesPerSeason; e++) {
+                int id = s * 1000 + e;
+                sb.append(e > 1 ? "," : "")
+                        .append("{\"id\":\"").append(id).append("\",\"episode_num\":").append(e)
+                        .append(",\"title\":\"Show - S").append(s).append("E").append(e).append(" \\/ \\\"Pilot\\\"\"")
+                        .append(",\"container_extension\":\"mkv\",\"custom_sid\":null,\"added\":\"1700000000\"")
+                        .append(",\"info\":{\"plot\":\"").append("x".repeat(300))
+                        .append("\",\"duration_secs\":2700,\"rating\":7.5,\"genres\":[\"Drama\",\"Crime\"]}}");
+            }
+            sb.append(']');
+        }
+        return sb.append("}}").toString();
+    }
+
+    @Test
+    void readsSeasonsAndEpisodesAndKeepsEachEpisodesOwnJson() throws Exception {
+        String body = payload(2, 3);
+
+        SeriesInfoParser.Result result = parser.parse(body, "42");
+
+        assertThat(result.seasons()).extracting(Season::getSeasonId).containsExactly("1", "2");
+        assertThat(result.episodes()).hasSize(6);
+        Episode first = result.episodes().get(0);
+        assertThat(first.getEpisodeId()).isEqualTo("1001");
+        assertThat(first.getSeriesId()).isEqualTo("42");
+        assertThat(first.getSeasonId()).isEqualTo("1");
+        assertThat(first.getEpisodeNum()).isEqualTo("1");
+        assertThat(first.getName()).isEqualTo("Show - S1E1 / \"Pilot\"");
+        assertThat(first.getContainerExtension()).isEqualTo("mkv");
+
+        JsonNode tree = objectMapper.readTree(body).path("episodes");
+        for (Episode episode : result.episodes()) {
+            assertThat(body).contains(episode.getInfoJson());
+            JsonNode expected = tree.path(episode.getSeasonId())
+                    .get(Integer.parseInt(episode.getEpisodeNum()) - 1);
+            assertThat(objectMapper.readTree(episode.getInfoJson())).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void returnsNullWithoutAnEpisodesObject() throws Exception {
+        assertThat(parser.parse("{\"info\":{},\"episodes\":[]}", "1")).isNull();
+        assertThat(parser.parse("[]", "1")).isNull();
+        assertThat(parser.parse("{\"episodes\":{}}", "1").episodes()).isEmpty();
+    }
+
+    /** What handleSeriesInfo did before: readTree, walk the nodes, re-serialize each episode. */
+    private List<Episode> parseWithTree(String body, String seriesId) throws Exception {
+        JsonNode episodesNode = objectMapper.readTree(body).path("episodes");
+        List<Episode> episodes = new ArrayList<>();
+        Iterator<String> seasonFields = episodesNode.fieldNames();
+        while (seasonFields.hasNext()) {
+            String seasonNumRaw = seasonFields.next();
+            String seasonNum = XtreamCodesUtils.sanitizeName(seasonNumRaw);
+            for (JsonNode ep : episodesNode.get(seasonNumRaw)) {
+                String episodeId = ep.has("id") ? ep.get("id").asText() : null;
+                episodes.add(Episode.builder()
+                        .episodeId(episodeId)
+                        .seriesId(seriesId)
+                        .seasonId(seasonNum)
+                        .name(ep.has("title") ? ep.get("title").asText() : null)
+                        .episodeNum(ep.has("episode_num")
+                                ? XtreamCodesUtils.sanitizeName(ep.get("episode_num").asText())
+                                : "unknown")
+                        .infoJson(ep.toString())
+                        .containerExtension(ep.has("container_extension")
+                                ? ep.get("container_extension").asText()
+                                : "mp4")
+                        .build());
+            }
+        }
+        return episodes;
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        int parse(String body) throws Exception;
+    }
+
+    private static long[] measure(List<String> bodies, Run run) throws Exception {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int warmup = 0; warmup < 3; warmup++) {
+            for (String body : bodies) {
+                run.parse(body);
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long episodes = 0;
+        for (String body : bodies) {
+            episodes += run.parse(body);
+        }
+        return new long[] { (System.nanoTime() - start) / 1_000_000,
+                threads.getCurrentThreadAllocatedBytes() - allocated, episodes };
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkTreeVersusStream() throws Exception {
+        final int series = 20_000;
+        List<String> bodies = new ArrayList<>(series);
+        for (int i = 0; i < series; i++) {
+            bodies.add(payload(1 + i % 4, 8 + i % 5));
+        }
+
+        long[] tree = measure(bodies, body -> parseWithTree(body, "1").size());
+        long[] stream = measure(bodies, body -> parser.parse(body, "1").episodes().size());
+
+        System.out.printf("series_info parse: %d payloads, %d episodes%n", series, tree[2]);
+        System.out.printf("  readTree + toString : %6d ms %8d MB allocated%n", tree[0], tree[1] >> 20);
+        System.out.printf("  token stream        : %6d ms %8d MB allocated%n", stream[0], stream[1] >> 20);
+        assertThat(stream[2]).isEqualTo(tree[2]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hawkins.xtreamjson.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.hawkins.xtreamjson.data.MovieStream;
+import com.hawkins.xtreamjson.model.IptvProvider;
+import com.hawkins.xtreamjson.repository.EpisodeRepository;
+import com.hawkins.xtreamjson.repository.MovieStreamRepository;
+
+@ExtendWith(MockitoExtension.class)
+class StreamUrlResolverTest {
+
+    @Mock private IptvProviderService providerService;
+    @Mock private MovieStreamRepository movieStreamRepository;
+    @Mock private EpisodeRepository episodeRepository;
+
+    private StreamUrlResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new StreamUrlResolver(providerService, movieStreamRepository, episodeRepository);
+    }
+
+    private static IptvProvider provider(String password) {
+        IptvProvider p = new IptvProvider();
+        p.setApiUrl("http://host:8080");
+        p.setUsername("user");
+        p.setPassword(password);
+        return p;
+    }
+
+    @Test
+    void buildsUrlsFromTheSelectedProviderAndFollowsCredentialChanges() {
+        when(providerService.getSelectedProvider()).thenReturn(Optional.of(provider("old")));
+        StreamUrlResolver.Urls urls = resolver.forSelectedProvider();
+        assertThat(urls.live(7)).isEqualTo("http://host:8080/live/user/old/7.ts");
+        assertThat(urls.movie(8, "mkv")).isEqualTo("http://host:8080/movie/user/old/8.mkv");
+        assertThat(urls.episode("9", null)).isEqualTo("http://host:8080/series/user/old/9.mp4");
+        assertThat(urls.live(0)).isNull();
+        assertThat(urls.movie(8, "")).isNull();
+        assertThat(resolver.forSelectedProvider()).isSameAs(urls);
+
+        when(providerService.getSelectedProvider()).thenReturn(Optional.of(provider("new")));
+        assertThat(resolver.forSelectedProvider().live(7)).isEqualTo("http://host:8080/live/user/new/7.ts");
+
+        when(providerService.getSelectedProvider()).thenReturn(Optional.empty());
+        assertThat(resolver.forSelectedProvider().live(7)).isNull();
+    }
+
+    @Test
+    void resolvesPlayLinksFromStoredIds() {
+        when(providerService.getSelectedProvider()).thenReturn(Optional.of(provider("pw")));
+        MovieStream movie = new MovieStream();
+        movie.setStreamId(8);
+        movie.setContainerExtension("avi");
+        when(movieStreamRepository.findById(8)).thenReturn(Optional.of(movie));
+        when(episodeRepository.findContainerExtensions("9")).thenReturn(List.of("mkv"));
+        when(episodeRepository.findContainerExtensions("10")).thenReturn(List.of());
+
+        assertThat(resolver.resolve("live", "7")).contains("http://host:8080/live/user/pw/7.ts");
+        assertThat(resolver.resolve("movie", "8")).contains("http://host:8080/movie/user/pw/8.avi");
+        assertThat(resolver.resolve("series", "9")).contains("http://host:8080/series/user/pw/9.mkv");
+        assertThat(resolver.resolve("series", "10")).isEmpty();
+        assertThat(resolver.resolve("radio", "1")).isEmpty();
+    }
+}
@@ -0,0 +1,195 @@
+package com.hawkins.xtreamjson.service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.hawkins.xtreamjson.repository.TitleView;
+
+/**
+ * The latency benchmark against the old {@code LIKE '%q%'} query runs with
+ * {@code mvn test -Dbenchmark=true -Dtest=TitleSearchIndexTest}.
+ */
+class TitleSearchIndexTest {
+
+    private record Row(Integer id, String title) implements TitleView {
+        @Override
+        public Integer getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    private static TitleSearchIndex.Index index(String... titles) {
+        List<TitleView> rows = new ArrayList<>();
+        for (int i = 0; i < titles.length; i++) {
+            rows.add(new Row(i + 1, titles[i]));
+        }
+        return TitleSearchIndex.Index.of(rows);
+    }
+
+    @Test
+    void splitsTitlesIntoFoldedWords() {
+        assertThat(TitleSearchIndex.words("Amélie (2001) - Spider-Man's  CAFÉ"))
+                .containsExactly("amelie", "2001", "spider", "man", "s", "cafe");
+        assertThat(TitleSearchIndex.words(" -- ")).isEmpty();
+    }
+
+    @Test
+    void everyQueryWordMustStartATitleWord() {
+        TitleSearchIndex.Index index = index("The Dark Knight", "Dark Shadows", "Knight Rider", "Darkman");
+
+        assertThat(index.search("dark kni", 10)).containsExactly(1);
+        assertThat(index.search("KNIGHT dark", 10)).containsExactly(1);
+        assertThat(index.search("ark", 10)).isEmpty();
+        assertThat(index.search("dark zebra", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void ranksWholeWordsAndLeadingMatchesFirstAndStopsAtTheLimit() {
+        TitleSearchIndex.Index index = index(
+                "Return of the Alien", // 1: whole word, not leading
+                "Aliens", //              2: prefix, leading
+                "Alien", //               3: whole word, leading, shortest
+                "Alien Resurrection", //  4: whole word, leading
+                "Alienist"); //           5: prefix, leading
+
+        assertThat(index.search("alien", 10)).containsExactly(3, 4, 5, 2, 1);
+        assertThat(index.search("alien", 2)).containsExactly(3, 4);
+        assertThat(index.search("ali", 10)).containsExactly(3, 5, 2, 4, 1);
+    }
+
+    @Test
+    void skipsRowsWithoutATitle() {
+        TitleSearchIndex.Index index = TitleSearchIndex.Index.of(List.of(new Row(1, null), new Row(2, "Heat")));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("heat", 10)).containsExactly(2);
+    }
+
+    private static final String[] WORDS = { "the", "of", "and", "a", "in", "love", "night", "man", "dark", "last",
+            "story", "world", "king", "day", "life", "war", "house", "dead", "city", "girl", "time", "home", "star",
+            "blood", "black", "lost", "secret", "game", "heart", "fire", "road", "water", "island", "ghost", "queen" };
+
+    private static List<String> catalog(int size, Random random) {
+        // A long tail of made-up words on top of the common ones, like real titles
+        String[] tail = new String[20_000];
+        for (int i = 0; i < tail.length; i++) {
+            StringBuilder w = new StringBuilder();
+            for (int c = 3 + random.nextInt(6); c > 0; c--) {
+                w.append((char) ('a' + random.nextInt(26)));
+            }
+            tail[i] = w.toString();
+        }
+        List<String> titles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            StringBuilder t = new StringBuilder();
+            for (int w = 1 + random.nextInt(4); w > 0; w--) {
+                String word = random.nextInt(3) == 0 ? WORDS[random.nextInt(WORDS.length)] : tail[random.nextInt(tail.length)];
+                t.append(t.isEmpty() ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+            }
+            if (random.nextBoolean()) {
+                t.append(" (").append(1950 + random.nextInt(75)).append(')');
+            }
+            titles.add(t.toString());
+        }
+        return titles;
+    }
+
+    /** What a user types: every prefix of a title's first two words. */
+    private static List<String> keystrokes(List<String> titles, Random random, int count) {
+        List<String> queries = new ArrayList<>();
+        while (queries.size() < count) {
+            List<String> words = TitleSearchIndex.words(titles.get(random.nextInt(titles.size())));
+            String typed = String.join(" ", words.subList(0, Math.min(2, words.size())));
+            for (int len = 2; len <= typed.length() && queries.size() < count; len++) {
+                queries.add(typed.substring(0, len).trim());
+            }
+        }
+        return queries;
+    }
+
+    @FunctionalInterface
+    private interface Search {
+        int run(String query) throws Exception;
+    }
+
+    private static String latencies(List<String> queries, Search search) throws Exception {
+        for (String q : queries.subList(0, Math.min(200, queries.size()))) {
+            search.run(q);
+        }
+        long[] micros = new long[queries.size()];
+        long results = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            results += search.run(queries.get(i));
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return String.format("p50 %7d us  p95 %7d us  p99 %7d us  max %7d us  avg rows %d",
+                micros[micros.length / 2], micros[micros.length * 95 / 100], micros[micros.length * 99 / 100],
+                micros[micros.length - 1], results / queries.size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkKeystrokeLatencyOn200kTitles() throws Exception {
+        Random random = new Random(42);
+        List<String> titles = catalog(200_000, random);
+        List<String> queries = keystrokes(titles, random, 2_000);
+
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:titles", "sa", "");
+                Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE movie_stream (stream_id INT PRIMARY KEY, name VARCHAR(255))");
+            try (PreparedStatement insert = c.prepareStatement("INSERT INTO movie_stream VALUES (?, ?)")) {
+                for (int i = 0; i < titles.size(); i++) {
+                    insert.setInt(1, i + 1);
+                    insert.setString(2, titles.get(i));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            PreparedStatement like = c.prepareStatement(
+                    "SELECT * FROM movie_stream WHERE LOWER(name) LIKE LOWER(CONCAT('%', ?, '%'))");
+            String scan = latencies(queries, q -> {
+                like.setString(1, q);
+                int rows = 0;
+                try (ResultSet rs = like.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                    }
+                }
+                return rows;
+            });
+
+            long start = System.nanoTime();
+            List<TitleView> rows = new ArrayList<>(titles.size());
+            for (int i = 0; i < titles.size(); i++) {
+                rows.add(new Row(i + 1, titles.get(i)));
+            }
+            TitleSearchIndex.Index index = TitleSearchIndex.Index.of(rows);
+            long buildMs = (System.nanoTime() - start) / 1_000_000;
+            String indexed = latencies(queries, q -> index.search(q, 100).size());
+
+            System.out.printf("title search: %d titles, %d keystroke queries, index built in %d ms%n",
+                    titles.size(), queries.size(), buildMs);
+            System.out.println("  H2 LIKE '%q%' (unbounded) : " + scan);
+            System.out.println("  title index (top 100)     : " + indexed);
+        }
+    }
+}